@@ -0,0 +1,421 @@
+package cn.com.lbt.lbtlibrary.utils.app;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import cn.com.lbt.lbtlibrary.utils.LogPrintUtils;
+
+/**
+ * detail: 分析记录异步写入
+ * Created by Ttt
+ * ---
+ * hint:
+ * 记录保存到有界无锁环形队列 (多生产者 CAS 占位, 按序号发布), 由单个写入线程批量取出
+ * 写入线程保持每个日志文件的 FileChannel 打开 (最多 {@link #MAX_OPEN_FILES} 个), 同一文件的一批记录使用一次 gathering write 写入
+ * 文件不存在 (首次写入) 时先写入设备、App、文件信息, 与同步写入一致
+ * 队列已满时按策略丢弃 (返回 false) 或等待; 空闲超过 {@link #IDLE_CLOSE_MILLIS} 毫秒关闭全部文件
+ * 关闭时写入线程设置标记后再取一次队列, 之后加入的记录 (写入线程已退出) 以及关闭后调用 append 的记录直接写入文件
+ */
+final class AnalysisRecordAppender {
+
+    // 日志TAG
+    private static final String TAG = AnalysisRecordAppender.class.getSimpleName();
+    // 每批次最多写入数量
+    private static final int MAX_BATCH = 256;
+    // 最多同时打开的文件数量
+    private static final int MAX_OPEN_FILES = 8;
+    // 空闲多久关闭文件 (毫秒)
+    private static final long IDLE_CLOSE_MILLIS = 1000l;
+    // 队列已满等待时间 (纳秒)
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * detail: 等待写入的记录
+     */
+    static final class Record {
+        // 日志文件夹
+        final String logPath;
+        // 日志文件名
+        final String fileName;
+        // 文件记录的功能 (首次写入时使用)
+        final String fileFunction;
+        // 日志内容
+        final String content;
+
+        Record(String logPath, String fileName, String fileFunction, String content) {
+            this.logPath = logPath;
+            this.fileName = fileName;
+            this.fileFunction = fileFunction;
+            this.content = content;
+        }
+    }
+
+    // 队列容量 (2 的幂)
+    private final int capacity;
+    // 下标掩码
+    private final int mask;
+    // 每个位置的序号 (等于写入位置表示可写, 等于写入位置 + 1 表示可读)
+    private final AtomicLongArray sequences;
+    // 记录
+    private final AtomicReferenceArray<Record> slots;
+    // 写入位置
+    private final AtomicLong tail = new AtomicLong();
+    // 读取位置 (只有写入线程修改)
+    private volatile long head;
+    // 已写入位置 (只有写入线程修改)
+    private volatile long written;
+    // 队列满时是否等待 (false 则丢弃)
+    private final boolean block;
+    // 丢弃的记录数量
+    private final AtomicLong dropped = new AtomicLong();
+    // 写入线程
+    private final Thread thread;
+    // 写入线程是否等待中
+    private volatile boolean sleeping;
+    // 是否已关闭
+    private volatile boolean shutdown;
+    // 等待写入完成的锁
+    private final Object flushLock = new Object();
+    // 打开的文件 (按访问顺序, 超过数量关闭最早访问的)
+    private final LinkedHashMap<String, FileChannel> channels = new LinkedHashMap<String, FileChannel>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileChannel> eldest) {
+            if (size() > MAX_OPEN_FILES) {
+                close(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * 构造函数
+     * @param capacity 队列容量 (向上取 2 的幂)
+     * @param block    队列满时是否等待 (false 则丢弃)
+     */
+    AnalysisRecordAppender(int capacity, boolean block) {
+        int size = 2;
+        while (size < capacity && size < (1 << 30)) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.block = block;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "AnalysisRecord-Appender");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 加入写入队列
+     * @param record 记录
+     * @return true : 已加入 (已关闭则直接写入), false : 队列已满丢弃或直接写入失败
+     */
+    boolean append(Record record) {
+        while (!shutdown) {
+            long pos = offer(record);
+            if (pos >= 0) {
+                if (sleeping) {
+                    LockSupport.unpark(thread);
+                }
+                if (shutdown) {
+                    // 关闭过程中加入, 等待写入线程退出, 未写入则直接写入
+                    awaitExit();
+                    if (pos >= head) {
+                        return writeDirect(record);
+                    }
+                }
+                return true;
+            }
+            if (!block) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            // 队列已满, 唤醒写入线程后等待
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        // 已关闭 (调用方在切换前获取了此对象), 等待写入线程退出后直接写入
+        awaitExit();
+        return writeDirect(record);
+    }
+
+    /**
+     * 获取丢弃的记录数量
+     * @return
+     */
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 等待已加入队列的记录写入完成
+     */
+    void flush() {
+        long target = tail.get();
+        synchronized (flushLock) {
+            while (written < target && thread.isAlive()) {
+                LockSupport.unpark(thread);
+                try {
+                    flushLock.wait(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 写入剩余记录后关闭
+     */
+    void shutdown() {
+        flush();
+        shutdown = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(IDLE_CLOSE_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // =
+
+    /**
+     * 等待写入线程退出
+     */
+    private void awaitExit() {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 直接写入记录 (写入线程已退出时使用)
+     * @param record 记录
+     * @return true : 写入成功, false : 写入失败
+     */
+    private static boolean writeDirect(Record record) {
+        synchronized (AnalysisRecordAppender.class) {
+            FileOutputStream fos = null;
+            try {
+                File file = new File(record.logPath, record.fileName);
+                boolean isNew = !file.exists();
+                if (isNew) {
+                    new File(record.logPath).mkdirs();
+                }
+                fos = new FileOutputStream(file, true);
+                if (isNew) {
+                    fos.write(AnalysisRecordUtils.getFileHeader(record.fileFunction).getBytes());
+                }
+                fos.write(record.content.getBytes());
+                return true;
+            } catch (Exception e) {
+                LogPrintUtils.eTag(TAG, e, "writeDirect");
+                return false;
+            } finally {
+                if (fos != null) {
+                    try {
+                        fos.close();
+                    } catch (IOException ignore) {
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 加入队列 (无锁)
+     * @param record 记录
+     * @return 加入的位置, -1 表示队列已满
+     */
+    private long offer(Record record) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.lazySet(index, record);
+                    // 发布, 写入线程看到序号后才读取
+                    sequences.set(index, pos + 1);
+                    return pos;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return -1;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 取出记录 (只在写入线程调用)
+     * @return 记录, 队列为空则返回 null
+     */
+    private Record poll() {
+        long pos = head;
+        int index = (int) pos & mask;
+        if (sequences.get(index) != pos + 1) {
+            return null;
+        }
+        Record record = slots.get(index);
+        slots.lazySet(index, null);
+        sequences.set(index, pos + capacity);
+        head = pos + 1;
+        return record;
+    }
+
+    /**
+     * 写入线程循环
+     */
+    private void loop() {
+        List<Record> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            Record record;
+            while (batch.size() < MAX_BATCH && (record = poll()) != null) {
+                batch.add(record);
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+                written = head;
+                synchronized (flushLock) {
+                    flushLock.notifyAll();
+                }
+                continue;
+            }
+            if (shutdown) {
+                // 设置关闭标记后再检查一次, 之后加入的记录由 append 直接写入
+                if (sequences.get((int) head & mask) == head + 1) {
+                    continue;
+                }
+                break;
+            }
+            // 队列为空, 等待唤醒 (设置标记后再检查一次, 避免错过唤醒)
+            sleeping = true;
+            if (sequences.get((int) head & mask) == head + 1) {
+                sleeping = false;
+                continue;
+            }
+            long start = System.nanoTime();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(IDLE_CLOSE_MILLIS));
+            sleeping = false;
+            if (System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(IDLE_CLOSE_MILLIS)) {
+                closeAll();
+            }
+        }
+        closeAll();
+    }
+
+    /**
+     * 写入一批记录 (按文件分组, 每个文件一次 gathering write)
+     * @param batch 记录
+     */
+    private void write(List<Record> batch) {
+        LinkedHashMap<String, List<Record>> groups = new LinkedHashMap<>();
+        for (Record record : batch) {
+            String path = record.logPath + File.separator + record.fileName;
+            List<Record> list = groups.get(path);
+            if (list == null) {
+                list = new ArrayList<>();
+                groups.put(path, list);
+            }
+            list.add(record);
+        }
+        for (Map.Entry<String, List<Record>> entry : groups.entrySet()) {
+            String path = entry.getKey();
+            List<Record> records = entry.getValue();
+            try {
+                List<ByteBuffer> buffers = new ArrayList<>(records.size() + 1);
+                FileChannel channel = channels.get(path);
+                if (channel == null) {
+                    Record first = records.get(0);
+                    File file = new File(path);
+                    boolean isNew = !file.exists();
+                    if (isNew) {
+                        new File(first.logPath).mkdirs();
+                    }
+                    channel = new FileOutputStream(file, true).getChannel();
+                    channels.put(path, channel);
+                    if (isNew) {
+                        buffers.add(ByteBuffer.wrap(AnalysisRecordUtils.getFileHeader(first.fileFunction).getBytes()));
+                    }
+                }
+                long remaining = 0;
+                for (Record record : records) {
+                    ByteBuffer buffer = ByteBuffer.wrap(record.content.getBytes());
+                    remaining += buffer.remaining();
+                    buffers.add(buffer);
+                }
+                if (buffers.size() > records.size()) {
+                    remaining += buffers.get(0).remaining();
+                }
+                ByteBuffer[] array = buffers.toArray(new ByteBuffer[buffers.size()]);
+                while (remaining > 0) {
+                    remaining -= channel.write(array);
+                }
+            } catch (Exception e) {
+                LogPrintUtils.eTag(TAG, e, "write");
+                close(channels.remove(path));
+            }
+        }
+    }
+
+    /**
+     * 关闭全部文件
+     */
+    private void closeAll() {
+        Iterator<FileChannel> iterator = channels.values().iterator();
+        while (iterator.hasNext()) {
+            close(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 关闭文件
+     * @param channel
+     */
+    private static void close(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+}
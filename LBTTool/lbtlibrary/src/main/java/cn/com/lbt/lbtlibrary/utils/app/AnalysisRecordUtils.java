@@ -50,6 +50,14 @@ public final class AnalysisRecordUtils {
     private static boolean appendSpace = true;
     // 正则 - 空格
     private static final String SPACE_STR = "\\s";
+    // 队列已满策略 - 丢弃
+    public static final int POLICY_DROP = 0;
+    // 队列已满策略 - 等待
+    public static final int POLICY_BLOCK = 1;
+    // 异步写入 (null 则同步写入)
+    private static volatile AnalysisRecordAppender sAppender;
+    // 是否已添加退出时写入
+    private static boolean sShutdownHook;
 
 
     /**
@@ -89,6 +97,10 @@ public final class AnalysisRecordUtils {
                 return "file record not handler";
             }
             if (args != null && args.length != 0) {
+                AnalysisRecordAppender appender = sAppender;
+                if (appender != null) {
+                    return saveLogRecordAsync(appender, fileInfo, args);
+                }
                 return saveLogRecord(fileInfo, args);
             }
             // 无数据记录
@@ -98,6 +110,59 @@ public final class AnalysisRecordUtils {
         return "info is null";
     }
 
+    /**
+     * 设置异步写入 (记录加入队列后由写入线程批量写入)
+     * @param capacity 队列容量, 小于等于 0 则关闭异步写入 (写入剩余记录后改为同步写入)
+     * @param policy   队列已满策略 {@link #POLICY_DROP}、{@link #POLICY_BLOCK}
+     */
+    public static synchronized void setAsync(int capacity, int policy) {
+        AnalysisRecordAppender appender = sAppender;
+        sAppender = null;
+        if (appender != null) {
+            appender.shutdown();
+        }
+        if (capacity > 0) {
+            sAppender = new AnalysisRecordAppender(capacity, policy == POLICY_BLOCK);
+            if (!sShutdownHook) {
+                sShutdownHook = true;
+                // 进程正常退出时写入剩余记录
+                Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        flush();
+                    }
+                }));
+            }
+        }
+    }
+
+    /**
+     * 是否异步写入
+     * @return
+     */
+    public static boolean isAsync() {
+        return sAppender != null;
+    }
+
+    /**
+     * 等待异步写入的记录全部写入文件
+     */
+    public static void flush() {
+        AnalysisRecordAppender appender = sAppender;
+        if (appender != null) {
+            appender.flush();
+        }
+    }
+
+    /**
+     * 获取异步写入队列已满时丢弃的记录数量
+     * @return
+     */
+    public static long getDroppedCount() {
+        AnalysisRecordAppender appender = sAppender;
+        return appender != null ? appender.getDroppedCount() : 0l;
+    }
+
     /**
      * 是否处理日志记录
      * @return
@@ -202,38 +267,8 @@ public final class AnalysisRecordUtils {
                 appendFile(logFile, logContent);
             } else {
                 // ==== 首次则保存设备、App 信息 ====
-                StringBuffer sBuffer = new StringBuffer();
-                sBuffer.append("【设备信息】");
-                sBuffer.append(NEW_LINE_STR);
-                sBuffer.append("===========================");
-                sBuffer.append(NEW_LINE_STR);
-                sBuffer.append(getDeviceInfo());
-                sBuffer.append("===========================");
-                sBuffer.append(NEW_LINE_STR);
-
-                sBuffer.append(NEW_LINE_STR);
-                sBuffer.append(NEW_LINE_STR);
-                sBuffer.append("【版本信息】");
-                sBuffer.append(NEW_LINE_STR);
-                sBuffer.append("===========================");
-                sBuffer.append(NEW_LINE_STR);
-                sBuffer.append(getAppInfo());
-                sBuffer.append(NEW_LINE_STR);
-                sBuffer.append("===========================");
-                sBuffer.append(NEW_LINE_STR);
-
-                sBuffer.append(NEW_LINE_STR);
-                sBuffer.append(NEW_LINE_STR);
-                sBuffer.append("【文件信息】");
-                sBuffer.append(NEW_LINE_STR);
-                sBuffer.append("===========================");
-                sBuffer.append(NEW_LINE_STR);
-                sBuffer.append(fHint);
-                sBuffer.append(NEW_LINE_STR);
-                sBuffer.append("===========================");
-                sBuffer.append(NEW_LINE_STR);
                 // 创建文件夹,并且进行处理
-                saveFile(sBuffer.toString(), logPath, fName);
+                saveFile(getFileHeader(fHint), logPath, fName);
                 // 追加内容
                 appendFile(logFile, logContent);
             }
@@ -245,6 +280,73 @@ public final class AnalysisRecordUtils {
         }
     }
 
+    /**
+     * 异步保存方法 (不检查文件是否存在, 由写入线程处理)
+     * @param appender
+     * @param fileInfo
+     * @param args
+     */
+    private static String saveLogRecordAsync(AnalysisRecordAppender appender, FileInfo fileInfo, String... args) {
+        // 如果文件地址为null, 则不处理
+        if (TextUtils.isEmpty(fileInfo.getFileName())) {
+            // 文件名为null
+            return "fileName is null";
+        }
+        try {
+            // 获取处理的日志
+            String logContent = splitLog(args);
+            // 加入写入队列
+            if (!appender.append(new AnalysisRecordAppender.Record(fileInfo.getLogPath(false),
+                    fileInfo.getFileName(), fileInfo.getFileFunction(), logContent))) {
+                return "record dropped";
+            }
+            // 返回打印日志
+            return logContent;
+        } catch (Exception ignore) {
+            // 捕获异常
+            return "catch error";
+        }
+    }
+
+    /**
+     * 获取首次保存的文件信息 (设备、App 信息)
+     * @param fHint 文件提示
+     * @return
+     */
+    static String getFileHeader(String fHint) {
+        StringBuffer sBuffer = new StringBuffer();
+        sBuffer.append("【设备信息】");
+        sBuffer.append(NEW_LINE_STR);
+        sBuffer.append("===========================");
+        sBuffer.append(NEW_LINE_STR);
+        sBuffer.append(getDeviceInfo());
+        sBuffer.append("===========================");
+        sBuffer.append(NEW_LINE_STR);
+
+        sBuffer.append(NEW_LINE_STR);
+        sBuffer.append(NEW_LINE_STR);
+        sBuffer.append("【版本信息】");
+        sBuffer.append(NEW_LINE_STR);
+        sBuffer.append("===========================");
+        sBuffer.append(NEW_LINE_STR);
+        sBuffer.append(getAppInfo());
+        sBuffer.append(NEW_LINE_STR);
+        sBuffer.append("===========================");
+        sBuffer.append(NEW_LINE_STR);
+
+        sBuffer.append(NEW_LINE_STR);
+        sBuffer.append(NEW_LINE_STR);
+        sBuffer.append("【文件信息】");
+        sBuffer.append(NEW_LINE_STR);
+        sBuffer.append("===========================");
+        sBuffer.append(NEW_LINE_STR);
+        sBuffer.append(fHint);
+        sBuffer.append(NEW_LINE_STR);
+        sBuffer.append("===========================");
+        sBuffer.append(NEW_LINE_STR);
+        return sBuffer.toString();
+    }
+
     /**
      * 拼接日志
      * @param args
@@ -595,8 +697,17 @@ public final class AnalysisRecordUtils {
          * @return
          */
         public String getLogPath() {
+            return getLogPath(true);
+        }
+
+        /**
+         * 获取日志地址
+         * @param create 是否创建文件夹
+         * @return
+         */
+        String getLogPath(boolean create) {
             // 返回拼接后的路径
-            return getSavePath(getStoragePath(), logFolderName + File.separator + getDateNow("yyyy_MM_dd")) + getIntervalTimeFolder();
+            return getSavePath(getStoragePath(), logFolderName + File.separator + getDateNow("yyyy_MM_dd"), create) + getIntervalTimeFolder();
         }
 
         /**
@@ -679,13 +790,16 @@ public final class AnalysisRecordUtils {
          * 获取保存地址
          * @param storagePath 存储路径
          * @param fPath 文件地址
+         * @param create 是否创建文件夹
          * @return
          */
-        private String getSavePath(String storagePath, String fPath) {
+        private String getSavePath(String storagePath, String fPath, boolean create) {
             // 获取保存地址
             File file = new File(storagePath, fPath);
             // 防止不存在目录文件，自动创建
-            createFolder(file);
+            if (create) {
+                createFolder(file);
+            }
             // 返回缓存地址
             return file.getAbsolutePath();
         }
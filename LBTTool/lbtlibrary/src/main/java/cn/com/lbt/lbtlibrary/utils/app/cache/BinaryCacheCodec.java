@@ -0,0 +1,494 @@
+package cn.com.lbt.lbtlibrary.utils.app.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * detail: 缓存对象紧凑二进制编解码
+ * Created by Ttt
+ * ---
+ * hint:
+ * 支持 null、基本类型包装类、String、byte[], 以及由这些数据组成的
+ * ArrayList、LinkedList、HashMap、LinkedHashMap、HashSet、LinkedHashSet (只支持这些类本身, 不包含子类, 读取后类型不变)
+ * 包含其他类型的数据 (或者嵌套层级过深), encode 返回 null, 由 {@link DevCache} 使用 Java 序列化保存
+ * 格式: magic(2) 0xDC 0xC1 + 数据, 数据 = tag(1) + 内容, 整数使用 zigzag varint, 字符串使用 char 数量 + 每个 char 1~3 字节
+ * 编码使用每个线程复用的缓存区, 只有最终结果会分配新的 byte[]
+ */
+public final class BinaryCacheCodec implements CacheCodec {
+
+    // 默认编解码
+    public static final BinaryCacheCodec INSTANCE = new BinaryCacheCodec();
+
+    // 数据开头标识
+    private static final byte MAGIC_0 = (byte) 0xDC;
+    private static final byte MAGIC_1 = (byte) 0xC1;
+    // 最大嵌套层级
+    private static final int MAX_DEPTH = 64;
+    // 缓存区初始大小
+    private static final int INITIAL_BUFFER_SIZE = 256;
+    // 线程最多保留的缓存区大小
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    // == 数据类型 ==
+    private static final int TAG_NULL = 0;
+    private static final int TAG_TRUE = 1;
+    private static final int TAG_FALSE = 2;
+    private static final int TAG_BYTE = 3;
+    private static final int TAG_SHORT = 4;
+    private static final int TAG_CHAR = 5;
+    private static final int TAG_INT = 6;
+    private static final int TAG_LONG = 7;
+    private static final int TAG_FLOAT = 8;
+    private static final int TAG_DOUBLE = 9;
+    private static final int TAG_STRING = 10;
+    private static final int TAG_BYTES = 11;
+    private static final int TAG_ARRAY_LIST = 12;
+    private static final int TAG_LINKED_LIST = 13;
+    private static final int TAG_HASH_SET = 14;
+    private static final int TAG_LINKED_HASH_SET = 15;
+    private static final int TAG_HASH_MAP = 16;
+    private static final int TAG_LINKED_HASH_MAP = 17;
+
+    // 每个线程复用的编码缓存区
+    private static final ThreadLocal<Output> OUTPUT = new ThreadLocal<Output>() {
+        @Override
+        protected Output initialValue() {
+            return new Output();
+        }
+    };
+
+    private BinaryCacheCodec() {
+    }
+
+    @Override
+    public byte[] encode(Object value) throws Exception {
+        Output output = OUTPUT.get();
+        output.position = 0;
+        try {
+            output.writeByte(MAGIC_0);
+            output.writeByte(MAGIC_1);
+            if (!write(output, value, 0)) {
+                return null;
+            }
+            return Arrays.copyOf(output.buffer, output.position);
+        } finally {
+            if (output.buffer.length > MAX_RETAINED_BUFFER_SIZE) {
+                output.buffer = new byte[INITIAL_BUFFER_SIZE];
+            }
+        }
+    }
+
+    @Override
+    public boolean canDecode(byte[] data) {
+        return data != null && data.length > 2 && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+
+    @Override
+    public Object decode(byte[] data) throws Exception {
+        if (!canDecode(data)) {
+            throw new IOException("not binary cache data");
+        }
+        Input input = new Input(data, 2);
+        Object value = read(input, 0);
+        if (input.position != data.length) {
+            throw new IOException("trailing data");
+        }
+        return value;
+    }
+
+    // =
+
+    /**
+     * 写入数据
+     * @param output
+     * @param value
+     * @param depth 嵌套层级
+     * @return true: 写入成功, false: 不支持该数据
+     */
+    private static boolean write(Output output, Object value, int depth) {
+        if (depth > MAX_DEPTH) {
+            return false;
+        }
+        if (value == null) {
+            output.writeByte(TAG_NULL);
+            return true;
+        }
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            output.writeByte(TAG_STRING);
+            output.writeString((String) value);
+        } else if (type == Integer.class) {
+            output.writeByte(TAG_INT);
+            output.writeVarLong(zigZag((Integer) value));
+        } else if (type == Long.class) {
+            output.writeByte(TAG_LONG);
+            output.writeVarLong(zigZag((Long) value));
+        } else if (type == Boolean.class) {
+            output.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (type == Double.class) {
+            output.writeByte(TAG_DOUBLE);
+            output.writeLong(Double.doubleToLongBits((Double) value));
+        } else if (type == Float.class) {
+            output.writeByte(TAG_FLOAT);
+            output.writeInt(Float.floatToIntBits((Float) value));
+        } else if (type == Short.class) {
+            output.writeByte(TAG_SHORT);
+            output.writeVarLong(zigZag((Short) value));
+        } else if (type == Byte.class) {
+            output.writeByte(TAG_BYTE);
+            output.writeByte((Byte) value);
+        } else if (type == Character.class) {
+            output.writeByte(TAG_CHAR);
+            output.writeVarLong((Character) value);
+        } else if (type == byte[].class) {
+            byte[] bytes = (byte[]) value;
+            output.writeByte(TAG_BYTES);
+            output.writeVarLong(bytes.length);
+            output.writeBytes(bytes);
+        } else if (type == ArrayList.class) {
+            return writeCollection(output, TAG_ARRAY_LIST, (Collection<?>) value, depth);
+        } else if (type == LinkedList.class) {
+            return writeCollection(output, TAG_LINKED_LIST, (Collection<?>) value, depth);
+        } else if (type == HashSet.class) {
+            return writeCollection(output, TAG_HASH_SET, (Collection<?>) value, depth);
+        } else if (type == LinkedHashSet.class) {
+            return writeCollection(output, TAG_LINKED_HASH_SET, (Collection<?>) value, depth);
+        } else if (type == HashMap.class) {
+            return writeMap(output, TAG_HASH_MAP, (Map<?, ?>) value, depth);
+        } else if (type == LinkedHashMap.class) {
+            return writeMap(output, TAG_LINKED_HASH_MAP, (Map<?, ?>) value, depth);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 写入集合
+     * @param output
+     * @param tag 数据类型
+     * @param collection
+     * @param depth 嵌套层级
+     * @return true: 写入成功, false: 不支持该数据
+     */
+    private static boolean writeCollection(Output output, int tag, Collection<?> collection, int depth) {
+        output.writeByte(tag);
+        output.writeVarLong(collection.size());
+        for (Object item : collection) {
+            if (!write(output, item, depth + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 写入 Map
+     * @param output
+     * @param tag 数据类型
+     * @param map
+     * @param depth 嵌套层级
+     * @return true: 写入成功, false: 不支持该数据
+     */
+    private static boolean writeMap(Output output, int tag, Map<?, ?> map, int depth) {
+        output.writeByte(tag);
+        output.writeVarLong(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!write(output, entry.getKey(), depth + 1) || !write(output, entry.getValue(), depth + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取数据
+     * @param input
+     * @param depth 嵌套层级
+     * @return 读取的数据
+     * @throws IOException
+     */
+    private static Object read(Input input, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("nesting too deep");
+        }
+        int tag = input.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_BYTE:
+                return (byte) input.readByte();
+            case TAG_SHORT:
+                return (short) unZigZag(input.readVarLong());
+            case TAG_CHAR:
+                return (char) input.readVarLong();
+            case TAG_INT:
+                return (int) unZigZag(input.readVarLong());
+            case TAG_LONG:
+                return unZigZag(input.readVarLong());
+            case TAG_FLOAT:
+                return Float.intBitsToFloat(input.readInt());
+            case TAG_DOUBLE:
+                return Double.longBitsToDouble(input.readLong());
+            case TAG_STRING:
+                return input.readString();
+            case TAG_BYTES:
+                return input.readBytes(input.readLength());
+            case TAG_ARRAY_LIST: {
+                int size = input.readLength();
+                return readCollection(input, new ArrayList<Object>(size), size, depth);
+            }
+            case TAG_LINKED_LIST:
+                return readCollection(input, new LinkedList<Object>(), input.readLength(), depth);
+            case TAG_HASH_SET: {
+                int size = input.readLength();
+                return readCollection(input, new HashSet<Object>(capacity(size)), size, depth);
+            }
+            case TAG_LINKED_HASH_SET: {
+                int size = input.readLength();
+                return readCollection(input, new LinkedHashSet<Object>(capacity(size)), size, depth);
+            }
+            case TAG_HASH_MAP: {
+                int size = input.readLength();
+                return readMap(input, new HashMap<Object, Object>(capacity(size)), size, depth);
+            }
+            case TAG_LINKED_HASH_MAP: {
+                int size = input.readLength();
+                return readMap(input, new LinkedHashMap<Object, Object>(capacity(size)), size, depth);
+            }
+            default:
+                throw new IOException("unknown tag " + tag);
+        }
+    }
+
+    /**
+     * 读取集合
+     * @param input
+     * @param collection 读取后保存的集合
+     * @param size 数量
+     * @param depth 嵌套层级
+     * @return 读取后保存的集合
+     * @throws IOException
+     */
+    private static Collection<Object> readCollection(Input input, Collection<Object> collection, int size, int depth) throws IOException {
+        for (int i = 0; i < size; i++) {
+            collection.add(read(input, depth + 1));
+        }
+        return collection;
+    }
+
+    /**
+     * 读取 Map
+     * @param input
+     * @param map 读取后保存的 Map
+     * @param size 数量
+     * @param depth 嵌套层级
+     * @return 读取后保存的 Map
+     * @throws IOException
+     */
+    private static Map<Object, Object> readMap(Input input, Map<Object, Object> map, int size, int depth) throws IOException {
+        for (int i = 0; i < size; i++) {
+            Object key = read(input, depth + 1);
+            map.put(key, read(input, depth + 1));
+        }
+        return map;
+    }
+
+    /**
+     * 获取 HashMap 初始容量 (避免扩容)
+     * @param size 数量
+     * @return 初始容量
+     */
+    private static int capacity(int size) {
+        return size < 3 ? size + 1 : (int) (size / 0.75f + 1.0f);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * detail: 编码缓存区 (自动扩容)
+     */
+    private static final class Output {
+
+        byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+        int position;
+
+        private void ensure(int count) {
+            if (position + count > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + count));
+            }
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            buffer[position++] = (byte) (value >>> 24);
+            buffer[position++] = (byte) (value >>> 16);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeString(String value) {
+            int length = value.length();
+            writeVarLong(length);
+            ensure(length * 3);
+            byte[] buffer = this.buffer;
+            int position = this.position;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else {
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            this.position = position;
+        }
+    }
+
+    /**
+     * detail: 解码读取
+     */
+    private static final class Input {
+
+        final byte[] data;
+        int position;
+
+        Input(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        private void require(int count) throws IOException {
+            if (count < 0 || count > data.length - position) {
+                throw new IOException("unexpected end of data");
+            }
+        }
+
+        int readByte() throws IOException {
+            require(1);
+            return data[position++];
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("malformed varint");
+        }
+
+        /**
+         * 读取长度 (每个数据至少占用 1 字节, 超过剩余字节数则为错误数据)
+         * @return 长度
+         * @throws IOException
+         */
+        int readLength() throws IOException {
+            long length = readVarLong();
+            if (length < 0 || length > data.length - position) {
+                throw new IOException("illegal length " + length);
+            }
+            return (int) length;
+        }
+
+        int readInt() throws IOException {
+            require(4);
+            int value = ((data[position] & 0xFF) << 24) | ((data[position + 1] & 0xFF) << 16)
+                    | ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+            position += 4;
+            return value;
+        }
+
+        long readLong() throws IOException {
+            return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+        }
+
+        byte[] readBytes(int length) throws IOException {
+            require(length);
+            byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        String readString() throws IOException {
+            int length = readLength();
+            char[] chars = new char[length];
+            byte[] data = this.data;
+            int position = this.position;
+            int limit = data.length;
+            for (int i = 0; i < length; i++) {
+                if (position >= limit) {
+                    throw new IOException("unexpected end of data");
+                }
+                int b = data[position++] & 0xFF;
+                if (b < 0x80) {
+                    chars[i] = (char) b;
+                } else if ((b & 0xE0) == 0xC0) {
+                    if (position >= limit) {
+                        throw new IOException("unexpected end of data");
+                    }
+                    chars[i] = (char) (((b & 0x1F) << 6) | (data[position++] & 0x3F));
+                } else {
+                    if (position + 1 >= limit) {
+                        throw new IOException("unexpected end of data");
+                    }
+                    chars[i] = (char) (((b & 0x0F) << 12) | ((data[position] & 0x3F) << 6) | (data[position + 1] & 0x3F));
+                    position += 2;
+                }
+            }
+            this.position = position;
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package cn.com.lbt.lbtlibrary.utils.app.cache;
+
+/**
+ * detail: 缓存对象编解码接口
+ * Created by Ttt
+ * ---
+ * hint:
+ * 由 {@link DevCache#setCodec(CacheCodec)} 设置, 用于 {@link DevCache#put(String, java.io.Serializable)}、{@link DevCache#getAsObject(String)}
+ * encode 返回 null、decode 无法识别的数据, 使用 Java 序列化(ObjectOutputStream/ObjectInputStream)处理
+ * 编码后的数据需要有可以识别的开头, 并且不能以 Java 序列化标识 (0xAC 0xED) 开头
+ */
+public interface CacheCodec {
+
+    /**
+     * 编码数据
+     * @param value 保存的数据
+     * @return byte[] 数据, 不支持该数据则返回 null
+     * @throws Exception
+     */
+    byte[] encode(Object value) throws Exception;
+
+    /**
+     * 判断是否可以解码
+     * @param data 缓存数据
+     * @return true: 由该编解码处理, false: 不是该编码的数据
+     */
+    boolean canDecode(byte[] data);
+
+    /**
+     * 解码数据
+     * @param data 缓存数据
+     * @return 读取的数据
+     * @throws Exception
+     */
+    Object decode(byte[] data) throws Exception;
+}
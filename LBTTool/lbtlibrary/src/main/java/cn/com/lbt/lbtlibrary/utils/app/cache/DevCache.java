@@ -7,16 +7,12 @@ import android.graphics.drawable.Drawable;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -24,8 +20,12 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
 
 import cn.com.lbt.lbtlibrary.DevUtils;
 import cn.com.lbt.lbtlibrary.utils.LogPrintUtils;
@@ -56,6 +56,10 @@ public final class DevCache {
 
     // 日志Tag
     private static final String TAG = DevCache.class.getSimpleName();
+    // 字符串编码
+    private static final String CHARSET = "UTF-8";
+    // 判断头部信息读取的文件开头长度 (大于头部长度、旧版本时间信息长度)
+    private static final int PREFIX_READ_SIZE = 64;
     // 缓存文件名
     private static final String DF_FILE_NAME = DevCache.class.getSimpleName();
     // 过期小时(单位秒) = 1小时
@@ -70,6 +74,31 @@ public final class DevCache {
     private static Map<String, DevCache> mInstanceMap = new HashMap<>();
     // 缓存管理类
     private DevCacheManager mCache;
+    // 内存缓存层 (null 表示不开启)
+    private volatile DevMemoryCache mMemoryCache;
+    // 是否写入 CRC32 校验
+    private volatile boolean mChecksum;
+    // 原子写入处理
+    private final DevCacheWriter mWriter = new DevCacheWriter();
+    // 异步写入队列 (null 表示同步写入)
+    private volatile DevCacheWriteBehind mWriteBehind;
+    // Serializable 数据编解码
+    private volatile CacheCodec mCodec = BinaryCacheCodec.INSTANCE;
+
+    /**
+     * detail: 写入持久化模式
+     */
+    public enum SyncMode {
+
+        // 不调用 fsync, 由系统决定写入磁盘时机 (默认)
+        NONE,
+
+        // 每次写入 fsync 后再提交
+        ALWAYS,
+
+        // 并发写入合并批次 fsync
+        GROUP
+    }
     // 缓存地址
     private static File ctxCacheDir = null;
 
@@ -181,7 +210,15 @@ public final class DevCache {
         } else if (!cacheDir.exists() && !cacheDir.mkdirs()) {
             new Exception("can't make dirs in " + cacheDir.getAbsolutePath());
         }
-        mCache = new DevCacheManager(cacheDir, max_size, max_count);
+        mCache = new DevCacheManager(cacheDir, max_size, max_count, mWriter, new DevCacheManager.OnEvictListener() {
+            @Override
+            public void onEvict(File file) {
+                DevMemoryCache memoryCache = mMemoryCache;
+                if (memoryCache != null) {
+                    memoryCache.removeFile(file);
+                }
+            }
+        });
     }
 
     /**
@@ -192,96 +229,468 @@ public final class DevCache {
     class xFileOutputStream extends FileOutputStream {
         File file;
 
-        public xFileOutputStream(File file) throws FileNotFoundException {
-            super(file);
+        String key;
+
+        File temp;
+
+        long seq;
+
+        boolean closed;
+
+        // 是否写入 CRC32
+        boolean checksum;
+
+        // payload CRC32
+        CRC32 crc32;
+
+        // payload 长度
+        long length;
+
+        public xFileOutputStream(String key, File file, File temp, long seq) throws FileNotFoundException {
+            super(temp);
+            this.key = key;
             this.file = file;
+            this.temp = temp;
+            this.seq = seq;
+            this.checksum = mChecksum;
+            this.crc32 = checksum ? new CRC32() : null;
+            // 预留头部空间, close 时回填 (payload 长度写入前未知)
+            try {
+                super.write(new byte[DevCacheHeader.HEADER_SIZE], 0, DevCacheHeader.HEADER_SIZE);
+            } catch (IOException e) {
+                try {
+                    super.close();
+                } catch (IOException ignore) {
+                }
+                temp.delete();
+                throw new FileNotFoundException("write header failed: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            super.write(b);
+            if (crc32 != null) {
+                crc32.update(b);
+            }
+            length++;
+        }
+
+        @Override
+        public void write(byte[] b) throws IOException {
+            write(b, 0, b.length);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            if (crc32 != null) {
+                crc32.update(b, off, len);
+            }
+            length += len;
         }
 
         public void close() throws IOException {
-            super.close();
-            mCache.put(file);
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                // 回填头部 (永久有效), 读取时不会被当作旧版本时间信息前缀解析
+                ByteBuffer header = DevCacheHeader.encode(System.currentTimeMillis(), DevCacheHeader.TTL_FOREVER,
+                        length, crc32 != null ? (int) crc32.getValue() : 0, checksum);
+                FileChannel channel = getChannel();
+                long position = 0;
+                while (header.hasRemaining()) {
+                    position += channel.write(header, position);
+                }
+                mWriter.sync(getFD());
+                super.close();
+                mWriter.commit(file, temp, seq, new Runnable() {
+                    @Override
+                    public void run() {
+                        mCache.put(file);
+                        removeMemory(key);
+                    }
+                });
+            } finally {
+                super.close();
+                temp.delete();
+                mWriter.end(file);
+            }
         }
     }
 
     // =====================================
-    // ========== String数据 读写 ==========
+    // ============= 内存缓存层 =============
     // =====================================
 
     /**
-     * 保存 String 数据到缓存中
+     * 设置内存缓存层大小 (读取命中则不读取文件, 写入同步写入文件)
+     * @param maxSize 内存缓存大小(字节), 小于等于 0 则关闭
+     * @return {@link DevCache} 缓存工具类对象
+     */
+    public DevCache setMemoryCacheSize(long maxSize) {
+        mMemoryCache = maxSize > 0 ? new DevMemoryCache(maxSize) : null;
+        return this;
+    }
+
+    /**
+     * 获取内存缓存层 (可获取命中、未命中、淘汰次数等统计信息)
+     * @return {@link DevMemoryCache}, 未开启则返回 null
+     */
+    public DevMemoryCache getMemoryCache() {
+        return mMemoryCache;
+    }
+
+    /**
+     * 读取内存缓存数据
+     * @param key
+     * @param type 数据类型
+     * @return 未开启或者未命中则返回 null
+     */
+    private Object getMemory(String key, Class<?> type) {
+        DevMemoryCache memoryCache = mMemoryCache;
+        if (memoryCache != null && key != null) {
+            return memoryCache.get(key, type);
+        }
+        return null;
+    }
+
+    /**
+     * 保存内存缓存数据 (写入提交后, 持有该 key 锁调用)
+     * @param key
+     * @param file 缓存文件
+     * @param value String、byte[]
+     * @param dueTime 过期时间 (0 表示永久)
+     */
+    private void putMemory(String key, File file, Object value, long dueTime) {
+        DevMemoryCache memoryCache = mMemoryCache;
+        if (memoryCache != null) {
+            memoryCache.put(key, file, value, dueTime);
+        }
+    }
+
+    /**
+     * 回填读取文件得到的数据 (读取期间有写入、移除、淘汰则不回填)
+     * @param memoryCache 读取文件前获取的内存缓存层
+     * @param modCount 读取文件前的修改次数
+     * @param key
+     * @param file 缓存文件
+     * @param value String、byte[]
+     * @param dueTime 过期时间 (0 表示永久)
+     */
+    private static void loadMemory(DevMemoryCache memoryCache, long modCount, String key, File file, Object value, long dueTime) {
+        if (memoryCache != null) {
+            memoryCache.putIfUnmodified(key, file, value, dueTime, modCount);
+        }
+    }
+
+    /**
+     * 移除内存缓存数据
+     * @param key
+     */
+    private void removeMemory(String key) {
+        DevMemoryCache memoryCache = mMemoryCache;
+        if (memoryCache != null) {
+            memoryCache.remove(key);
+        }
+    }
+
+    /**
+     * 设置是否写入 CRC32 校验 (读取时校验失败则视为不存在)
+     * @param checksum
+     * @return {@link DevCache} 缓存工具类对象
+     */
+    public DevCache setChecksum(boolean checksum) {
+        mChecksum = checksum;
+        return this;
+    }
+
+    /**
+     * 设置写入持久化模式
+     * @param syncMode {@link SyncMode}
+     * @return {@link DevCache} 缓存工具类对象
+     */
+    public DevCache setSyncMode(SyncMode syncMode) {
+        mWriter.setSyncMode(syncMode);
+        return this;
+    }
+
+    /**
+     * 设置 Serializable 数据编解码
+     * <pre>
+     *     默认使用 {@link BinaryCacheCodec}, 不支持的数据使用 Java 序列化
+     *     修改后仍可以读取之前由 {@link BinaryCacheCodec}、Java 序列化保存的数据
+     * </pre>
+     * @param codec {@link CacheCodec}, null 则恢复默认
+     * @return {@link DevCache} 缓存工具类对象
+     */
+    public DevCache setCodec(CacheCodec codec) {
+        mCodec = codec != null ? codec : BinaryCacheCodec.INSTANCE;
+        return this;
+    }
+
+    /**
+     * 设置异步写入(write-behind)模式
+     * <pre>
+     *     开启后 put 只加入写入队列, 由单个 IO 线程批量写入, 同一个 key 未写入前多次 put 合并为一次写入
+     *     队列已满时 put 阻塞等待, 读取可以读取到未写入完成的数据
+     *     写入完成前不要修改、回收已 put 的对象
+     * </pre>
+     * @param capacity 最多等待写入的 key 数量, 小于等于 0 则关闭 (等待已有数据写入完成)
+     * @return {@link DevCache} 缓存工具类对象
+     */
+    public synchronized DevCache setWriteBehind(int capacity) {
+        DevCacheWriteBehind writeBehind = mWriteBehind;
+        // 旧队列写入完成后再切换, 切换前读取依然可以读取到旧队列中的数据, 旧队列的数据也不会覆盖之后的写入
+        if (writeBehind != null) {
+            writeBehind.shutdown();
+        }
+        if (capacity > 0) {
+            mWriteBehind = new DevCacheWriteBehind(new DevCacheWriteBehind.Writer() {
+                @Override
+                public boolean write(String key, Object value, int saveTime, long createdAt) {
+                    return writeValue(key, value, saveTime, createdAt);
+                }
+            }, capacity);
+        } else {
+            mWriteBehind = null;
+        }
+        return this;
+    }
+
+    /**
+     * 等待异步写入队列中的数据全部写入完成
+     */
+    public void flush() {
+        DevCacheWriteBehind writeBehind = mWriteBehind;
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+    }
+
+    /**
+     * 保存数据到缓存中, 并返回写入结果
      * @param key 保存的key
-     * @param value 保存的String数据
+     * @param value String、byte[]、Serializable、Bitmap
+     * @param saveTime 保存的时间，单位：秒 (-1 表示永久)
+     * @return {@link Future} 写入结果 (未开启异步写入则为已完成状态)
      */
-    public void put(String key, String value) {
-        File file = mCache.newFile(key);
-        if (file == null || value == null) {
-            return;
+    public Future<Boolean> putAsync(String key, Object value, int saveTime) {
+        if (value instanceof byte[]) {
+            value = ((byte[]) value).clone();
+        }
+        return putValue(key, value, saveTime);
+    }
+
+    /**
+     * 写入缓存文件 (头部 + payload), 并同步到内存缓存层
+     * @param key 保存的key
+     * @param memoryValue 内存缓存层数据
+     * @param payload 保存的数据
+     * @param saveTime 保存的时间，单位：秒 (-1 表示永久)
+     * @param createdAt 保存时间(毫秒)
+     * @return true: 写入成功, false: 写入失败(或者已有更新的写入)
+     */
+    private boolean writeEntry(final String key, final Object memoryValue, byte[] payload, int saveTime, long createdAt) {
+        final File file = mCache.newFile(key, true);
+        if (file == null) {
+            return false;
         }
-        BufferedWriter out = null;
+        long ttl = saveTime != -1 ? saveTime * 1000l : DevCacheHeader.TTL_FOREVER;
+        final long dueTime = saveTime != -1 ? createdAt + ttl : 0l;
+        // 写入临时文件, 完成后 rename 提交
+        long seq = mWriter.begin(file);
+        File temp = DevCacheWriter.tempFile(file, seq);
+        FileOutputStream out = null;
         try {
-            out = new BufferedWriter(new FileWriter(file), 1024);
-            out.write(value);
+            out = new FileOutputStream(temp);
+            // 头部与 payload 一次写入
+            ByteBuffer[] buffers = new ByteBuffer[]{DevCacheHeader.encode(createdAt, ttl, payload, mChecksum), ByteBuffer.wrap(payload)};
+            FileChannel channel = out.getChannel();
+            // payload 为空时也需要写入头部
+            while (buffers[0].hasRemaining() || buffers[1].hasRemaining()) {
+                channel.write(buffers);
+            }
+            mWriter.sync(out.getFD());
+            out.close();
+            out = null;
+            return mWriter.commit(file, temp, seq, new Runnable() {
+                @Override
+                public void run() {
+                    putMemory(key, file, memoryValue, dueTime);
+                    mCache.put(file, dueTime);
+                }
+            });
         } catch (Exception e) {
-            LogPrintUtils.eTag(TAG, e, "put");
+            LogPrintUtils.eTag(TAG, e, "writeEntry");
+            return false;
         } finally {
             if (out != null) {
                 try {
-                    out.flush();
                     out.close();
                 } catch (IOException e) {
                 }
             }
-            mCache.put(file);
+            temp.delete();
+            mWriter.end(file);
         }
     }
 
     /**
-     * 保存 String 数据到缓存中
+     * 保存数据 (开启异步写入则加入写入队列)
      * @param key 保存的key
-     * @param value 保存的String数据
-     * @param saveTime 保存的时间，单位：秒
+     * @param value String、byte[]、Serializable、Bitmap
+     * @param saveTime 保存的时间，单位：秒 (-1 表示永久)
+     * @return {@link Future} 写入结果
      */
-    public void put(String key, String value, int saveTime) {
-        if (key != null && value != null) {
-            put(key, DevCacheUtils.newStringWithDateInfo(saveTime, value));
+    private Future<Boolean> putValue(String key, Object value, int saveTime) {
+        if (key == null || value == null) {
+            return new DevCacheWriteBehind.WriteFuture(false);
+        }
+        DevCacheWriteBehind writeBehind = mWriteBehind;
+        if (writeBehind != null) {
+            return writeBehind.submit(key, value, saveTime);
         }
+        return new DevCacheWriteBehind.WriteFuture(writeValue(key, value, saveTime, System.currentTimeMillis()));
     }
 
     /**
-     * 读取 String 数据
+     * 转换数据并写入缓存文件
+     * @param key 保存的key
+     * @param value String、byte[]、Serializable、Bitmap
+     * @param saveTime 保存的时间，单位：秒 (-1 表示永久)
+     * @param createdAt 保存时间(毫秒)
+     * @return true: 写入成功, false: 写入失败
+     */
+    private boolean writeValue(String key, Object value, int saveTime, long createdAt) {
+        byte[] payload = encodeValue(value);
+        if (payload == null) {
+            return false;
+        }
+        return writeEntry(key, value instanceof String ? value : payload, payload, saveTime, createdAt);
+    }
+
+    /**
+     * 转换保存的数据
+     * @param value String、byte[]、Serializable、Bitmap
+     * @return byte[] 数据
+     */
+    private byte[] encodeValue(Object value) {
+        try {
+            if (value instanceof byte[]) {
+                return (byte[]) value;
+            } else if (value instanceof String) {
+                return ((String) value).getBytes(CHARSET);
+            } else if (value instanceof Bitmap) {
+                return DevCacheUtils.bitmap2Bytes((Bitmap) value);
+            } else if (value instanceof Serializable) {
+                byte[] data = mCodec.encode(value);
+                return data != null ? data : serialize((Serializable) value);
+            }
+        } catch (Exception e) {
+            LogPrintUtils.eTag(TAG, e, "encodeValue");
+        }
+        return null;
+    }
+
+    /**
+     * 获取异步写入队列中未写入完成的数据
      * @param key
-     * @return String 数据
+     * @return {@link DevCacheWriteBehind.Task}, 未开启或者不存在则返回 null
      */
-    public String getAsString(String key) {
-        File file = mCache.get(key);
-        if (file == null) {
+    private DevCacheWriteBehind.Task peekPending(String key) {
+        DevCacheWriteBehind writeBehind = mWriteBehind;
+        if (writeBehind != null && key != null) {
+            return writeBehind.peek(key);
+        }
+        return null;
+    }
+
+    /**
+     * 获取异步写入队列中未写入完成的 payload
+     * @param task
+     * @return byte[] 数据 (可修改), 已过期则返回 null
+     */
+    private byte[] pendingPayload(DevCacheWriteBehind.Task task) {
+        if (task.isDue()) {
             return null;
         }
-        if (!file.exists())
+        byte[] payload = encodeValue(task.value);
+        return task.value instanceof byte[] && payload != null ? payload.clone() : payload;
+    }
+
+    /**
+     * 读取缓存文件 payload, 并同步到内存缓存层 (已过期则删除)
+     * @param key 保存的key
+     * @param asString 是否转换为 String
+     * @return String、byte[] 数据
+     */
+    private Object readEntry(String key, boolean asString) {
+        // 读取文件前获取修改次数, 回填时判断期间是否有修改
+        DevMemoryCache memoryCache = mMemoryCache;
+        long modCount = memoryCache != null ? memoryCache.modCount() : 0l;
+        File file = mCache.get(key);
+        if (file == null || !file.exists()) {
             return null;
+        }
+        RandomAccessFile RAFile = null;
         boolean removeFile = false;
-        BufferedReader in = null;
         try {
-            in = new BufferedReader(new FileReader(file));
-            String readString = "";
-            String currentLine;
-            while ((currentLine = in.readLine()) != null) {
-                readString += currentLine;
-            }
-            if (!DevCacheUtils.isDue(readString)) {
-                return DevCacheUtils.clearDateInfo(readString);
+            RAFile = new RandomAccessFile(file, "r");
+            byte[] value;
+            long dueTime;
+            DevCacheHeader header = DevCacheHeader.read(RAFile);
+            if (header != null) {
+                // 只需读取头部即可判断是否过期
+                if (header.isDue()) {
+                    LogPrintUtils.dTag(TAG, "readEntry key: " + key + " -> 文件已过期");
+                    removeFile = true;
+                    return null;
+                }
+                if (header.length > Integer.MAX_VALUE) {
+                    LogPrintUtils.dTag(TAG, "readEntry key: " + key + " -> 数据过大, 请使用 getAsStream");
+                    return null;
+                }
+                value = new byte[(int) header.length];
+                RAFile.readFully(value);
+                if (!header.checkCrc(value)) {
+                    LogPrintUtils.dTag(TAG, "readEntry key: " + key + " -> 校验失败");
+                    removeFile = true;
+                    return null;
+                }
+                dueTime = header.getDueTime();
             } else {
-                LogPrintUtils.dTag(TAG, "getAsString key: " + key + " -> 文件已过期");
-                removeFile = true;
-                return null;
+                // 旧版本数据 (字符串时间信息前缀)
+                if (RAFile.length() > Integer.MAX_VALUE) {
+                    LogPrintUtils.dTag(TAG, "readEntry key: " + key + " -> 数据过大, 请使用 getAsStream");
+                    return null;
+                }
+                byte[] byteArray = new byte[(int) RAFile.length()];
+                RAFile.readFully(byteArray);
+                if (DevCacheUtils.isDue(byteArray)) {
+                    LogPrintUtils.dTag(TAG, "readEntry key: " + key + " -> 文件已过期");
+                    removeFile = true;
+                    return null;
+                }
+                value = DevCacheUtils.clearDateInfo(byteArray);
+                dueTime = DevCacheUtils.getDueTime(byteArray);
             }
+            if (asString) {
+                String result = header != null ? new String(value, CHARSET) : new String(value);
+                loadMemory(memoryCache, modCount, key, file, result, dueTime);
+                return result;
+            }
+            loadMemory(memoryCache, modCount, key, file, value.clone(), dueTime);
+            return value;
         } catch (Exception e) {
-            LogPrintUtils.eTag(TAG, e, "getAsString");
+            LogPrintUtils.eTag(TAG, e, "readEntry");
             return null;
         } finally {
-            if (in != null) {
+            if (RAFile != null) {
                 try {
-                    in.close();
+                    RAFile.close();
                 } catch (IOException e) {
                 }
             }
@@ -290,6 +699,68 @@ public final class DevCache {
         }
     }
 
+    // =====================================
+    // ========== String数据 读写 ==========
+    // =====================================
+
+    /**
+     * 保存 String 数据到缓存中
+     * @param key 保存的key
+     * @param value 保存的String数据
+     */
+    public void put(String key, String value) {
+        putString(key, value, -1);
+    }
+
+    /**
+     * 保存 String 数据到缓存文件, 并同步到内存缓存层
+     * @param key 保存的key
+     * @param value 保存的String数据
+     * @param saveTime 保存的时间，单位：秒 (-1 表示永久)
+     */
+    private void putString(String key, String value, int saveTime) {
+        putValue(key, value, saveTime);
+    }
+
+    /**
+     * 保存 String 数据到缓存中
+     * @param key 保存的key
+     * @param value 保存的String数据
+     * @param saveTime 保存的时间，单位：秒
+     */
+    public void put(String key, String value, int saveTime) {
+        if (key != null && value != null) {
+            putString(key, value, saveTime);
+        }
+    }
+
+    /**
+     * 读取 String 数据
+     * @param key
+     * @return String 数据
+     */
+    public String getAsString(String key) {
+        DevCacheWriteBehind.Task task = peekPending(key);
+        if (task != null) {
+            if (task.value instanceof String) {
+                return task.isDue() ? null : (String) task.value;
+            }
+            byte[] payload = pendingPayload(task);
+            try {
+                return payload != null ? new String(payload, CHARSET) : null;
+            } catch (Exception e) {
+                LogPrintUtils.eTag(TAG, e, "getAsString");
+                return null;
+            }
+        }
+        Object memory = getMemory(key, String.class);
+        if (memory != null) {
+            mCache.get(key);
+            return (String) memory;
+        }
+        return (String) readEntry(key, true);
+    }
+
     // =====================================
     // ======= JSONObject 数据 读写 ========
     // =====================================
@@ -406,25 +877,18 @@ public final class DevCache {
      * @param value 保存的数据
      */
     public void put(String key, byte[] value) {
-        if (key == null || value == null) {
-            return;
-        }
-        File file = mCache.newFile(key);
-        FileOutputStream out = null;
-        try {
-            out = new FileOutputStream(file);
-            out.write(value);
-        } catch (Exception e) {
-            LogPrintUtils.eTag(TAG, e, "put byte[]");
-        } finally {
-            if (out != null) {
-                try {
-                    out.flush();
-                    out.close();
-                } catch (IOException e) {
-                }
-            }
-            mCache.put(file);
+        putBytes(key, value, -1);
+    }
+
+    /**
+     * 保存 byte 数据到缓存文件, 并同步到内存缓存层
+     * @param key 保存的key
+     * @param value 保存的数据
+     * @param saveTime 保存的时间，单位：秒 (-1 表示永久)
+     */
+    private void putBytes(String key, byte[] value, int saveTime) {
+        if (value != null) {
+            putValue(key, value.clone(), saveTime);
         }
     }
 
@@ -435,9 +899,15 @@ public final class DevCache {
      * @throws FileNotFoundException if the file can not be created.
      */
     public OutputStream put(String key) throws FileNotFoundException {
-        File file = mCache.newFile(key);
+        File file = mCache.newFile(key, true);
         if (file != null) {
-            return new xFileOutputStream(file);
+            long seq = mWriter.begin(file);
+            try {
+                return new xFileOutputStream(key, file, DevCacheWriter.tempFile(file, seq), seq);
+            } catch (FileNotFoundException e) {
+                mWriter.end(file);
+                throw e;
+            }
         }
         return null;
     }
@@ -448,47 +918,83 @@ public final class DevCache {
      * @throws FileNotFoundException if the file can not be opened
      */
     public InputStream get(String key) throws FileNotFoundException {
-        File file = mCache.get(key);
-        if (file != null && file.exists()) {
-            return new FileInputStream(file);
-        }
-        return null;
+        return getAsStream(key);
     }
 
     /**
-     * 保存 byte 数据到缓存中
-     * @param key 保存的key
-     * @param value 保存的数据
-     * @param saveTime 保存的时间，单位：秒
+     * 获取 payload 读取流 (跳过头部信息, 不需要把数据全部读取到内存, 适用于大文件)
+     * @param key
+     * @return {@link InputStream}, 不存在或者已过期则返回 null
+     * @throws FileNotFoundException
      */
-    public void put(String key, byte[] value, int saveTime) {
-        put(key, DevCacheUtils.newByteArrayWithDateInfo(saveTime, value));
+    public InputStream getAsStream(String key) throws FileNotFoundException {
+        DevCacheWriteBehind.Task task = peekPending(key);
+        if (task != null) {
+            byte[] payload = pendingPayload(task);
+            return payload != null ? new ByteArrayInputStream(payload) : null;
+        }
+        File file = mCache.get(key);
+        if (file == null || !file.exists()) {
+            return null;
+        }
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            long offset = getPayloadOffset(channel);
+            if (offset == -1) {
+                in.close();
+                LogPrintUtils.dTag(TAG, "getAsStream key: " + key + " -> 文件已过期");
+                remove(key);
+                return null;
+            }
+            channel.position(offset);
+        } catch (IOException e) {
+            LogPrintUtils.eTag(TAG, e, "getAsStream");
+            // 无法定位到 payload, 不返回从头部开始的流
+            try {
+                in.close();
+            } catch (IOException ignore) {
+            }
+            return null;
+        }
+        return in;
     }
 
     /**
-     * 获取 byte[] 数据
+     * 获取 payload 内存映射 (只读, 数据不复制到 Java 堆中, 适用于大文件)
      * @param key
-     * @return byte[] 数据
+     * @return {@link ByteBuffer}, 不存在、已过期或者超过 2GB (使用 getAsStream) 则返回 null
      */
-    public byte[] getAsBinary(String key) {
+    public ByteBuffer getAsByteBuffer(String key) {
+        DevCacheWriteBehind.Task task = peekPending(key);
+        if (task != null) {
+            byte[] payload = pendingPayload(task);
+            return payload != null ? ByteBuffer.wrap(payload).asReadOnlyBuffer() : null;
+        }
+        File file = mCache.get(key);
+        if (file == null || !file.exists()) {
+            return null;
+        }
         RandomAccessFile RAFile = null;
         boolean removeFile = false;
         try {
-            File file = mCache.get(key);
-            if (!file.exists())
-                return null;
             RAFile = new RandomAccessFile(file, "r");
-            byte[] byteArray = new byte[(int) RAFile.length()];
-            RAFile.read(byteArray);
-            if (!DevCacheUtils.isDue(byteArray)) {
-                return DevCacheUtils.clearDateInfo(byteArray);
-            } else {
-                LogPrintUtils.dTag(TAG, "getAsBinary - key: " + key + " -> 文件已过期");
+            FileChannel channel = RAFile.getChannel();
+            long offset = getPayloadOffset(channel);
+            if (offset == -1) {
+                LogPrintUtils.dTag(TAG, "getAsByteBuffer key: " + key + " -> 文件已过期");
                 removeFile = true;
                 return null;
             }
+            long length = channel.size() - offset;
+            if (length > Integer.MAX_VALUE) {
+                LogPrintUtils.dTag(TAG, "getAsByteBuffer key: " + key + " -> 数据过大, 请使用 getAsStream");
+                return null;
+            }
+            // 关闭文件后映射依然有效
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
         } catch (Exception e) {
-            LogPrintUtils.eTag(TAG, e, "getAsBinary");
+            LogPrintUtils.eTag(TAG, e, "getAsByteBuffer");
             return null;
         } finally {
             if (RAFile != null) {
@@ -502,6 +1008,55 @@ public final class DevCache {
         }
     }
 
+    /**
+     * 获取 payload 起始位置 (只读取文件开头部分判断是否过期)
+     * @param channel
+     * @return payload 起始位置, 已过期则返回 -1
+     * @throws IOException
+     */
+    private static long getPayloadOffset(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(PREFIX_READ_SIZE);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) != -1) {
+        }
+        buffer.flip();
+        DevCacheHeader header = DevCacheHeader.parse(buffer);
+        if (header != null && header.length == channel.size() - DevCacheHeader.HEADER_SIZE) {
+            return header.isDue() ? -1 : DevCacheHeader.HEADER_SIZE;
+        }
+        // 旧版本数据 (字符串时间信息前缀)
+        byte[] prefix = new byte[buffer.limit()];
+        buffer.get(prefix);
+        return DevCacheUtils.isDue(prefix) ? -1 : DevCacheUtils.getDateInfoLength(prefix);
+    }
+
+    /**
+     * 保存 byte 数据到缓存中
+     * @param key 保存的key
+     * @param value 保存的数据
+     * @param saveTime 保存的时间，单位：秒
+     */
+    public void put(String key, byte[] value, int saveTime) {
+        putBytes(key, value, saveTime);
+    }
+
+    /**
+     * 获取 byte[] 数据
+     * @param key
+     * @return byte[] 数据
+     */
+    public byte[] getAsBinary(String key) {
+        DevCacheWriteBehind.Task task = peekPending(key);
+        if (task != null) {
+            return pendingPayload(task);
+        }
+        Object memory = getMemory(key, byte[].class);
+        if (memory != null) {
+            mCache.get(key);
+            return ((byte[]) memory).clone();
+        }
+        return (byte[]) readEntry(key, false);
+    }
+
     // =====================================
     // ========== 序列化 数据 读写 =========
     // =====================================
@@ -522,20 +1077,24 @@ public final class DevCache {
      * @param saveTime 保存的时间，单位：秒
      */
     public void put(String key, Serializable value, int saveTime) {
+        putValue(key, value, saveTime);
+    }
+
+    /**
+     * Serializable → byte[]
+     * @param value
+     * @return byte[] 数据
+     * @throws IOException
+     */
+    private static byte[] serialize(Serializable value) throws IOException {
         ByteArrayOutputStream baos = null;
         ObjectOutputStream oos = null;
         try {
             baos = new ByteArrayOutputStream();
             oos = new ObjectOutputStream(baos);
             oos.writeObject(value);
-            byte[] data = baos.toByteArray();
-            if (saveTime != -1) {
-                put(key, data, saveTime);
-            } else {
-                put(key, data);
-            }
-        } catch (Exception e) {
-            LogPrintUtils.eTag(TAG, e, "put");
+            oos.flush();
+            return baos.toByteArray();
         } finally {
             if (baos != null) {
                 try {
@@ -560,32 +1119,48 @@ public final class DevCache {
     public Object getAsObject(String key) {
         byte[] data = getAsBinary(key);
         if (data != null) {
-            ByteArrayInputStream bais = null;
-            ObjectInputStream ois = null;
             try {
-                bais = new ByteArrayInputStream(data);
-                ois = new ObjectInputStream(bais);
-                Object reObject = ois.readObject();
-                return reObject;
+                return deserialize(data);
             } catch (Exception e) {
                 LogPrintUtils.eTag(TAG, e, "getAsObject");
-                return null;
-            } finally {
-                if (bais != null) {
-                    try {
-                        bais.close();
-                    } catch (IOException e) {
-                    }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * byte[] → Object (依次尝试当前编解码、{@link BinaryCacheCodec}、Java 序列化)
+     * @param data
+     * @return 读取的数据
+     * @throws Exception
+     */
+    private Object deserialize(byte[] data) throws Exception {
+        CacheCodec codec = mCodec;
+        if (codec.canDecode(data)) {
+            return codec.decode(data);
+        } else if (codec != BinaryCacheCodec.INSTANCE && BinaryCacheCodec.INSTANCE.canDecode(data)) {
+            return BinaryCacheCodec.INSTANCE.decode(data);
+        }
+        ByteArrayInputStream bais = null;
+        ObjectInputStream ois = null;
+        try {
+            bais = new ByteArrayInputStream(data);
+            ois = new ObjectInputStream(bais);
+            return ois.readObject();
+        } finally {
+            if (bais != null) {
+                try {
+                    bais.close();
+                } catch (IOException e) {
                 }
-                if (ois != null) {
-                    try {
-                        ois.close();
-                    } catch (IOException e) {
-                    }
+            }
+            if (ois != null) {
+                try {
+                    ois.close();
+                } catch (IOException e) {
                 }
             }
         }
-        return null;
     }
 
     // =====================================
@@ -598,7 +1173,7 @@ public final class DevCache {
      * @param value 保存的bitmap数据
      */
     public void put(String key, Bitmap value) {
-        put(key, DevCacheUtils.bitmap2Bytes(value));
+        putValue(key, value, -1);
     }
 
     /**
@@ -608,7 +1183,7 @@ public final class DevCache {
      * @param saveTime 保存的时间，单位：秒
      */
     public void put(String key, Bitmap value, int saveTime) {
-        put(key, DevCacheUtils.bitmap2Bytes(value), saveTime);
+        putValue(key, value, saveTime);
     }
 
     /**
@@ -666,7 +1241,7 @@ public final class DevCache {
      * @return value 缓存的文件
      */
     public File file(String key) {
-        File f = mCache.newFile(key);
+        File f = mCache.newFile(key, false);
         if (f != null && f.exists()) {
             return f;
         }
@@ -679,11 +1254,26 @@ public final class DevCache {
      * @return 是否移除成功
      */
     public boolean remove(String key) {
-        return mCache.remove(key);
+        DevCacheWriteBehind writeBehind = mWriteBehind;
+        if (writeBehind != null && key != null) {
+            writeBehind.cancel(key);
+        }
+        // 删除文件后再移除内存缓存数据, 期间读取文件的回填会被丢弃
+        boolean result = mCache.remove(key);
+        removeMemory(key);
+        return result;
     }
 
     /** 清除所有数据 */
     public void clear() {
+        DevCacheWriteBehind writeBehind = mWriteBehind;
+        if (writeBehind != null) {
+            writeBehind.cancelAll();
+        }
+        DevMemoryCache memoryCache = mMemoryCache;
+        if (memoryCache != null) {
+            memoryCache.clear();
+        }
         mCache.clear();
     }
 }
@@ -0,0 +1,162 @@
+package cn.com.lbt.lbtlibrary.utils.app.cache;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * detail: 缓存文件头部信息(二进制, 固定长度)
+ * Created by Ttt
+ * ---
+ * hint:
+ * 0  magic(4) "DEVC"
+ * 4  version(1)
+ * 5  flags(1) - FLAG_CRC: 包含 payload CRC32
+ * 6  reserved(2)
+ * 8  createdAt(8) - 保存时间(毫秒)
+ * 16 ttl(8) - 有效时长(毫秒), TTL_FOREVER 表示永久
+ * 24 length(8) - payload 长度
+ * 32 crc(4) - payload CRC32, 未开启则为 0
+ * 判断是否过期只需读取头部 HEADER_SIZE 个字节, 不存在头部的旧版本文件, 由 {@link DevCacheUtils} 兼容读取
+ */
+final class DevCacheHeader {
+
+    // 头部标识 "DEVC"
+    static final int MAGIC = 0x44455643;
+    // 头部版本
+    static final byte VERSION = 1;
+    // 包含 CRC32 校验
+    static final int FLAG_CRC = 1;
+    // 头部长度
+    static final int HEADER_SIZE = 36;
+    // 永久有效
+    static final long TTL_FOREVER = -1l;
+
+    // 标记
+    final int flags;
+    // 保存时间
+    final long createdAt;
+    // 有效时长
+    final long ttl;
+    // payload 长度
+    final long length;
+    // payload CRC32
+    final int crc;
+
+    private DevCacheHeader(int flags, long createdAt, long ttl, long length, int crc) {
+        this.flags = flags;
+        this.createdAt = createdAt;
+        this.ttl = ttl;
+        this.length = length;
+        this.crc = crc;
+    }
+
+    /**
+     * 生成头部
+     * @param createdAt 保存时间(毫秒)
+     * @param ttl 有效时长(毫秒), TTL_FOREVER 表示永久
+     * @param payload 数据
+     * @param checksum 是否写入 CRC32
+     * @return 头部数据 {@link ByteBuffer} (已 flip, 可直接写入)
+     */
+    static ByteBuffer encode(long createdAt, long ttl, byte[] payload, boolean checksum) {
+        return encode(createdAt, ttl, payload.length, checksum ? crc32(payload) : 0, checksum);
+    }
+
+    /**
+     * 生成头部 (payload 已流式写入, 长度与 CRC32 由调用方统计)
+     * @param createdAt 保存时间(毫秒)
+     * @param ttl 有效时长(毫秒), TTL_FOREVER 表示永久
+     * @param length payload 长度
+     * @param crc payload CRC32
+     * @param checksum 是否写入 CRC32
+     * @return 头部数据 {@link ByteBuffer} (已 flip, 可直接写入)
+     */
+    static ByteBuffer encode(long createdAt, long ttl, long length, int crc, boolean checksum) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.put((byte) (checksum ? FLAG_CRC : 0));
+        buffer.putShort((short) 0);
+        buffer.putLong(createdAt);
+        buffer.putLong(ttl);
+        buffer.putLong(length);
+        buffer.putInt(checksum ? crc : 0);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 解析头部
+     * @param buffer 至少包含 HEADER_SIZE 个字节
+     * @return {@link DevCacheHeader}, 不是头部格式(旧版本数据)则返回 null
+     */
+    static DevCacheHeader parse(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int position = buffer.position();
+        if (buffer.getInt(position) != MAGIC || buffer.get(position + 4) != VERSION) {
+            return null;
+        }
+        return new DevCacheHeader(buffer.get(position + 5), buffer.getLong(position + 8),
+                buffer.getLong(position + 16), buffer.getLong(position + 24), buffer.getInt(position + 32));
+    }
+
+    /**
+     * 读取头部, 读取后文件指针位于 payload 起始位置
+     * @param file 缓存文件
+     * @return {@link DevCacheHeader}, 不是头部格式(旧版本数据)则返回 null, 并且文件指针重置为 0
+     * @throws IOException
+     */
+    static DevCacheHeader read(RandomAccessFile file) throws IOException {
+        long fileLength = file.length();
+        if (fileLength >= HEADER_SIZE) {
+            byte[] bytes = new byte[HEADER_SIZE];
+            file.readFully(bytes);
+            DevCacheHeader header = parse(ByteBuffer.wrap(bytes));
+            if (header != null && header.length == fileLength - HEADER_SIZE) {
+                return header;
+            }
+            file.seek(0);
+        }
+        return null;
+    }
+
+    /**
+     * 获取过期时间
+     * @return 过期时间 (毫秒), 0 表示永久
+     */
+    long getDueTime() {
+        return ttl == TTL_FOREVER ? 0l : createdAt + ttl;
+    }
+
+    /**
+     * 判断是否过期
+     * @return true: 到期了, false: 还没有到期
+     */
+    boolean isDue() {
+        return ttl != TTL_FOREVER && System.currentTimeMillis() > createdAt + ttl;
+    }
+
+    /**
+     * 校验 payload
+     * @param payload
+     * @return 未写入 CRC32 或者校验通过则返回 true
+     */
+    boolean checkCrc(byte[] payload) {
+        return (flags & FLAG_CRC) == 0 || crc == crc32(payload);
+    }
+
+    /**
+     * 计算 CRC32
+     * @param payload
+     * @return CRC32
+     */
+    private static int crc32(byte[] payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload, 0, payload.length);
+        return (int) crc32.getValue();
+    }
+}
@@ -1,20 +1,117 @@
 package cn.com.lbt.lbtlibrary.utils.app.cache;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import cn.com.lbt.lbtlibrary.utils.LogPrintUtils;
 
 /**
  * detail: 缓存管理类
  * Created by 杨福海(michael) www.yangfuhai.com
  * Update to Ttt
+ * ---
+ * hint:
+ * lruMap 为访问顺序(accessOrder)的 LinkedHashMap, 表头即最久未使用的文件, get、put、removeNext 均为 O(1)
+ * get(key) 不直接竞争 lruLock, 而是把访问记录放入无锁队列 accessBuffer, 由 put 或者队列积压时 tryLock 批量回放
+ * ---
+ * 缓存索引保存在 cacheDir/journal 中(仅追加), 启动时顺序读取回放, 不再遍历 listFiles 统计文件
+ * CLEAN 文件名 文件大小 最后使用时间 过期时间(0 表示永久)
+ * READ 文件名 最后使用时间
+ * REMOVE 文件名
+ * 冗余记录过多时, 在定时清理线程重建(压缩) journal: 持有 lruLock 复制索引, 不持有锁写入临时文件,
+ * 再持有 lruLock 追加期间新增的记录并替换 journal
+ * ---
+ * 文件名为 key 的 MD5 (128位), 并按前 4 位分两级目录保存 cacheDir/ab/cd/abcd..., 避免 hashCode 冲突覆盖以及单目录文件过多
+ * 旧版本(cacheDir/key.hashCode())文件在使用到时迁移 (文件名无法还原 key, 不能启动时迁移)
+ * 旧版本文件保存在并发集合 legacyFiles 中, 只有 key 对应的旧版本文件存在时才竞争 lruLock
+ * 分级目录只在写入时创建, get、remove 不存在的 key 不创建目录
+ * ---
+ * 有过期时间的文件同时保存在按过期时间排序的最小堆 expiryQueue 中 (移除时只标记, 堆顶遇到时丢弃)
+ * 后台定时在最早的过期时间清理已过期文件, 超过数量、大小限制时也优先淘汰已过期文件, 再淘汰最久未使用文件
+ * 定时清理通过 {@link DevCacheWriter#runIfIdle(File, Runnable)} 删除, 不会删除正在写入的文件
+ * 淘汰、定时清理删除文件时回调 {@link OnEvictListener}, 用于同步移除内存缓存层数据
  */
 final class DevCacheManager {
 
+    // 日志Tag
+    private static final String TAG = DevCacheManager.class.getSimpleName();
+    // 访问记录积压数量阀值, 超过则尝试回放到 lruMap
+    private static final int DRAIN_THRESHOLD = 64;
+    // journal 文件名
+    static final String JOURNAL_FILE = "journal";
+    // journal 重建临时文件名
+    static final String JOURNAL_FILE_TEMP = "journal.tmp";
+    // journal 后台压缩临时文件名 (与同步重建区分, 避免同时写入同一文件)
+    static final String JOURNAL_FILE_COMPACT = "journal.compact";
+    // journal 头部标识
+    private static final String JOURNAL_MAGIC = "cn.com.lbt.lbtlibrary.DevCache";
+    // journal 版本
+    private static final String JOURNAL_VERSION = "1";
+    // 分级目录层数
+    private static final int SHARD_LEVELS = 2;
+    // 冗余记录数量阀值, 超过则重建 journal
+    private static final int REDUNDANT_OP_COMPACT_THRESHOLD = 2000;
+    // journal 记录类型
+    private static final String CLEAN = "CLEAN";
+    private static final String READ = "READ";
+    private static final String REMOVE = "REMOVE";
+    // 定时清理最小间隔 (毫秒), 短时间内过期的文件合并清理
+    private static final long SWEEP_MIN_INTERVAL = 1000l;
+    // 过期堆中已移除记录数量阀值, 超过则重建过期堆
+    private static final int EXPIRY_STALE_THRESHOLD = 64;
+    // 按过期时间排序
+    private static final Comparator<Entry> DUE_TIME_COMPARATOR = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry o1, Entry o2) {
+            return o1.dueTime < o2.dueTime ? -1 : (o1.dueTime == o2.dueTime ? 0 : 1);
+        }
+    };
+    // 定时清理线程 (全部缓存目录共用)
+    private static ScheduledExecutorService sSweeper;
+    // 十六进制字符
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    // MD5 (MessageDigest 非线程安全)
+    private static final ThreadLocal<MessageDigest> MD5_DIGEST = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new AssertionError(e);
+            }
+        }
+    };
+
     // 总缓存大小
     private final AtomicLong cacheSize;
     // 总缓存的文件总数
@@ -23,75 +120,527 @@ final class DevCacheManager {
     private final long sizeLimit;
     // 文件总数限制
     private final int countLimit;
-    // 保存文件时间信息 - 文件地址, 文件最后使用时间
-    private final Map<File, Long> lastUsageDates = Collections.synchronizedMap(new HashMap<File, Long>());
+    // 保存文件使用顺序 - 文件地址, 文件信息 (表头为最久未使用)
+    private final LinkedHashMap<File, Entry> lruMap = new LinkedHashMap<>(16, 0.75f, true);
+    // lruMap、journal 操作锁
+    private final ReentrantLock lruLock = new ReentrantLock();
+    // 待回放的访问记录
+    private final ConcurrentLinkedQueue<File> accessBuffer = new ConcurrentLinkedQueue<>();
+    // 待回放的访问记录数量
+    private final AtomicInteger accessBufferCount = new AtomicInteger();
+    // journal 写入流
+    private Writer journalWriter;
+    // journal 冗余记录数量
+    private int redundantOpCount;
+    // 是否正在重建 journal
+    private boolean compacting;
+    // 后台压缩期间新增的 journal 记录 (null 表示未压缩或者已被同步重建取消)
+    private List<String> compactDelta;
+    // 旧版本(未迁移)文件 (无锁读取)
+    private final Set<File> legacyFiles = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+    // 已创建的分级目录
+    private final Set<String> shardDirs = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    // 有过期时间的文件 (堆顶为最早过期)
+    private final PriorityQueue<Entry> expiryQueue = new PriorityQueue<>(16, DUE_TIME_COMPARATOR);
+    // 过期堆中已移除的记录数量
+    private int expiryStaleCount;
+    // 定时清理任务
+    private ScheduledFuture<?> sweepFuture;
+    // 定时清理时间
+    private long sweepTime;
+    // 原子写入处理 (清理时跳过正在写入的文件)
+    private final DevCacheWriter writer;
+    // 文件淘汰监听
+    private final OnEvictListener evictListener;
     // 文件目录
     protected File cacheDir;
 
-    protected DevCacheManager(File cacheDir, long sizeLimit, int countLimit) {
+    /**
+     * detail: 文件淘汰监听 (超过限制淘汰、过期清理, 持有 lruLock 回调)
+     */
+    interface OnEvictListener {
+
+        /**
+         * 文件已删除
+         * @param file 缓存文件
+         */
+        void onEvict(File file);
+    }
+
+    /**
+     * detail: 缓存文件信息
+     */
+    private static final class Entry {
+        // 文件地址
+        final File file;
+        // 文件大小
+        long size;
+        // 最后使用时间
+        long lastAccess;
+        // 过期时间 (0 表示永久)
+        long dueTime;
+        // 是否已从 lruMap 移除
+        boolean removed;
+
+        Entry(File file, long size, long lastAccess, long dueTime) {
+            this.file = file;
+            this.size = size;
+            this.lastAccess = lastAccess;
+            this.dueTime = dueTime;
+        }
+    }
+
+    protected DevCacheManager(File cacheDir, long sizeLimit, int countLimit, DevCacheWriter writer, OnEvictListener evictListener) {
         this.cacheDir = cacheDir;
         this.sizeLimit = sizeLimit;
         this.countLimit = countLimit;
+        this.writer = writer;
+        this.evictListener = evictListener;
         cacheSize = new AtomicLong();
         cacheCount = new AtomicInteger();
-        // 计算文件信息等
-        calculateCacheSizeAndCacheCount();
+        // 读取 journal 计算文件信息等
+        readJournal();
+    }
+
+    // =================
+    // ==== journal ====
+    // =================
+
+    /**
+     * 读取 journal 恢复缓存索引, 不存在或者损坏则遍历目录重建
+     */
+    private void readJournal() {
+        if (cacheDir == null) {
+            return;
+        }
+        lruLock.lock();
+        try {
+            File journal = new File(cacheDir, JOURNAL_FILE);
+            boolean replayed = false;
+            if (journal.exists()) {
+                try {
+                    replayJournal(journal);
+                    replayed = true;
+                } catch (Exception e) {
+                    LogPrintUtils.eTag(TAG, e, "readJournal");
+                    lruMap.clear();
+                    redundantOpCount = 0;
+                }
+            }
+            if (!replayed) {
+                // 旧版本缓存目录(无 journal), 遍历一次文件迁移
+                scanCacheDir();
+                rebuildJournal();
+            } else {
+                // journal 不记录临时文件, 删除写入中断遗留的临时文件
+                deleteTempFiles();
+                openJournalWriter();
+            }
+            long size = 0;
+            for (Entry entry : lruMap.values()) {
+                size += entry.size;
+            }
+            cacheSize.set(size);
+            cacheCount.set(lruMap.size());
+            for (File file : lruMap.keySet()) {
+                if (isLegacyFile(file)) {
+                    legacyFiles.add(file);
+                }
+            }
+            for (Entry entry : lruMap.values()) {
+                if (entry.dueTime != 0) {
+                    expiryQueue.offer(entry);
+                }
+            }
+            scheduleSweep();
+        } finally {
+            lruLock.unlock();
+        }
+        compactJournalIfNeeded();
     }
 
-    /** 计算 cacheSize 和 cacheCount */
-    private void calculateCacheSizeAndCacheCount() {
-        new Thread(new Runnable() {
+    /**
+     * 顺序读取 journal 并回放记录
+     * @param journal
+     * @throws IOException
+     */
+    private void replayJournal(File journal) throws IOException {
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(journal), "UTF-8"), 8192);
+            if (!JOURNAL_MAGIC.equals(reader.readLine()) || !JOURNAL_VERSION.equals(reader.readLine())) {
+                throw new IOException("unexpected journal header");
+            }
+            int lineCount = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineCount++;
+                String[] parts = line.split(" ");
+                if (CLEAN.equals(parts[0]) && parts.length == 5) {
+                    File file = new File(cacheDir, parts[1]);
+                    lruMap.put(file, new Entry(file, Long.parseLong(parts[2]),
+                            Long.parseLong(parts[3]), Long.parseLong(parts[4])));
+                } else if (READ.equals(parts[0]) && parts.length == 3) {
+                    Entry entry = lruMap.get(new File(cacheDir, parts[1]));
+                    if (entry != null) {
+                        entry.lastAccess = Long.parseLong(parts[2]);
+                    }
+                } else if (REMOVE.equals(parts[0]) && parts.length == 2) {
+                    lruMap.remove(new File(cacheDir, parts[1]));
+                }
+                // 其他(如写入中断的最后一行)忽略
+            }
+            redundantOpCount = lineCount - lruMap.size();
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * 遍历缓存目录(包含分级目录), 按最后修改时间恢复缓存索引
+     */
+    private void scanCacheDir() {
+        List<File> fileLists = new ArrayList<>();
+        listCacheFiles(cacheDir, 0, fileLists);
+        final File[] cachedFiles = fileLists.toArray(new File[fileLists.size()]);
+        final long[] lastModifieds = new long[cachedFiles.length];
+        Integer[] indexs = new Integer[cachedFiles.length];
+        for (int i = 0; i < cachedFiles.length; i++) {
+            lastModifieds[i] = cachedFiles[i].lastModified();
+            indexs[i] = i;
+        }
+        // 按最后使用时间排序, 保证 lruMap 表头为最久未使用
+        Arrays.sort(indexs, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                long l1 = lastModifieds[o1], l2 = lastModifieds[o2];
+                return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+            }
+        });
+        for (Integer index : indexs) {
+            File cachedFile = cachedFiles[index];
+            if (DevCacheWriter.isTempFile(cachedFile)) {
+                // 写入中断的临时文件
+                cachedFile.delete();
+            } else {
+                lruMap.put(cachedFile, new Entry(cachedFile, calculateSize(cachedFile), lastModifieds[index], 0l));
+            }
+        }
+    }
+
+    /**
+     * 删除写入中断的临时文件 (初始化时调用, 此时没有进行中的写入)
+     */
+    private void deleteTempFiles() {
+        List<File> fileLists = new ArrayList<>();
+        listCacheFiles(cacheDir, 0, fileLists);
+        for (File file : fileLists) {
+            if (DevCacheWriter.isTempFile(file)) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * 获取缓存文件 (不包含 journal)
+     * @param dir 目录
+     * @param depth 目录层级
+     * @param fileLists 保存的集合
+     */
+    private void listCacheFiles(File dir, int depth, List<File> fileLists) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                if (depth < SHARD_LEVELS) {
+                    listCacheFiles(file, depth + 1, fileLists);
+                }
+            } else if (depth != 0 || !isJournalFile(file)) {
+                fileLists.add(file);
+            }
+        }
+    }
+
+    /**
+     * 根据 lruMap 重建 journal (需持有 lruLock)
+     */
+    private void rebuildJournal() {
+        // 取消进行中的后台压缩
+        compactDelta = null;
+        closeJournalWriter();
+        File journal = new File(cacheDir, JOURNAL_FILE);
+        File journalTemp = new File(cacheDir, JOURNAL_FILE_TEMP);
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journalTemp), "UTF-8"), 8192);
+            writer.write(JOURNAL_MAGIC + "\n" + JOURNAL_VERSION + "\n");
+            for (Map.Entry<File, Entry> item : lruMap.entrySet()) {
+                Entry entry = item.getValue();
+                writer.write(CLEAN + ' ' + relativeName(item.getKey()) + ' ' + entry.size + ' ' + entry.lastAccess + ' ' + entry.dueTime + '\n');
+            }
+            writer.close();
+            writer = null;
+            if (!journalTemp.renameTo(journal)) {
+                journal.delete();
+                journalTemp.renameTo(journal);
+            }
+            redundantOpCount = 0;
+        } catch (Exception e) {
+            LogPrintUtils.eTag(TAG, e, "rebuildJournal");
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+        openJournalWriter();
+    }
+
+    /**
+     * 打开 journal 追加写入流 (需持有 lruLock)
+     */
+    private void openJournalWriter() {
+        try {
+            journalWriter = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(new File(cacheDir, JOURNAL_FILE), true), "UTF-8"), 8192);
+        } catch (Exception e) {
+            LogPrintUtils.eTag(TAG, e, "openJournalWriter");
+            journalWriter = null;
+        }
+    }
+
+    /**
+     * 关闭 journal 写入流 (需持有 lruLock)
+     */
+    private void closeJournalWriter() {
+        if (journalWriter != null) {
+            try {
+                journalWriter.close();
+            } catch (IOException e) {
+            }
+            journalWriter = null;
+        }
+    }
+
+    /**
+     * 追加 journal 记录 (需持有 lruLock)
+     * @param record 记录内容
+     * @param flush 是否立即刷新
+     */
+    private void appendJournal(String record, boolean flush) {
+        if (compactDelta != null) {
+            compactDelta.add(record);
+        }
+        if (journalWriter != null) {
+            try {
+                journalWriter.write(record);
+                journalWriter.write('\n');
+                if (flush) {
+                    journalWriter.flush();
+                }
+            } catch (IOException e) {
+                LogPrintUtils.eTag(TAG, e, "appendJournal");
+            }
+        }
+    }
+
+    /**
+     * 刷新 journal 写入流 (需持有 lruLock)
+     */
+    private void flushJournal() {
+        if (journalWriter != null) {
+            try {
+                journalWriter.flush();
+            } catch (IOException e) {
+                LogPrintUtils.eTag(TAG, e, "flushJournal");
+            }
+        }
+    }
+
+    /**
+     * 冗余记录过多时, 后台重建 journal
+     */
+    private void compactJournalIfNeeded() {
+        lruLock.lock();
+        try {
+            if (compacting || redundantOpCount < REDUNDANT_OP_COMPACT_THRESHOLD || redundantOpCount < lruMap.size()) {
+                return;
+            }
+            compacting = true;
+        } finally {
+            lruLock.unlock();
+        }
+        getSweeper().execute(new Runnable() {
             @Override
             public void run() {
-                int size = 0, count = 0;
-                if (cacheDir != null) {
-                    File[] cachedFiles = cacheDir.listFiles();
-                    if (cachedFiles != null) {
-                        for (File cachedFile : cachedFiles) {
-                            size += calculateSize(cachedFile);
-                            count += 1;
-                            lastUsageDates.put(cachedFile, cachedFile.lastModified());
-                        }
-                        cacheSize.set(size);
-                        cacheCount.set(count);
+                compactJournal();
+            }
+        });
+    }
+
+    /**
+     * 后台重建 journal (只在复制索引、替换文件时持有 lruLock)
+     */
+    private void compactJournal() {
+        List<String> records;
+        List<String> delta = new ArrayList<>();
+        lruLock.lock();
+        try {
+            drainAccessBuffer();
+            records = new ArrayList<>(lruMap.size());
+            for (Map.Entry<File, Entry> item : lruMap.entrySet()) {
+                Entry entry = item.getValue();
+                records.add(CLEAN + ' ' + relativeName(item.getKey()) + ' ' + entry.size + ' ' + entry.lastAccess + ' ' + entry.dueTime);
+            }
+            // 记录写入临时文件期间新增的记录
+            compactDelta = delta;
+        } finally {
+            lruLock.unlock();
+        }
+        File journalTemp = new File(cacheDir, JOURNAL_FILE_COMPACT);
+        Writer writer = null;
+        boolean replaced = false;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journalTemp), "UTF-8"), 8192);
+            writer.write(JOURNAL_MAGIC + "\n" + JOURNAL_VERSION + "\n");
+            for (String record : records) {
+                writer.write(record);
+                writer.write('\n');
+            }
+            lruLock.lock();
+            try {
+                // 期间已同步重建 (如 clear), 放弃本次压缩
+                if (compactDelta == delta) {
+                    for (String record : delta) {
+                        writer.write(record);
+                        writer.write('\n');
                     }
+                    writer.close();
+                    writer = null;
+                    closeJournalWriter();
+                    File journal = new File(cacheDir, JOURNAL_FILE);
+                    if (!journalTemp.renameTo(journal)) {
+                        journal.delete();
+                        journalTemp.renameTo(journal);
+                    }
+                    replaced = true;
+                    redundantOpCount = records.size() + delta.size() - lruMap.size();
+                    openJournalWriter();
+                }
+            } finally {
+                if (compactDelta == delta) {
+                    compactDelta = null;
+                }
+                compacting = false;
+                lruLock.unlock();
+            }
+        } catch (Exception e) {
+            LogPrintUtils.eTag(TAG, e, "compactJournal");
+            lruLock.lock();
+            try {
+                if (compactDelta == delta) {
+                    compactDelta = null;
                 }
+                compacting = false;
+            } finally {
+                lruLock.unlock();
             }
-        }).start();
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                }
+            }
+            if (!replaced) {
+                journalTemp.delete();
+            }
+        }
     }
 
+    /**
+     * 获取相对缓存目录的文件名 (journal 中记录)
+     * @param file
+     * @return 相对路径
+     */
+    private String relativeName(File file) {
+        return file.getPath().substring(cacheDir.getPath().length() + 1);
+    }
+
+    /**
+     * 判断是否旧版本(未分级目录)文件
+     * @param file
+     * @return
+     */
+    private boolean isLegacyFile(File file) {
+        return cacheDir.equals(file.getParentFile());
+    }
+
+    /**
+     * 判断是否 journal 文件
+     * @param file
+     * @return
+     */
+    private boolean isJournalFile(File file) {
+        String name = file.getName();
+        return JOURNAL_FILE.equals(name) || JOURNAL_FILE_TEMP.equals(name) || JOURNAL_FILE_COMPACT.equals(name);
+    }
+
+    // =
+
     /**
      * 添加文件
      * @param file
      */
     protected void put(File file) {
-        // 获取文件总数
-        int curCacheCount = cacheCount.get();
-        // 判断是否超过数量限制
-        while (curCacheCount + 1 > countLimit) {
-            // 删除文件, 并获取删除的文件大小
-            long freedSize = removeNext();
-            // 删除文件大小
-            cacheSize.addAndGet(-freedSize);
-            // 递减文件
-            curCacheCount = cacheCount.addAndGet(-1);
-        }
-        // 累加文件数量
-        cacheCount.addAndGet(1);
+        put(file, 0l);
+    }
+
+    /**
+     * 添加文件
+     * @param file
+     * @param dueTime 过期时间 (0 表示永久)
+     */
+    protected void put(File file, long dueTime) {
         // 计算文件总大小
         long valueSize = calculateSize(file);
-        // 判断当前缓存大小
-        long curCacheSize = cacheSize.get();
-        // 判断是否超过大小限制
-        while (curCacheSize + valueSize > sizeLimit) {
-            long freedSize = removeNext();
-            curCacheSize = cacheSize.addAndGet(-freedSize);
+        long currentTime = System.currentTimeMillis();
+        lruLock.lock();
+        try {
+            drainAccessBuffer();
+            // 覆盖写入, 先扣除旧的文件信息
+            Entry oldEntry = lruMap.remove(file);
+            if (oldEntry != null) {
+                unlink(oldEntry);
+                cacheSize.addAndGet(-oldEntry.size);
+                cacheCount.addAndGet(-1);
+                redundantOpCount++;
+            }
+            // 判断是否超过数量限制
+            while (cacheCount.get() + 1 > countLimit && !lruMap.isEmpty()) {
+                removeNext();
+            }
+            // 判断是否超过大小限制
+            while (cacheSize.get() + valueSize > sizeLimit && !lruMap.isEmpty()) {
+                removeNext();
+            }
+            link(new Entry(file, valueSize, currentTime, dueTime));
+            cacheSize.addAndGet(valueSize);
+            cacheCount.addAndGet(1);
+            appendJournal(CLEAN + ' ' + relativeName(file) + ' ' + valueSize + ' ' + currentTime + ' ' + dueTime, true);
+        } finally {
+            lruLock.unlock();
         }
-        cacheSize.addAndGet(valueSize);
-
-        Long currentTime = System.currentTimeMillis();
-        file.setLastModified(currentTime);
-        lastUsageDates.put(file, currentTime);
+        compactJournalIfNeeded();
     }
 
     /**
@@ -100,12 +649,9 @@ final class DevCacheManager {
      * @return {@link File}
      */
     protected File get(String key) {
-        File file = newFile(key);
+        File file = newFile(key, false);
         if (file != null) {
-            Long currentTime = System.currentTimeMillis();
-            file.setLastModified(currentTime);
-            lastUsageDates.put(file, currentTime);
-            return file;
+            recordAccess(file);
         }
         return file;
     }
@@ -113,23 +659,114 @@ final class DevCacheManager {
     /**
      * 创建文件对象
      * @param key
+     * @param create 是否创建分级目录 (写入时使用)
      * @return {@link File}
      */
-    protected File newFile(String key) {
+    protected File newFile(String key, boolean create) {
         if (key != null) {
-            return new File(cacheDir, key.hashCode() + "");
+            String name = md5Hex(key);
+            File dir = new File(new File(cacheDir, name.substring(0, 2)), name.substring(2, 4));
+            if (create) {
+                ensureShardDir(dir);
+            }
+            File file = new File(dir, name);
+            if (!legacyFiles.isEmpty()) {
+                File legacyFile = new File(cacheDir, key.hashCode() + "");
+                if (legacyFiles.contains(legacyFile)) {
+                    migrateLegacyFile(legacyFile, file);
+                }
+            }
+            return file;
         }
         return null;
     }
 
+    /**
+     * 创建分级目录 (每个分级目录只检查创建一次)
+     * @param dir
+     */
+    private void ensureShardDir(File dir) {
+        if (!shardDirs.contains(dir.getPath())) {
+            if (dir.isDirectory() || dir.mkdirs()) {
+                shardDirs.add(dir.getPath());
+            }
+        }
+    }
+
+    /**
+     * 迁移旧版本(cacheDir/key.hashCode())文件
+     * @param legacyFile 旧版本文件地址
+     * @param file 新的文件地址
+     */
+    private void migrateLegacyFile(File legacyFile, File file) {
+        lruLock.lock();
+        try {
+            Entry entry = lruMap.remove(legacyFile);
+            legacyFiles.remove(legacyFile);
+            if (entry == null) {
+                return;
+            }
+            unlink(entry);
+            redundantOpCount += 2;
+            appendJournal(REMOVE + ' ' + relativeName(legacyFile), false);
+            ensureShardDir(file.getParentFile());
+            if (!file.exists() && legacyFile.renameTo(file)) {
+                link(new Entry(file, entry.size, entry.lastAccess, entry.dueTime));
+                appendJournal(CLEAN + ' ' + relativeName(file) + ' ' + entry.size + ' ' + entry.lastAccess + ' ' + entry.dueTime, true);
+            } else {
+                // 已存在新版本文件, 旧版本文件作废
+                legacyFile.delete();
+                cacheSize.addAndGet(-entry.size);
+                cacheCount.addAndGet(-1);
+                flushJournal();
+            }
+        } finally {
+            lruLock.unlock();
+        }
+    }
+
+    /**
+     * 计算 key 的 MD5 (十六进制)
+     * @param key
+     * @return MD5 十六进制字符串
+     */
+    private static String md5Hex(String key) {
+        MessageDigest digest = MD5_DIGEST.get();
+        byte[] bytes;
+        try {
+            bytes = digest.digest(key.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            bytes = digest.digest(key.getBytes());
+        }
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
     /**
      * 删除文件
      * @param key
      * @return true: 删除成功, false: 删除失败
      */
     protected boolean remove(String key) {
-        File file = get(key);
+        File file = newFile(key, false);
         if (file != null) {
+            lruLock.lock();
+            try {
+                Entry entry = lruMap.remove(file);
+                if (entry != null) {
+                    unlink(entry);
+                    cacheSize.addAndGet(-entry.size);
+                    cacheCount.addAndGet(-1);
+                    redundantOpCount += 2;
+                    appendJournal(REMOVE + ' ' + relativeName(file), true);
+                }
+            } finally {
+                lruLock.unlock();
+            }
             return file.delete();
         }
         return false;
@@ -139,47 +776,270 @@ final class DevCacheManager {
      * 清空全部缓存数据
      */
     protected void clear() {
-        lastUsageDates.clear();
-        cacheSize.set(0);
-        File[] files = cacheDir.listFiles();
-        if (files != null) {
-            for (File f : files) {
+        lruLock.lock();
+        try {
+            accessBuffer.clear();
+            accessBufferCount.set(0);
+            for (Entry entry : lruMap.values()) {
+                entry.removed = true;
+            }
+            lruMap.clear();
+            expiryQueue.clear();
+            expiryStaleCount = 0;
+            if (sweepFuture != null) {
+                sweepFuture.cancel(false);
+                sweepFuture = null;
+            }
+            cacheSize.set(0);
+            cacheCount.set(0);
+            legacyFiles.clear();
+            closeJournalWriter();
+            List<File> fileLists = new ArrayList<>();
+            listCacheFiles(cacheDir, 0, fileLists);
+            for (File f : fileLists) {
                 f.delete();
             }
+            rebuildJournal();
+        } finally {
+            lruLock.unlock();
+        }
+    }
+
+    /**
+     * 记录文件访问, 积压过多时尝试回放 (获取不到锁则由下次 put 回放)
+     * @param file
+     */
+    private void recordAccess(File file) {
+        accessBuffer.offer(file);
+        if (accessBufferCount.incrementAndGet() >= DRAIN_THRESHOLD && lruLock.tryLock()) {
+            try {
+                drainAccessBuffer();
+            } finally {
+                lruLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 回放访问记录到 lruMap, 并批量写入 journal (需持有 lruLock)
+     */
+    private void drainAccessBuffer() {
+        long currentTime = System.currentTimeMillis();
+        boolean append = false;
+        File file;
+        while ((file = accessBuffer.poll()) != null) {
+            accessBufferCount.decrementAndGet();
+            // accessOrder 模式下 get 会移动到表尾, 不存在的文件不做记录
+            Entry entry = lruMap.get(file);
+            if (entry != null) {
+                entry.lastAccess = currentTime;
+                redundantOpCount++;
+                appendJournal(READ + ' ' + relativeName(file) + ' ' + currentTime, false);
+                append = true;
+            }
+        }
+        if (append) {
+            flushJournal();
         }
     }
 
     /**
-     * 移除旧的文件
+     * 移除已过期的文件, 不存在则移除最久未使用的文件 (需持有 lruLock)
      * @return 返回移除的文件大小
      */
     private long removeNext() {
-        if (lastUsageDates.isEmpty()) {
+        Entry expired = pollExpired(System.currentTimeMillis());
+        if (expired != null) {
+            lruMap.remove(expired.file);
+            return evict(expired);
+        }
+        Iterator<Map.Entry<File, Entry>> iterator = lruMap.entrySet().iterator();
+        if (!iterator.hasNext()) {
             return 0;
         }
-        Long oldestUsage = null;
-        File mostLongUsedFile = null;
-        Set<Map.Entry<File, Long>> entries = lastUsageDates.entrySet();
-        synchronized (lastUsageDates) {
-            for (Map.Entry<File, Long> entry : entries) {
-                if (mostLongUsedFile == null) {
-                    mostLongUsedFile = entry.getKey();
-                    oldestUsage = entry.getValue();
-                } else {
-                    Long lastValueUsage = entry.getValue();
-                    if (lastValueUsage < oldestUsage) {
-                        oldestUsage = lastValueUsage;
-                        mostLongUsedFile = entry.getKey();
+        Entry entry = iterator.next().getValue();
+        iterator.remove();
+        return evict(entry);
+    }
+
+    /**
+     * 删除已从 lruMap 移除的文件 (需持有 lruLock)
+     * @param entry
+     * @return 返回移除的文件大小
+     */
+    private long evict(Entry entry) {
+        unlink(entry);
+        entry.file.delete();
+        cacheSize.addAndGet(-entry.size);
+        cacheCount.addAndGet(-1);
+        redundantOpCount += 2;
+        if (isLegacyFile(entry.file)) {
+            legacyFiles.remove(entry.file);
+        }
+        appendJournal(REMOVE + ' ' + relativeName(entry.file), false);
+        if (evictListener != null) {
+            evictListener.onEvict(entry.file);
+        }
+        return entry.size;
+    }
+
+    // ==============
+    // ==== 过期 ====
+    // ==============
+
+    /**
+     * 保存文件信息, 有过期时间则加入过期堆 (需持有 lruLock)
+     * @param entry
+     */
+    private void link(Entry entry) {
+        lruMap.put(entry.file, entry);
+        if (entry.dueTime != 0) {
+            expiryQueue.offer(entry);
+            scheduleSweep();
+        }
+    }
+
+    /**
+     * 标记文件信息已移除, 过期堆中的记录在堆顶时丢弃 (需持有 lruLock)
+     * @param entry
+     */
+    private void unlink(Entry entry) {
+        entry.removed = true;
+        if (entry.dueTime != 0 && ++expiryStaleCount > EXPIRY_STALE_THRESHOLD
+                && expiryStaleCount > expiryQueue.size() / 2) {
+            // 已移除记录过多, 重建过期堆
+            List<Entry> entries = new ArrayList<>(expiryQueue.size() - expiryStaleCount + 1);
+            for (Entry item : expiryQueue) {
+                if (!item.removed) {
+                    entries.add(item);
+                }
+            }
+            expiryQueue.clear();
+            expiryQueue.addAll(entries);
+            expiryStaleCount = 0;
+        }
+    }
+
+    /**
+     * 获取最早过期的文件信息 (需持有 lruLock)
+     * @return 最早过期的文件信息, 不存在则返回 null
+     */
+    private Entry peekExpiry() {
+        Entry entry;
+        while ((entry = expiryQueue.peek()) != null && entry.removed) {
+            expiryQueue.poll();
+            expiryStaleCount--;
+        }
+        return entry;
+    }
+
+    /**
+     * 取出已过期的文件信息 (需持有 lruLock)
+     * @param currentTime 当前时间
+     * @return 已过期的文件信息, 不存在则返回 null
+     */
+    private Entry pollExpired(long currentTime) {
+        Entry entry = peekExpiry();
+        if (entry != null && entry.dueTime < currentTime) {
+            return expiryQueue.poll();
+        }
+        return null;
+    }
+
+    /**
+     * 在最早的过期时间安排定时清理 (需持有 lruLock)
+     */
+    private void scheduleSweep() {
+        Entry entry = peekExpiry();
+        if (entry == null) {
+            return;
+        }
+        long currentTime = System.currentTimeMillis();
+        long time = Math.max(entry.dueTime + 1, currentTime + SWEEP_MIN_INTERVAL);
+        if (sweepFuture != null) {
+            if (sweepTime <= time) {
+                return;
+            }
+            sweepFuture.cancel(false);
+        }
+        sweepTime = time;
+        sweepFuture = getSweeper().schedule(new Runnable() {
+            @Override
+            public void run() {
+                sweep();
+            }
+        }, time - currentTime, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 清理已过期的文件 (跳过正在写入的文件, 写入完成后会替换文件信息)
+     */
+    private void sweep() {
+        List<Entry> expireds = new ArrayList<>();
+        lruLock.lock();
+        try {
+            sweepFuture = null;
+            long currentTime = System.currentTimeMillis();
+            Entry entry;
+            while ((entry = pollExpired(currentTime)) != null) {
+                expireds.add(entry);
+            }
+        } finally {
+            lruLock.unlock();
+        }
+        List<Entry> skips = new ArrayList<>();
+        for (final Entry entry : expireds) {
+            boolean idle = writer == null || writer.runIfIdle(entry.file, new Runnable() {
+                @Override
+                public void run() {
+                    lruLock.lock();
+                    try {
+                        if (!entry.removed) {
+                            lruMap.remove(entry.file);
+                            evict(entry);
+                        }
+                    } finally {
+                        lruLock.unlock();
                     }
                 }
+            });
+            if (!idle) {
+                skips.add(entry);
             }
         }
+        lruLock.lock();
+        try {
+            for (Entry entry : skips) {
+                if (!entry.removed) {
+                    expiryQueue.offer(entry);
+                }
+            }
+            flushJournal();
+            scheduleSweep();
+        } catch (Exception e) {
+            LogPrintUtils.eTag(TAG, e, "sweep");
+        } finally {
+            lruLock.unlock();
+        }
+        compactJournalIfNeeded();
+    }
 
-        long fileSize = calculateSize(mostLongUsedFile);
-        if (mostLongUsedFile.delete()) {
-            lastUsageDates.remove(mostLongUsedFile);
+    /**
+     * 获取定时清理线程
+     * @return {@link ScheduledExecutorService}
+     */
+    private static synchronized ScheduledExecutorService getSweeper() {
+        if (sSweeper == null) {
+            sSweeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "DevCache-Sweeper");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
         }
-        return fileSize;
+        return sSweeper;
     }
 
     /**
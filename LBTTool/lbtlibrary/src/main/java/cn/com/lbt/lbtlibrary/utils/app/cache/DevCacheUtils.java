@@ -16,6 +16,9 @@ import cn.com.lbt.lbtlibrary.utils.LogPrintUtils;
  * detail: 缓存检查(时间)工具类
  * Created by 杨福海(michael) www.yangfuhai.com
  * Update to Ttt
+ * ---
+ * hint:
+ * 新写入的数据使用 {@link DevCacheHeader} 二进制头部, 此处时间信息方法仅用于兼容读取旧版本数据 (13位保存时间-过期秒数 + 空格前缀)
  */
 final class DevCacheUtils {
 
@@ -26,23 +29,24 @@ final class DevCacheUtils {
     private static final String TAG = DevCacheUtils.class.getSimpleName();
 
     /**
-     * 判断缓存的 String 数据是否到期
-     * @param str
+     * 判断缓存的 byte 数据是否到期
+     * @param data
      * @return true: 到期了, false: 还没有到期
      */
-    public static boolean isDue(String str) {
-        return isDue(str.getBytes());
+    public static boolean isDue(byte[] data) {
+        long dueTime = getDueTime(data);
+        // 判断当前时间是否大于 保存时间 + 过期时间
+        return dueTime != 0 && System.currentTimeMillis() > dueTime;
     }
 
     /**
-     * 判断缓存的 byte 数据是否到期
+     * 获取缓存的 byte 数据过期时间
      * @param data
-     * @return true: 到期了, false: 还没有到期
+     * @return 过期时间 (毫秒), 0 表示永久
      */
-    public static boolean isDue(byte[] data) {
+    public static long getDueTime(byte[] data) {
         // 获取时间数据信息
         String[] strs = getDateInfoFromDate(data);
-        // 判断是否过期
         if (strs != null && strs.length == 2) {
             // 保存的时间
             String saveTimeStr = strs[0];
@@ -53,97 +57,74 @@ final class DevCacheUtils {
             // 转换时间
             long saveTime = Long.valueOf(saveTimeStr); // 保存时间
             long deleteAfter = Long.valueOf(strs[1]); // 过期时间
-            // 判断当前时间是否大于 保存时间 + 过期时间
-            if (System.currentTimeMillis() > saveTime + deleteAfter * 1000) {
-                return true;
-            }
+            return saveTime + deleteAfter * 1000;
         }
-        return false;
+        return 0l;
     }
 
     // -
 
-    /**
-     * 保存数据, 创建时间信息
-     * @param second
-     * @param strInfo
-     * @return
-     */
-    public static String newStringWithDateInfo(int second, String strInfo) {
-        return createDateInfo(second) + strInfo;
-    }
+    // 旧版本时间信息分隔符
+    private static final char mSeparator = ' ';
 
     /**
-     * 保存数据, 创建时间信息
-     * @param second
+     * 清空时间信息
      * @param data
      * @return
      */
-    public static byte[] newByteArrayWithDateInfo(int second, byte[] data) {
-        if (data != null) {
+    public static byte[] clearDateInfo(byte[] data) {
+        if (hasDateInfo(data)) {
             try {
-                byte[] dataArys = createDateInfo(second).getBytes();
-                byte[] retData = new byte[dataArys.length + data.length];
-                System.arraycopy(dataArys, 0, retData, 0, dataArys.length);
-                System.arraycopy(data, 0, retData, dataArys.length, data.length);
-                return retData;
+                return copyOfRange(data, indexOf(data, mSeparator) + 1, data.length);
             } catch (Exception e) {
-                LogPrintUtils.eTag(TAG, e, "newByteArrayWithDateInfo");
+                LogPrintUtils.eTag(TAG, e, "clearDateInfo");
             }
         }
-        return null;
+        return data;
     }
 
-    private static final char mSeparator = ' ';
-
     /**
-     * 创建时间信息
-     * @param second
-     * @return
+     * 获取时间信息前缀长度
+     * @param data 数据(或数据开头部分)
+     * @return 时间信息前缀长度, 不存在则返回 0
      */
-    private static String createDateInfo(int second) {
-        String currentTime = System.currentTimeMillis() + "";
-        while (currentTime.length() < 13) {
-            currentTime = "0" + currentTime;
+    public static int getDateInfoLength(byte[] data) {
+        if (hasDateInfo(data)) {
+            return indexOf(data, mSeparator) + 1;
         }
-        return currentTime + "-" + second + mSeparator;
+        return 0;
     }
 
-    /**
-     * 清空时间信息
-     * @param strInfo
-     * @return
-     */
-    public static String clearDateInfo(String strInfo) {
-        if (strInfo != null && hasDateInfo(strInfo.getBytes())) {
-            strInfo = strInfo.substring(strInfo.indexOf(mSeparator) + 1);
-        }
-        return strInfo;
-    }
+    // 旧版本过期秒数最大位数 (防止 Long 解析溢出)
+    private static final int MAX_DELETE_AFTER_LENGTH = 18;
 
     /**
-     * 清空时间信息
+     * 检验时间信息 (13位数字 + '-' + 数字 + 空格), 不符合格式的数据(如无头部的流式写入数据)不当作时间信息解析
      * @param data
      * @return
      */
-    public static byte[] clearDateInfo(byte[] data) {
-        if (hasDateInfo(data)) {
-            try {
-                return copyOfRange(data, indexOf(data, mSeparator) + 1, data.length);
-            } catch (Exception e) {
-                LogPrintUtils.eTag(TAG, e, "clearDateInfo");
+    private static boolean hasDateInfo(byte[] data) {
+        if (data == null || data.length <= 15 || data[13] != '-') {
+            return false;
+        }
+        for (int i = 0; i < 13; i++) {
+            if (!isDigit(data[i])) {
+                return false;
             }
         }
-        return data;
+        int end = Math.min(data.length, 14 + MAX_DELETE_AFTER_LENGTH + 1);
+        for (int i = 14; i < end; i++) {
+            if (data[i] == mSeparator) {
+                return i > 14;
+            } else if (!isDigit(data[i])) {
+                return false;
+            }
+        }
+        return false;
     }
 
-    /**
-     * 检验时间信息
-     * @param data
-     * @return
-     */
-    private static boolean hasDateInfo(byte[] data) {
-        return data != null && data.length > 15 && data[13] == '-' && indexOf(data, mSeparator) > 14;
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
     }
 
     /**
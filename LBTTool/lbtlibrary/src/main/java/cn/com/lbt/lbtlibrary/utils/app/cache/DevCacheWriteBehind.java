@@ -0,0 +1,354 @@
+package cn.com.lbt.lbtlibrary.utils.app.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import cn.com.lbt.lbtlibrary.utils.LogPrintUtils;
+
+/**
+ * detail: 缓存异步写入(write-behind)队列
+ * Created by Ttt
+ * ---
+ * hint:
+ * put 只加入队列并返回 {@link Future}, 由单个 IO 线程批量写入 (包含 Serializable、Bitmap 的转换)
+ * 同一个 key 未写入前再次 put 会合并为一次写入 (最后一次生效), 之前返回的 Future 在合并后的写入完成时一起回调
+ * 等待写入的 key 数量达到上限时, put 阻塞等待 (背压)
+ * 读取时优先读取队列中(以及正在写入)的数据, 保证 put 后立即读取能读取到 (read-your-writes)
+ * 注: 写入完成前不要修改、回收(Bitmap.recycle)已 put 的对象
+ */
+final class DevCacheWriteBehind {
+
+    // 日志Tag
+    private static final String TAG = DevCacheWriteBehind.class.getSimpleName();
+    // 每批次最多写入数量
+    private static final int MAX_BATCH = 64;
+
+    /**
+     * detail: 实际写入接口
+     */
+    interface Writer {
+
+        /**
+         * 写入数据
+         * @param key 保存的key
+         * @param value 保存的数据
+         * @param saveTime 保存的时间，单位：秒 (-1 表示永久)
+         * @param createdAt 保存时间(毫秒)
+         * @return true: 写入成功, false: 写入失败
+         */
+        boolean write(String key, Object value, int saveTime, long createdAt);
+    }
+
+    /**
+     * detail: 等待写入的数据
+     */
+    static final class Task {
+        // 保存的key
+        final String key;
+        // 保存的数据
+        final Object value;
+        // 保存的时间，单位：秒 (-1 表示永久)
+        final int saveTime;
+        // 保存时间(毫秒)
+        final long createdAt;
+        // 等待写入结果的 Future
+        final List<WriteFuture> futures = new ArrayList<>(1);
+
+        Task(String key, Object value, int saveTime, long createdAt) {
+            this.key = key;
+            this.value = value;
+            this.saveTime = saveTime;
+            this.createdAt = createdAt;
+        }
+
+        /**
+         * 判断是否过期
+         * @return true: 到期了, false: 还没有到期
+         */
+        boolean isDue() {
+            return saveTime != -1 && System.currentTimeMillis() > createdAt + saveTime * 1000l;
+        }
+
+        /**
+         * 回调写入结果
+         * @param result
+         */
+        void complete(boolean result) {
+            for (WriteFuture future : futures) {
+                future.complete(result);
+            }
+        }
+    }
+
+    /**
+     * detail: 写入结果
+     */
+    static final class WriteFuture implements Future<Boolean> {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile boolean result;
+
+        WriteFuture() {
+        }
+
+        WriteFuture(boolean result) {
+            complete(result);
+        }
+
+        void complete(boolean result) {
+            this.result = result;
+            latch.countDown();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return latch.getCount() == 0;
+        }
+
+        @Override
+        public Boolean get() throws InterruptedException, ExecutionException {
+            latch.await();
+            return result;
+        }
+
+        @Override
+        public Boolean get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            if (!latch.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            return result;
+        }
+    }
+
+    // 实际写入
+    private final Writer writer;
+    // 最多等待写入的 key 数量
+    private final int capacity;
+    // 队列锁
+    private final ReentrantLock lock = new ReentrantLock();
+    // 队列不为空
+    private final Condition notEmpty = lock.newCondition();
+    // 队列未满
+    private final Condition notFull = lock.newCondition();
+    // 正在写入的数据写入完成
+    private final Condition inflightDone = lock.newCondition();
+    // 等待写入的数据 (按 put 顺序)
+    private final LinkedHashMap<String, Task> pending = new LinkedHashMap<>();
+    // 正在写入的数据
+    private final HashMap<String, Task> inflight = new HashMap<>();
+    // 是否已关闭
+    private boolean shutdown;
+
+    DevCacheWriteBehind(Writer writer, int capacity) {
+        this.writer = writer;
+        this.capacity = capacity;
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "DevCache-WriteBehind");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 加入写入队列 (队列已满则阻塞等待, 已关闭则直接写入)
+     * @param key 保存的key
+     * @param value 保存的数据
+     * @param saveTime 保存的时间，单位：秒 (-1 表示永久)
+     * @return {@link Future} 写入结果
+     */
+    Future<Boolean> submit(String key, Object value, int saveTime) {
+        WriteFuture future = new WriteFuture();
+        Task task = new Task(key, value, saveTime, System.currentTimeMillis());
+        task.futures.add(future);
+        boolean direct = false;
+        lock.lock();
+        try {
+            // 同一个 key 合并, 不占用新的队列位置
+            while (!shutdown && !pending.containsKey(key) && pending.size() >= capacity) {
+                notFull.awaitUninterruptibly();
+            }
+            if (shutdown) {
+                direct = true;
+            } else {
+                Task previous = pending.remove(key);
+                if (previous != null) {
+                    task.futures.addAll(0, previous.futures);
+                }
+                pending.put(key, task);
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        // 关闭中(或已关闭)时获取到旧队列的 put 不丢弃, 在调用线程直接写入
+        if (direct) {
+            boolean result = false;
+            try {
+                result = writer.write(key, value, saveTime, task.createdAt);
+            } catch (Throwable e) {
+                LogPrintUtils.eTag(TAG, e, "submit");
+            }
+            future.complete(result);
+        }
+        return future;
+    }
+
+    /**
+     * 获取未写入完成的数据
+     * @param key
+     * @return {@link Task}, 不存在则返回 null
+     */
+    Task peek(String key) {
+        lock.lock();
+        try {
+            Task task = pending.get(key);
+            return task != null ? task : inflight.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取消某个 key 的写入 (正在写入则等待写入完成)
+     * @param key
+     */
+    void cancel(String key) {
+        Task task;
+        lock.lock();
+        try {
+            task = pending.remove(key);
+            if (task != null) {
+                notFull.signalAll();
+            }
+            while (inflight.containsKey(key)) {
+                inflightDone.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (task != null) {
+            task.complete(false);
+        }
+    }
+
+    /**
+     * 取消全部写入 (正在写入则等待写入完成)
+     */
+    void cancelAll() {
+        List<Task> tasks;
+        lock.lock();
+        try {
+            tasks = new ArrayList<>(pending.values());
+            pending.clear();
+            notFull.signalAll();
+            while (!inflight.isEmpty()) {
+                inflightDone.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Task task : tasks) {
+            task.complete(false);
+        }
+    }
+
+    /**
+     * 等待全部数据写入完成
+     */
+    void flush() {
+        lock.lock();
+        try {
+            while (!pending.isEmpty() || !inflight.isEmpty()) {
+                inflightDone.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 关闭并等待剩余数据写入完成 (关闭后的 put 直接写入)
+     */
+    void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+            while (!pending.isEmpty() || !inflight.isEmpty()) {
+                inflightDone.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * IO 线程循环, 每次取出一批数据写入
+     */
+    private void loop() {
+        List<Task> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            lock.lock();
+            try {
+                while (pending.isEmpty() && !shutdown) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                Iterator<Map.Entry<String, Task>> iterator = pending.entrySet().iterator();
+                while (iterator.hasNext() && batch.size() < MAX_BATCH) {
+                    Task task = iterator.next().getValue();
+                    iterator.remove();
+                    inflight.put(task.key, task);
+                    batch.add(task);
+                }
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            for (Task task : batch) {
+                boolean result = false;
+                try {
+                    result = writer.write(task.key, task.value, task.saveTime, task.createdAt);
+                } catch (Throwable e) {
+                    LogPrintUtils.eTag(TAG, e, "loop");
+                }
+                lock.lock();
+                try {
+                    inflight.remove(task.key);
+                    inflightDone.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                task.complete(result);
+            }
+            batch.clear();
+        }
+    }
+}
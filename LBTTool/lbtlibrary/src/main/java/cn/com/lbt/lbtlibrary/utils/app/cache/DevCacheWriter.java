@@ -0,0 +1,250 @@
+package cn.com.lbt.lbtlibrary.utils.app.cache;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cn.com.lbt.lbtlibrary.utils.LogPrintUtils;
+
+/**
+ * detail: 缓存文件原子写入
+ * Created by Ttt
+ * ---
+ * hint:
+ * 数据先写入同目录临时文件 (文件名.序号.tmp), 写入完成后 rename 覆盖, 读取方不会读到写入一半的数据
+ * 同一个 key 并发写入时, 每次写入按开始顺序分配序号, 提交时比提交过的序号旧则直接丢弃, 保证最后开始的写入生效 (每个 key 单独加锁, 无全局锁)
+ * 持久化 {@link DevCache.SyncMode}:
+ * NONE - 不调用 fsync (默认)
+ * ALWAYS - 每次写入 fsync 后再提交
+ * GROUP - 并发写入合并为一批, 由一个线程统一 fsync, 其他线程等待该批次完成, 减少等待 fsync 的次数
+ */
+final class DevCacheWriter {
+
+    // 日志Tag
+    private static final String TAG = DevCacheWriter.class.getSimpleName();
+    // 临时文件后缀
+    static final String TEMP_SUFFIX = ".tmp";
+
+    // 写入序号
+    private final AtomicLong sequence = new AtomicLong();
+    // 正在写入的 key(文件) 状态
+    private final ConcurrentHashMap<File, KeyState> keyStates = new ConcurrentHashMap<>();
+    // 持久化模式
+    private volatile DevCache.SyncMode syncMode = DevCache.SyncMode.NONE;
+
+    // == GROUP 模式 ==
+    // 批次锁
+    private final Object groupLock = new Object();
+    // 等待 fsync 的文件
+    private List<FileDescriptor> groupPending = new ArrayList<>();
+    // 已加入批次的数量
+    private long groupEnqueued;
+    // 已完成 fsync 的数量
+    private long groupSynced;
+    // 是否有线程正在 fsync
+    private boolean groupSyncing;
+
+    /**
+     * detail: key 写入状态
+     */
+    private static final class KeyState {
+        // 正在写入的数量
+        int pending;
+        // 已提交的序号
+        long committed;
+        // 是否已移除
+        boolean removed;
+    }
+
+    /**
+     * 设置持久化模式
+     * @param syncMode
+     */
+    void setSyncMode(DevCache.SyncMode syncMode) {
+        this.syncMode = syncMode != null ? syncMode : DevCache.SyncMode.NONE;
+    }
+
+    /**
+     * 开始写入
+     * @param file 目标文件
+     * @return 写入序号
+     */
+    long begin(File file) {
+        while (true) {
+            KeyState state = keyStates.get(file);
+            if (state == null) {
+                KeyState newState = new KeyState();
+                state = keyStates.putIfAbsent(file, newState);
+                if (state == null) {
+                    state = newState;
+                }
+            }
+            synchronized (state) {
+                if (!state.removed) {
+                    state.pending++;
+                    return sequence.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取临时文件
+     * @param file 目标文件
+     * @param seq 写入序号
+     * @return 临时文件
+     */
+    static File tempFile(File file, long seq) {
+        return new File(file.getPath() + "." + seq + TEMP_SUFFIX);
+    }
+
+    /**
+     * 判断是否临时文件
+     * @param file
+     * @return
+     */
+    static boolean isTempFile(File file) {
+        return file.getName().endsWith(TEMP_SUFFIX);
+    }
+
+    /**
+     * 按持久化模式 fsync (需在关闭文件前调用)
+     * @param fd
+     * @throws IOException
+     */
+    void sync(FileDescriptor fd) throws IOException {
+        switch (syncMode) {
+            case ALWAYS:
+                fd.sync();
+                break;
+            case GROUP:
+                groupSync(fd);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 提交写入 (rename 临时文件), 已有更新的写入提交则丢弃
+     * @param file 目标文件
+     * @param temp 临时文件
+     * @param seq 写入序号
+     * @param onCommitted 提交成功后(持有该 key 锁)的处理
+     * @return true: 提交成功, false: 已丢弃
+     */
+    boolean commit(File file, File temp, long seq, Runnable onCommitted) {
+        KeyState state = keyStates.get(file);
+        if (state == null) {
+            return false;
+        }
+        synchronized (state) {
+            if (seq < state.committed) {
+                temp.delete();
+                return false;
+            }
+            if (!temp.renameTo(file)) {
+                // 部分文件系统不支持覆盖
+                file.delete();
+                if (!temp.renameTo(file)) {
+                    temp.delete();
+                    return false;
+                }
+            }
+            state.committed = seq;
+            if (onCommitted != null) {
+                onCommitted.run();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 结束写入 (不论成功失败都需要调用)
+     * @param file 目标文件
+     */
+    void end(File file) {
+        KeyState state = keyStates.get(file);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            if (--state.pending <= 0) {
+                state.removed = true;
+                keyStates.remove(file, state);
+            }
+        }
+    }
+
+    /**
+     * 没有正在写入时执行操作 (执行期间该 key 的写入无法提交)
+     * @param file 目标文件
+     * @param action 执行的操作
+     * @return true: 已执行, false: 正在写入, 未执行
+     */
+    boolean runIfIdle(File file, Runnable action) {
+        KeyState state = new KeyState();
+        state.pending = 1;
+        if (keyStates.putIfAbsent(file, state) != null) {
+            return false;
+        }
+        try {
+            synchronized (state) {
+                action.run();
+            }
+        } finally {
+            end(file);
+        }
+        return true;
+    }
+
+    /**
+     * 批次 fsync, 第一个进入的线程负责 fsync 当前批次全部文件, 其他线程等待
+     * @param fd
+     */
+    private void groupSync(FileDescriptor fd) {
+        List<FileDescriptor> batch;
+        long batchEnd;
+        synchronized (groupLock) {
+            groupPending.add(fd);
+            long ticket = ++groupEnqueued;
+            while (true) {
+                if (groupSynced >= ticket) {
+                    return;
+                }
+                if (!groupSyncing) {
+                    break;
+                }
+                try {
+                    groupLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            groupSyncing = true;
+            batch = groupPending;
+            batchEnd = groupEnqueued;
+            groupPending = new ArrayList<>();
+        }
+        try {
+            for (FileDescriptor item : batch) {
+                try {
+                    item.sync();
+                } catch (IOException e) {
+                    LogPrintUtils.eTag(TAG, e, "groupSync");
+                }
+            }
+        } finally {
+            synchronized (groupLock) {
+                groupSynced = batchEnd;
+                groupSyncing = false;
+                groupLock.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package cn.com.lbt.lbtlibrary.utils.app.cache;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * detail: 缓存内存层 - 按字节大小限制的 LRU
+ * Created by Ttt
+ * ---
+ * hint:
+ * 位于 {@link DevCacheManager} 之前, 由 {@link DevCache#setMemoryCacheSize(long)} 开启
+ * 写入时同步写入磁盘(write-through), 读取命中则不再读取文件, 过期时间与磁盘数据一致
+ * 磁盘文件被淘汰、过期清理时按文件移除 {@link #removeFile(File)}
+ * 读取文件后回填使用 {@link #putIfUnmodified}, 读取期间有写入、移除则不回填, 避免覆盖更新的数据或者恢复已移除的数据
+ */
+public final class DevMemoryCache {
+
+    // 每条数据固定额外占用大小(估算)
+    private static final int ENTRY_OVERHEAD = 64;
+
+    // 缓存数据 (表头为最久未使用)
+    private final LinkedHashMap<String, Entry> map = new LinkedHashMap<>(16, 0.75f, true);
+    // 缓存文件 - key
+    private final HashMap<File, String> fileKeys = new HashMap<>();
+    // 大小限制
+    private final long maxSize;
+    // 当前大小
+    private long size;
+    // 命中次数
+    private long hitCount;
+    // 未命中次数
+    private long missCount;
+    // 保存次数
+    private long putCount;
+    // 淘汰次数(不包含过期、移除)
+    private long evictionCount;
+    // 过期次数
+    private long expiredCount;
+    // 修改次数 (保存、移除、清空)
+    private long modCount;
+
+    /**
+     * detail: 内存缓存数据
+     */
+    private static final class Entry {
+        // 缓存文件
+        final File file;
+        // 数据 (String、byte[])
+        final Object value;
+        // 过期时间 (0 表示永久)
+        final long dueTime;
+        // 占用大小
+        final long weight;
+
+        Entry(File file, Object value, long dueTime, long weight) {
+            this.file = file;
+            this.value = value;
+            this.dueTime = dueTime;
+            this.weight = weight;
+        }
+    }
+
+    DevMemoryCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 获取数据
+     * @param key
+     * @param type 数据类型 (String.class、byte[].class)
+     * @return 未命中、已过期、类型不一致则返回 null
+     */
+    synchronized Object get(String key, Class<?> type) {
+        Entry entry = map.get(key);
+        if (entry == null || !type.isInstance(entry.value)) {
+            missCount++;
+            return null;
+        }
+        if (entry.dueTime != 0 && System.currentTimeMillis() > entry.dueTime) {
+            map.remove(key);
+            release(entry);
+            expiredCount++;
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.value;
+    }
+
+    /**
+     * 获取修改次数 (读取文件前获取, 回填时传入 {@link #putIfUnmodified})
+     * @return 修改次数
+     */
+    synchronized long modCount() {
+        return modCount;
+    }
+
+    /**
+     * 保存数据 (写入提交后调用)
+     * @param key
+     * @param file 缓存文件
+     * @param value String、byte[]
+     * @param dueTime 过期时间 (0 表示永久)
+     */
+    synchronized void put(String key, File file, Object value, long dueTime) {
+        modCount++;
+        store(key, file, value, dueTime);
+    }
+
+    /**
+     * 回填读取文件得到的数据, 读取期间有修改则不保存
+     * @param key
+     * @param file 缓存文件
+     * @param value String、byte[]
+     * @param dueTime 过期时间 (0 表示永久)
+     * @param expectedModCount 读取文件前的修改次数
+     * @return true: 已保存, false: 期间有修改, 未保存
+     */
+    synchronized boolean putIfUnmodified(String key, File file, Object value, long dueTime, long expectedModCount) {
+        if (modCount != expectedModCount) {
+            return false;
+        }
+        store(key, file, value, dueTime);
+        return true;
+    }
+
+    /**
+     * 移除数据
+     * @param key
+     */
+    synchronized void remove(String key) {
+        modCount++;
+        if (key != null) {
+            Entry previous = map.remove(key);
+            if (previous != null) {
+                release(previous);
+            }
+        }
+    }
+
+    /**
+     * 移除缓存文件对应的数据 (磁盘文件被淘汰、过期清理)
+     * @param file 缓存文件
+     */
+    synchronized void removeFile(File file) {
+        modCount++;
+        String key = fileKeys.remove(file);
+        if (key != null) {
+            Entry previous = map.remove(key);
+            if (previous != null) {
+                size -= previous.weight;
+            }
+        }
+    }
+
+    /**
+     * 清空数据
+     */
+    synchronized void clear() {
+        modCount++;
+        map.clear();
+        fileKeys.clear();
+        size = 0;
+    }
+
+    /**
+     * 保存数据
+     * @param key
+     * @param file 缓存文件
+     * @param value String、byte[]
+     * @param dueTime 过期时间 (0 表示永久)
+     */
+    private void store(String key, File file, Object value, long dueTime) {
+        if (key == null || value == null) {
+            return;
+        }
+        long weight = weightOf(key, value);
+        Entry previous = map.remove(key);
+        if (previous != null) {
+            release(previous);
+        }
+        // 单条数据超过限制, 不进行缓存
+        if (weight > maxSize) {
+            return;
+        }
+        putCount++;
+        map.put(key, new Entry(file, value, dueTime, weight));
+        if (file != null) {
+            fileKeys.put(file, key);
+        }
+        size += weight;
+        trimToSize();
+    }
+
+    /**
+     * 释放已从 map 移除的数据
+     * @param entry
+     */
+    private void release(Entry entry) {
+        size -= entry.weight;
+        if (entry.file != null) {
+            fileKeys.remove(entry.file);
+        }
+    }
+
+    /**
+     * 淘汰最久未使用数据, 直到小于大小限制
+     */
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Entry>> iterator = map.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            iterator.remove();
+            release(entry);
+            evictionCount++;
+        }
+    }
+
+    /**
+     * 计算数据占用大小
+     * @param key
+     * @param value
+     * @return 占用大小
+     */
+    private static long weightOf(String key, Object value) {
+        long weight = ENTRY_OVERHEAD + key.length() * 2;
+        if (value instanceof byte[]) {
+            weight += ((byte[]) value).length;
+        } else if (value instanceof String) {
+            weight += ((String) value).length() * 2;
+        }
+        return weight;
+    }
+
+    // =
+
+    /**
+     * 获取当前占用大小
+     * @return 当前占用大小
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * 获取大小限制
+     * @return 大小限制
+     */
+    public long maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 获取命中次数
+     * @return 命中次数
+     */
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * 获取未命中次数
+     * @return 未命中次数
+     */
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    /**
+     * 获取保存次数
+     * @return 保存次数
+     */
+    public synchronized long putCount() {
+        return putCount;
+    }
+
+    /**
+     * 获取淘汰次数
+     * @return 超过大小限制而淘汰的次数
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 获取过期次数
+     * @return 读取时发现过期而移除的次数
+     */
+    public synchronized long expiredCount() {
+        return expiredCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (int) (100 * hitCount / accesses) : 0;
+        return "DevMemoryCache[size=" + size + ",maxSize=" + maxSize + ",hits=" + hitCount + ",misses=" + missCount
+                + ",hitRate=" + hitPercent + "%,evictions=" + evictionCount + ",expired=" + expiredCount + "]";
+    }
+}
@@ -1,5 +1,7 @@
 package cn.com.lbt.lbtlibrary.utils.app.logger;
 
+import android.util.Log;
+
 /**
  * detail: 日志操作类(对外公开直接调用)
  * Created by Ttt
@@ -47,6 +49,50 @@ public final class DevLogger {
 		printer.init(lConfig);
 	}
 
+	/**
+	 * 设置日志文件输出(打印的日志同时写入文件)
+	 * @param fileSink 日志文件输出, null 则不写入文件
+	 */
+	public static void setFileSink(LogFileSink fileSink) {
+		printer.setFileSink(fileSink);
+	}
+
+	/**
+	 * 获取日志文件输出
+	 * @return
+	 */
+	public static LogFileSink getFileSink() {
+		return printer.getFileSink();
+	}
+
+	/**
+	 * 判断是否打印日志(使用配置的Tag)
+	 * @param logType 日志类型(Log.DEBUG 等)
+	 * @return
+	 */
+	public static boolean isLoggable(int logType) {
+		return printer.isLoggable(logType, null);
+	}
+
+	/**
+	 * 判断是否打印日志(不需要格式化日志, 可在拼接参数前调用)
+	 * @param logType 日志类型(Log.DEBUG 等)
+	 * @param tag 日志Tag
+	 * @return
+	 */
+	public static boolean isLoggable(int logType, String tag) {
+		return printer.isLoggable(logType, tag);
+	}
+
+	/**
+	 * 单独设置 Tag 日志级别
+	 * @param tag 日志Tag
+	 * @param lLevel 日志级别, null 则使用配置的日志级别
+	 */
+	public static void setTagLogLevel(String tag, LogLevel lLevel) {
+		printer.setTagLogLevel(tag, lLevel);
+	}
+
 	// ========= 使用默认TAG =========
 
 	// -- 日志打印方法 --
@@ -56,7 +102,65 @@ public final class DevLogger {
 	 * @param args
 	 */
 	public static void d(String message, Object... args) {
-		printer.d(message, args);
+		if (printer.isLoggable(Log.DEBUG, null)) {
+			printer.d(message, args);
+		}
+	}
+
+	/**
+	 * 打印 Log.DEBUG
+	 * @param message
+	 */
+	public static void d(String message) {
+		if (printer.isLoggable(Log.DEBUG, null)) {
+			printer.d(message);
+		}
+	}
+
+	/**
+	 * 打印 Log.DEBUG
+	 * @param message
+	 * @param arg1
+	 */
+	public static void d(String message, Object arg1) {
+		if (printer.isLoggable(Log.DEBUG, null)) {
+			printer.d(message, arg1);
+		}
+	}
+
+	/**
+	 * 打印 Log.DEBUG
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 */
+	public static void d(String message, Object arg1, Object arg2) {
+		if (printer.isLoggable(Log.DEBUG, null)) {
+			printer.d(message, arg1, arg2);
+		}
+	}
+
+	/**
+	 * 打印 Log.DEBUG
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 * @param arg3
+	 */
+	public static void d(String message, Object arg1, Object arg2, Object arg3) {
+		if (printer.isLoggable(Log.DEBUG, null)) {
+			printer.d(message, arg1, arg2, arg3);
+		}
+	}
+
+	/**
+	 * 打印 Log.DEBUG(日志级别允许输出时才获取日志内容)
+	 * @param supplier
+	 */
+	public static void dLazy(LogSupplier supplier) {
+		if (supplier != null && printer.isLoggable(Log.DEBUG, null)) {
+			printer.d(supplier.get());
+		}
 	}
 
 	/**
@@ -65,7 +169,9 @@ public final class DevLogger {
 	 * @param args
 	 */
 	public static void e(String message, Object... args) {
-		printer.e(message, args);
+		if (printer.isLoggable(Log.ERROR, null)) {
+			printer.e(message, args);
+		}
 	}
 
 	/**
@@ -73,7 +179,9 @@ public final class DevLogger {
 	 * @param throwable
 	 */
 	public static void e(Throwable throwable) {
-		printer.e(throwable, null);
+		if (printer.isLoggable(Log.ERROR, null)) {
+			printer.e(throwable, null);
+		}
 	}
 
 	/**
@@ -83,7 +191,9 @@ public final class DevLogger {
 	 * @param args
 	 */
 	public static void e(Throwable throwable, String message, Object... args) {
-		printer.e(throwable, message, args);
+		if (printer.isLoggable(Log.ERROR, null)) {
+			printer.e(throwable, message, args);
+		}
 	}
 
 	/**
@@ -92,7 +202,65 @@ public final class DevLogger {
 	 * @param args
 	 */
 	public static void w(String message, Object... args) {
-		printer.w(message, args);
+		if (printer.isLoggable(Log.WARN, null)) {
+			printer.w(message, args);
+		}
+	}
+
+	/**
+	 * 打印 Log.WARN
+	 * @param message
+	 */
+	public static void w(String message) {
+		if (printer.isLoggable(Log.WARN, null)) {
+			printer.w(message);
+		}
+	}
+
+	/**
+	 * 打印 Log.WARN
+	 * @param message
+	 * @param arg1
+	 */
+	public static void w(String message, Object arg1) {
+		if (printer.isLoggable(Log.WARN, null)) {
+			printer.w(message, arg1);
+		}
+	}
+
+	/**
+	 * 打印 Log.WARN
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 */
+	public static void w(String message, Object arg1, Object arg2) {
+		if (printer.isLoggable(Log.WARN, null)) {
+			printer.w(message, arg1, arg2);
+		}
+	}
+
+	/**
+	 * 打印 Log.WARN
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 * @param arg3
+	 */
+	public static void w(String message, Object arg1, Object arg2, Object arg3) {
+		if (printer.isLoggable(Log.WARN, null)) {
+			printer.w(message, arg1, arg2, arg3);
+		}
+	}
+
+	/**
+	 * 打印 Log.WARN(日志级别允许输出时才获取日志内容)
+	 * @param supplier
+	 */
+	public static void wLazy(LogSupplier supplier) {
+		if (supplier != null && printer.isLoggable(Log.WARN, null)) {
+			printer.w(supplier.get());
+		}
 	}
 
 	/**
@@ -101,7 +269,65 @@ public final class DevLogger {
 	 * @param args
 	 */
 	public static void i(String message, Object... args) {
-		printer.i(message, args);
+		if (printer.isLoggable(Log.INFO, null)) {
+			printer.i(message, args);
+		}
+	}
+
+	/**
+	 * 打印 Log.INFO
+	 * @param message
+	 */
+	public static void i(String message) {
+		if (printer.isLoggable(Log.INFO, null)) {
+			printer.i(message);
+		}
+	}
+
+	/**
+	 * 打印 Log.INFO
+	 * @param message
+	 * @param arg1
+	 */
+	public static void i(String message, Object arg1) {
+		if (printer.isLoggable(Log.INFO, null)) {
+			printer.i(message, arg1);
+		}
+	}
+
+	/**
+	 * 打印 Log.INFO
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 */
+	public static void i(String message, Object arg1, Object arg2) {
+		if (printer.isLoggable(Log.INFO, null)) {
+			printer.i(message, arg1, arg2);
+		}
+	}
+
+	/**
+	 * 打印 Log.INFO
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 * @param arg3
+	 */
+	public static void i(String message, Object arg1, Object arg2, Object arg3) {
+		if (printer.isLoggable(Log.INFO, null)) {
+			printer.i(message, arg1, arg2, arg3);
+		}
+	}
+
+	/**
+	 * 打印 Log.INFO(日志级别允许输出时才获取日志内容)
+	 * @param supplier
+	 */
+	public static void iLazy(LogSupplier supplier) {
+		if (supplier != null && printer.isLoggable(Log.INFO, null)) {
+			printer.i(supplier.get());
+		}
 	}
 
 	/**
@@ -110,7 +336,65 @@ public final class DevLogger {
 	 * @param args
 	 */
 	public static void v(String message, Object... args) {
-		printer.v(message, args);
+		if (printer.isLoggable(Log.VERBOSE, null)) {
+			printer.v(message, args);
+		}
+	}
+
+	/**
+	 * 打印 Log.VERBOSE
+	 * @param message
+	 */
+	public static void v(String message) {
+		if (printer.isLoggable(Log.VERBOSE, null)) {
+			printer.v(message);
+		}
+	}
+
+	/**
+	 * 打印 Log.VERBOSE
+	 * @param message
+	 * @param arg1
+	 */
+	public static void v(String message, Object arg1) {
+		if (printer.isLoggable(Log.VERBOSE, null)) {
+			printer.v(message, arg1);
+		}
+	}
+
+	/**
+	 * 打印 Log.VERBOSE
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 */
+	public static void v(String message, Object arg1, Object arg2) {
+		if (printer.isLoggable(Log.VERBOSE, null)) {
+			printer.v(message, arg1, arg2);
+		}
+	}
+
+	/**
+	 * 打印 Log.VERBOSE
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 * @param arg3
+	 */
+	public static void v(String message, Object arg1, Object arg2, Object arg3) {
+		if (printer.isLoggable(Log.VERBOSE, null)) {
+			printer.v(message, arg1, arg2, arg3);
+		}
+	}
+
+	/**
+	 * 打印 Log.VERBOSE(日志级别允许输出时才获取日志内容)
+	 * @param supplier
+	 */
+	public static void vLazy(LogSupplier supplier) {
+		if (supplier != null && printer.isLoggable(Log.VERBOSE, null)) {
+			printer.v(supplier.get());
+		}
 	}
 
 	/**
@@ -119,7 +403,9 @@ public final class DevLogger {
 	 * @param args
 	 */
 	public static void wtf(String message, Object... args) {
-		printer.wtf(message, args);
+		if (printer.isLoggable(Log.ASSERT, null)) {
+			printer.wtf(message, args);
+		}
 	}
 	
 	// -- 其他特殊方法 --
@@ -151,7 +437,70 @@ public final class DevLogger {
 	 * @param args
 	 */
 	public static void dTag(String tag, String message, Object... args) {
-		printer.dTag(tag, message, args);
+		if (printer.isLoggable(Log.DEBUG, tag)) {
+			printer.dTag(tag, message, args);
+		}
+	}
+
+	/**
+	 * 打印 Log.DEBUG
+	 * @param tag
+	 * @param message
+	 */
+	public static void dTag(String tag, String message) {
+		if (printer.isLoggable(Log.DEBUG, tag)) {
+			printer.dTag(tag, message);
+		}
+	}
+
+	/**
+	 * 打印 Log.DEBUG
+	 * @param tag
+	 * @param message
+	 * @param arg1
+	 */
+	public static void dTag(String tag, String message, Object arg1) {
+		if (printer.isLoggable(Log.DEBUG, tag)) {
+			printer.dTag(tag, message, arg1);
+		}
+	}
+
+	/**
+	 * 打印 Log.DEBUG
+	 * @param tag
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 */
+	public static void dTag(String tag, String message, Object arg1, Object arg2) {
+		if (printer.isLoggable(Log.DEBUG, tag)) {
+			printer.dTag(tag, message, arg1, arg2);
+		}
+	}
+
+	/**
+	 * 打印 Log.DEBUG
+	 * @param tag
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 * @param arg3
+	 */
+	public static void dTag(String tag, String message, Object arg1, Object arg2, Object arg3) {
+		if (printer.isLoggable(Log.DEBUG, tag)) {
+			printer.dTag(tag, message, arg1, arg2, arg3);
+		}
+	}
+
+	/**
+	 * 打印 Log.DEBUG(日志级别允许输出时才获取日志内容)
+	 * @param tag
+	 * @param supplier
+	 */
+	public static void dTagLazy(String tag, LogSupplier supplier) {
+		if (supplier != null && printer.isLoggable(Log.DEBUG, tag)) {
+			printer.dTag(tag, supplier.get());
+		}
 	}
 
 	/**
@@ -161,7 +510,9 @@ public final class DevLogger {
 	 * @param args
 	 */
 	public static void eTag(String tag, String message, Object... args) {
-		printer.eTag(tag, message, args);
+		if (printer.isLoggable(Log.ERROR, tag)) {
+			printer.eTag(tag, message, args);
+		}
 	}
 
 	/**
@@ -172,7 +523,9 @@ public final class DevLogger {
 	 * @param args
 	 */
 	public static void eTag(String tag, Throwable throwable, String message, Object... args) {
-		printer.eTag(tag, throwable, message, args);
+		if (printer.isLoggable(Log.ERROR, tag)) {
+			printer.eTag(tag, throwable, message, args);
+		}
 	}
 
 	/**
@@ -181,7 +534,9 @@ public final class DevLogger {
 	 * @param throwable
 	 */
 	public static void eTag(String tag, Throwable throwable) {
-		printer.eTag(tag, throwable, null);
+		if (printer.isLoggable(Log.ERROR, tag)) {
+			printer.eTag(tag, throwable, null);
+		}
 	}
 
 	/**
@@ -191,7 +546,70 @@ public final class DevLogger {
 	 * @param args
 	 */
 	public static void wTag(String tag, String message, Object... args) {
-		printer.wTag(tag, message, args);
+		if (printer.isLoggable(Log.WARN, tag)) {
+			printer.wTag(tag, message, args);
+		}
+	}
+
+	/**
+	 * 打印 Log.WARN
+	 * @param tag
+	 * @param message
+	 */
+	public static void wTag(String tag, String message) {
+		if (printer.isLoggable(Log.WARN, tag)) {
+			printer.wTag(tag, message);
+		}
+	}
+
+	/**
+	 * 打印 Log.WARN
+	 * @param tag
+	 * @param message
+	 * @param arg1
+	 */
+	public static void wTag(String tag, String message, Object arg1) {
+		if (printer.isLoggable(Log.WARN, tag)) {
+			printer.wTag(tag, message, arg1);
+		}
+	}
+
+	/**
+	 * 打印 Log.WARN
+	 * @param tag
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 */
+	public static void wTag(String tag, String message, Object arg1, Object arg2) {
+		if (printer.isLoggable(Log.WARN, tag)) {
+			printer.wTag(tag, message, arg1, arg2);
+		}
+	}
+
+	/**
+	 * 打印 Log.WARN
+	 * @param tag
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 * @param arg3
+	 */
+	public static void wTag(String tag, String message, Object arg1, Object arg2, Object arg3) {
+		if (printer.isLoggable(Log.WARN, tag)) {
+			printer.wTag(tag, message, arg1, arg2, arg3);
+		}
+	}
+
+	/**
+	 * 打印 Log.WARN(日志级别允许输出时才获取日志内容)
+	 * @param tag
+	 * @param supplier
+	 */
+	public static void wTagLazy(String tag, LogSupplier supplier) {
+		if (supplier != null && printer.isLoggable(Log.WARN, tag)) {
+			printer.wTag(tag, supplier.get());
+		}
 	}
 
 	/**
@@ -201,7 +619,70 @@ public final class DevLogger {
 	 * @param args
 	 */
 	public static void iTag(String tag, String message, Object... args) {
-		printer.iTag(tag, message, args);
+		if (printer.isLoggable(Log.INFO, tag)) {
+			printer.iTag(tag, message, args);
+		}
+	}
+
+	/**
+	 * 打印 Log.INFO
+	 * @param tag
+	 * @param message
+	 */
+	public static void iTag(String tag, String message) {
+		if (printer.isLoggable(Log.INFO, tag)) {
+			printer.iTag(tag, message);
+		}
+	}
+
+	/**
+	 * 打印 Log.INFO
+	 * @param tag
+	 * @param message
+	 * @param arg1
+	 */
+	public static void iTag(String tag, String message, Object arg1) {
+		if (printer.isLoggable(Log.INFO, tag)) {
+			printer.iTag(tag, message, arg1);
+		}
+	}
+
+	/**
+	 * 打印 Log.INFO
+	 * @param tag
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 */
+	public static void iTag(String tag, String message, Object arg1, Object arg2) {
+		if (printer.isLoggable(Log.INFO, tag)) {
+			printer.iTag(tag, message, arg1, arg2);
+		}
+	}
+
+	/**
+	 * 打印 Log.INFO
+	 * @param tag
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 * @param arg3
+	 */
+	public static void iTag(String tag, String message, Object arg1, Object arg2, Object arg3) {
+		if (printer.isLoggable(Log.INFO, tag)) {
+			printer.iTag(tag, message, arg1, arg2, arg3);
+		}
+	}
+
+	/**
+	 * 打印 Log.INFO(日志级别允许输出时才获取日志内容)
+	 * @param tag
+	 * @param supplier
+	 */
+	public static void iTagLazy(String tag, LogSupplier supplier) {
+		if (supplier != null && printer.isLoggable(Log.INFO, tag)) {
+			printer.iTag(tag, supplier.get());
+		}
 	}
 
 	/**
@@ -211,7 +692,70 @@ public final class DevLogger {
 	 * @param args
 	 */
 	public static void vTag(String tag, String message, Object... args) {
-		printer.vTag(tag, message, args);
+		if (printer.isLoggable(Log.VERBOSE, tag)) {
+			printer.vTag(tag, message, args);
+		}
+	}
+
+	/**
+	 * 打印 Log.VERBOSE
+	 * @param tag
+	 * @param message
+	 */
+	public static void vTag(String tag, String message) {
+		if (printer.isLoggable(Log.VERBOSE, tag)) {
+			printer.vTag(tag, message);
+		}
+	}
+
+	/**
+	 * 打印 Log.VERBOSE
+	 * @param tag
+	 * @param message
+	 * @param arg1
+	 */
+	public static void vTag(String tag, String message, Object arg1) {
+		if (printer.isLoggable(Log.VERBOSE, tag)) {
+			printer.vTag(tag, message, arg1);
+		}
+	}
+
+	/**
+	 * 打印 Log.VERBOSE
+	 * @param tag
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 */
+	public static void vTag(String tag, String message, Object arg1, Object arg2) {
+		if (printer.isLoggable(Log.VERBOSE, tag)) {
+			printer.vTag(tag, message, arg1, arg2);
+		}
+	}
+
+	/**
+	 * 打印 Log.VERBOSE
+	 * @param tag
+	 * @param message
+	 * @param arg1
+	 * @param arg2
+	 * @param arg3
+	 */
+	public static void vTag(String tag, String message, Object arg1, Object arg2, Object arg3) {
+		if (printer.isLoggable(Log.VERBOSE, tag)) {
+			printer.vTag(tag, message, arg1, arg2, arg3);
+		}
+	}
+
+	/**
+	 * 打印 Log.VERBOSE(日志级别允许输出时才获取日志内容)
+	 * @param tag
+	 * @param supplier
+	 */
+	public static void vTagLazy(String tag, LogSupplier supplier) {
+		if (supplier != null && printer.isLoggable(Log.VERBOSE, tag)) {
+			printer.vTag(tag, supplier.get());
+		}
 	}
 
 	/**
@@ -221,7 +765,9 @@ public final class DevLogger {
 	 * @param args
 	 */
 	public static void wtfTag(String tag, String message, Object... args) {
-		printer.wtfTag(tag, message, args);
+		if (printer.isLoggable(Log.ASSERT, tag)) {
+			printer.wtfTag(tag, message, args);
+		}
 	}
 	
 	// -- 其他特殊方法 --
@@ -35,6 +35,33 @@ public interface IPrinter {
 	 */
 	void init(LogConfig lConfig);
 
+	/**
+	 * 设置日志文件输出(打印的日志同时写入文件)
+	 * @param fileSink 日志文件输出, null 则不写入文件
+	 */
+	void setFileSink(LogFileSink fileSink);
+
+	/**
+	 * 获取日志文件输出
+	 * @return 日志文件输出
+	 */
+	LogFileSink getFileSink();
+
+	/**
+	 * 判断是否打印日志(不需要格式化日志, 可在拼接参数前调用)
+	 * @param logType 日志类型(Log.DEBUG 等)
+	 * @param tag 日志Tag(null 则使用配置的Tag)
+	 * @return
+	 */
+	boolean isLoggable(int logType, String tag);
+
+	/**
+	 * 单独设置 Tag 日志级别
+	 * @param tag 日志Tag
+	 * @param lLevel 日志级别, null 则使用配置的日志级别
+	 */
+	void setTagLogLevel(String tag, LogLevel lLevel);
+
 	// ========= 使用默认TAG =========
 	
 	// -- 日志打印方法 --
@@ -0,0 +1,298 @@
+package cn.com.lbt.lbtlibrary.utils.app.logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import cn.com.lbt.lbtlibrary.utils.LogPrintUtils;
+
+/**
+ * detail: 二进制日志解码(转换为排版后的文本日志)
+ * Created by Ttt
+ * ---
+ * hint:
+ * 用于读取 {@link LogFileSink#setBinary(boolean)} 写入的文件 (支持压缩后的 .gz 文件)
+ * 输出格式与文本文件一致: 时间 级别/Tag: 日志边框、线程信息、日志内容
+ * 文件末尾不完整的记录(如进程被杀死时)会被忽略
+ */
+public final class LogBinaryDecoder {
+
+	private LogBinaryDecoder() {
+	}
+
+	// 日志TAG
+	private static final String TAG = LogBinaryDecoder.class.getSimpleName();
+
+	/** 日志级别字符(下标为 Log 类型) */
+	private static final char[] LEVEL_CHARS = {'?', '?', 'V', 'D', 'I', 'W', 'E', 'A'};
+
+	/**
+	 * 解码文件
+	 * @param file 二进制日志文件(.gz 则先解压)
+	 * @param outFile 输出的文本文件
+	 * @return 解码的日志条数, 失败则返回 -1
+	 */
+	public static int decode(File file, File outFile) {
+		if (file == null || !file.isFile() || outFile == null) {
+			return -1;
+		}
+		InputStream is = null;
+		Writer writer = null;
+		try {
+			is = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+			if (file.getName().endsWith(".gz")) {
+				is = new GZIPInputStream(is, 64 * 1024);
+			}
+			File parent = outFile.getParentFile();
+			if (parent != null && !parent.exists()) {
+				parent.mkdirs();
+			}
+			writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outFile), "UTF-8"), 64 * 1024);
+			int count = decode(is, writer);
+			writer.flush();
+			return count;
+		} catch (Exception e) {
+			LogPrintUtils.eTag(TAG, e, "decode");
+		} finally {
+			closeQuietly(is);
+			closeQuietly(writer);
+		}
+		return -1;
+	}
+
+	/**
+	 * 解码数据
+	 * @param is 二进制日志数据
+	 * @param out 输出
+	 * @return 解码的日志条数
+	 * @throws IOException 不是二进制日志格式、读取或输出失败
+	 */
+	public static int decode(InputStream is, Appendable out) throws IOException {
+		// 校验文件头
+		byte[] magic = new byte[LogBinaryEncoder.MAGIC.length];
+		for (int i = 0; i < magic.length; i++) {
+			magic[i] = (byte) is.read();
+		}
+		// 旧版本 Tag、线程名不写入字符串
+		boolean v1 = Arrays.equals(magic, LogBinaryEncoder.MAGIC_V1);
+		if (!v1 && !Arrays.equals(magic, LogBinaryEncoder.MAGIC)) {
+			throw new IOException("not a binary log");
+		}
+		long time = readVarLong(is);
+		// 字符串定义 (下标为 id)
+		List<String> strings = new ArrayList<>();
+		strings.add(null);
+		SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+		StringBuilder message = new StringBuilder();
+		StringBuilder output = new StringBuilder();
+		int count = 0;
+		try {
+			int type;
+			while ((type = is.read()) != -1) {
+				if (type == LogBinaryEncoder.RECORD_STRING) {
+					int id = (int) readVarLong(is);
+					String str = readString(is);
+					while (strings.size() <= id) {
+						strings.add(null);
+					}
+					strings.set(id, str);
+				} else if (type == LogBinaryEncoder.RECORD_LOG) {
+					time += unzigzag(readVarLong(is));
+					int logType = readByte(is);
+					int tagId = (int) readVarLong(is);
+					String tag = (tagId == 0 && !v1) ? readString(is) : strings.get(tagId);
+					int threadId = (int) readVarLong(is);
+					String thread = (threadId == 0 && !v1) ? readString(is) : strings.get(threadId);
+					int formatId = (int) readVarLong(is);
+					String format = (formatId == 0) ? readString(is) : strings.get(formatId);
+					int argCount = (int) readVarLong(is);
+					Object[] args = new Object[argCount];
+					for (int i = 0; i < argCount; i++) {
+						args[i] = readArg(is);
+					}
+					// 格式化日志
+					message.setLength(0);
+					if (!LogFormatter.format(message, format, args)) {
+						// 格式化失败, 输出格式字符串与参数
+						message.append(format).append(' ').append(Arrays.toString(args));
+					}
+					output.setLength(0);
+					output.append(dateFormat.format(new Date(time))).append(' ');
+					output.append(logType >= 0 && logType < LEVEL_CHARS.length ? LEVEL_CHARS[logType] : 'A');
+					output.append('/').append(tag).append(": ");
+					appendPretty(output, thread, message);
+					out.append(output);
+					count++;
+				} else {
+					throw new IOException("unknown record type: " + type);
+				}
+			}
+		} catch (EOFException e) {
+			// 不完整的记录, 忽略
+		}
+		return count;
+	}
+
+	// =
+
+	/**
+	 * 拼接排版后的日志
+	 * @param output 拼接的对象
+	 * @param thread 线程名
+	 * @param message 日志内容
+	 */
+	private static void appendPretty(StringBuilder output, String thread, CharSequence message) {
+		output.append(LogConstants.TOP_BORDER).append('\n');
+		if (thread != null) {
+			output.append(LogConstants.HORIZONTAL_DOUBLE_LINE).append(" Thread: ").append(thread).append('\n');
+			output.append(LogConstants.MIDDLE_BORDER).append('\n');
+		}
+		int start = 0;
+		int length = message.length();
+		// 忽略结尾的换行
+		while (length > 0 && (message.charAt(length - 1) == '\n' || message.charAt(length - 1) == '\r')) {
+			length--;
+		}
+		for (int i = 0; i <= length; i++) {
+			if (i == length || message.charAt(i) == '\n') {
+				output.append(LogConstants.HORIZONTAL_DOUBLE_LINE).append(' ').append(message, start, i).append('\n');
+				start = i + 1;
+			}
+		}
+		output.append(LogConstants.BOTTOM_BORDER).append('\n');
+	}
+
+	/**
+	 * 读取参数
+	 * @param is 输入流
+	 * @return 参数
+	 * @throws IOException
+	 */
+	private static Object readArg(InputStream is) throws IOException {
+		int type = readByte(is);
+		switch (type) {
+			case LogBinaryEncoder.ARG_NULL:
+				return null;
+			case LogBinaryEncoder.ARG_INT:
+				return (int) unzigzag(readVarLong(is));
+			case LogBinaryEncoder.ARG_LONG:
+				return unzigzag(readVarLong(is));
+			case LogBinaryEncoder.ARG_TRUE:
+				return Boolean.TRUE;
+			case LogBinaryEncoder.ARG_FALSE:
+				return Boolean.FALSE;
+			case LogBinaryEncoder.ARG_DOUBLE:
+				return Double.longBitsToDouble(readFixed(is, 8));
+			case LogBinaryEncoder.ARG_FLOAT:
+				return Float.intBitsToFloat((int) readFixed(is, 4));
+			case LogBinaryEncoder.ARG_CHAR:
+				return (char) readVarLong(is);
+			case LogBinaryEncoder.ARG_STRING:
+				return readString(is);
+			default:
+				throw new IOException("unknown argument type: " + type);
+		}
+	}
+
+	/**
+	 * 读取字符串(长度 + UTF-8)
+	 * @param is 输入流
+	 * @return
+	 * @throws IOException
+	 */
+	private static String readString(InputStream is) throws IOException {
+		int length = (int) readVarLong(is);
+		byte[] bytes = new byte[length];
+		int offset = 0;
+		while (offset < length) {
+			int len = is.read(bytes, offset, length - offset);
+			if (len < 0) {
+				throw new EOFException();
+			}
+			offset += len;
+		}
+		return new String(bytes, "UTF-8");
+	}
+
+	/**
+	 * 读取 varint
+	 * @param is 输入流
+	 * @return
+	 * @throws IOException
+	 */
+	private static long readVarLong(InputStream is) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = readByte(is);
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("malformed varint");
+	}
+
+	/**
+	 * 读取固定长度数值(小端)
+	 * @param is 输入流
+	 * @param bytes 字节数
+	 * @return
+	 * @throws IOException
+	 */
+	private static long readFixed(InputStream is, int bytes) throws IOException {
+		long value = 0;
+		for (int i = 0; i < bytes; i++) {
+			value |= (long) readByte(is) << (i * 8);
+		}
+		return value;
+	}
+
+	/**
+	 * 读取一个字节
+	 * @param is 输入流
+	 * @return
+	 * @throws IOException 已读取到末尾
+	 */
+	private static int readByte(InputStream is) throws IOException {
+		int b = is.read();
+		if (b < 0) {
+			throw new EOFException();
+		}
+		return b;
+	}
+
+	/**
+	 * zigzag 解码
+	 * @param value 数值
+	 * @return
+	 */
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * 关闭流
+	 * @param closeable
+	 */
+	private static void closeQuietly(java.io.Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException ignore) {
+			}
+		}
+	}
+}
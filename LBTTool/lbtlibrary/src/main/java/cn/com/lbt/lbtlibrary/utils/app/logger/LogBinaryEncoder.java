@@ -0,0 +1,272 @@
+package cn.com.lbt.lbtlibrary.utils.app.logger;
+
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+
+/**
+ * detail: 日志二进制编码(写入线程使用, 非线程安全)
+ * Created by Ttt
+ * ---
+ * hint:
+ * 文件格式: 文件头 MAGIC + 开始时间(varint), 之后为记录
+ * 字符串定义: RECORD_STRING + id(varint) + 长度(varint) + UTF-8, Tag、线程名、格式字符串首次出现时定义, 之后只写入 id
+ * 日志: RECORD_LOG + 时间差(zigzag varint) + 日志类型 + Tag id + 线程名 id + 格式 id + 参数数量 + 参数
+ * id 为 0 (超过字符串最多定义数量、不定义) 则后面为字符串, 线程名等数量不固定时也可以解码
+ * 参数按类型写入原始值 (数字使用 zigzag varint), 格式化在解码时进行, 见 {@link LogBinaryDecoder}
+ */
+final class LogBinaryEncoder {
+
+	/** 文件头 */
+	static final byte[] MAGIC = {'D', 'L', 'B', '2'};
+
+	/** 旧版本文件头 (Tag、线程名 id 为 0 表示 null) */
+	static final byte[] MAGIC_V1 = {'D', 'L', 'B', '1'};
+
+	/** 记录类型 - 字符串定义 */
+	static final int RECORD_STRING = 1;
+	/** 记录类型 - 日志 */
+	static final int RECORD_LOG = 2;
+
+	/** 参数类型 - null */
+	static final int ARG_NULL = 0;
+	/** 参数类型 - int (包含 byte、short) */
+	static final int ARG_INT = 1;
+	/** 参数类型 - long */
+	static final int ARG_LONG = 2;
+	/** 参数类型 - true */
+	static final int ARG_TRUE = 3;
+	/** 参数类型 - false */
+	static final int ARG_FALSE = 4;
+	/** 参数类型 - double */
+	static final int ARG_DOUBLE = 5;
+	/** 参数类型 - float */
+	static final int ARG_FLOAT = 6;
+	/** 参数类型 - 字符串 */
+	static final int ARG_STRING = 7;
+	/** 参数类型 - char */
+	static final int ARG_CHAR = 8;
+
+	/** 字符串最多定义数量(超过则直接写入字符串, 避免动态拼接的内容占用内存) */
+	private static final int MAX_STRINGS = 4096;
+
+	/** 编码数据最大保留大小 */
+	private static final int MAX_RETAIN_SIZE = 64 * 1024;
+
+	/** 已定义的字符串 */
+	private final HashMap<String, Integer> strings = new HashMap<>();
+
+	/** 编码数据 */
+	private byte[] data = new byte[256];
+
+	/** 编码数据长度 */
+	private int size;
+
+	/** 上一条日志时间 */
+	private long lastTime;
+
+	/**
+	 * 开始新文件(清空字符串定义, 写入文件头)
+	 * @param time 开始时间
+	 */
+	void reset(long time) {
+		strings.clear();
+		lastTime = time;
+		for (byte b : MAGIC) {
+			writeByte(b);
+		}
+		writeVarLong(time);
+	}
+
+	/**
+	 * 编码一条日志
+	 * @param time 打印时间
+	 * @param logType 日志类型
+	 * @param tag 日志Tag
+	 * @param thread 线程名
+	 * @param format 打印信息(格式字符串)
+	 * @param args 参数
+	 */
+	void encode(long time, int logType, String tag, String thread, String format, Object[] args) {
+		int argCount = (args == null) ? 0 : args.length;
+		// 有参数时打印信息为固定的格式字符串, 进行定义
+		int tagId = define(tag, true);
+		int threadId = define(thread, true);
+		int formatId = define(format, argCount != 0);
+		writeByte(RECORD_LOG);
+		writeVarLong(zigzag(time - lastTime));
+		lastTime = time;
+		writeByte(logType);
+		writeVarLong(tagId);
+		if (tagId == 0) {
+			writeString(tag);
+		}
+		writeVarLong(threadId);
+		if (threadId == 0) {
+			writeString(thread);
+		}
+		writeVarLong(formatId);
+		if (formatId == 0) {
+			writeString(format);
+		}
+		writeVarLong(argCount);
+		for (int i = 0; i < argCount; i++) {
+			writeArg(args[i]);
+		}
+	}
+
+	/**
+	 * 获取编码数据
+	 * @return
+	 */
+	byte[] getData() {
+		return data;
+	}
+
+	/**
+	 * 获取编码数据长度
+	 * @return
+	 */
+	int getSize() {
+		return size;
+	}
+
+	/**
+	 * 清空编码数据(不清空字符串定义)
+	 */
+	void clear() {
+		size = 0;
+		// 超长日志后不保留大数组
+		if (data.length > MAX_RETAIN_SIZE) {
+			data = new byte[256];
+		}
+	}
+
+	// =
+
+	/**
+	 * 获取字符串 id, 首次出现则写入定义
+	 * @param str 字符串
+	 * @param intern 是否定义
+	 * @return 字符串 id, 0 则不定义(直接写入字符串)
+	 */
+	private int define(String str, boolean intern) {
+		if (!intern || str == null) {
+			return 0;
+		}
+		Integer id = strings.get(str);
+		if (id != null) {
+			return id;
+		}
+		if (strings.size() >= MAX_STRINGS) {
+			return 0;
+		}
+		int newId = strings.size() + 1;
+		strings.put(str, newId);
+		writeByte(RECORD_STRING);
+		writeVarLong(newId);
+		writeString(str);
+		return newId;
+	}
+
+	/**
+	 * 写入参数(不可变类型写入原始值, 其他类型写入字符串)
+	 * @param arg 参数
+	 */
+	private void writeArg(Object arg) {
+		if (arg == null) {
+			writeByte(ARG_NULL);
+		} else if (arg instanceof Integer || arg instanceof Short || arg instanceof Byte) {
+			writeByte(ARG_INT);
+			writeVarLong(zigzag(((Number) arg).intValue()));
+		} else if (arg instanceof Long) {
+			writeByte(ARG_LONG);
+			writeVarLong(zigzag((Long) arg));
+		} else if (arg instanceof Boolean) {
+			writeByte((Boolean) arg ? ARG_TRUE : ARG_FALSE);
+		} else if (arg instanceof Double) {
+			writeByte(ARG_DOUBLE);
+			writeFixed(Double.doubleToRawLongBits((Double) arg), 8);
+		} else if (arg instanceof Float) {
+			writeByte(ARG_FLOAT);
+			writeFixed(Float.floatToRawIntBits((Float) arg), 4);
+		} else if (arg instanceof Character) {
+			writeByte(ARG_CHAR);
+			writeVarLong((Character) arg);
+		} else {
+			writeByte(ARG_STRING);
+			writeString(String.valueOf(arg));
+		}
+	}
+
+	/**
+	 * 写入字符串(长度 + UTF-8)
+	 * @param str 字符串
+	 */
+	private void writeString(String str) {
+		byte[] bytes;
+		try {
+			bytes = (str == null ? "null" : str).getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			bytes = new byte[0];
+		}
+		writeVarLong(bytes.length);
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, data, size, bytes.length);
+		size += bytes.length;
+	}
+
+	/**
+	 * 写入 varint (每字节 7 位, 最高位表示后面还有数据)
+	 * @param value 数值(非负, 负数请先 zigzag)
+	 */
+	private void writeVarLong(long value) {
+		ensureCapacity(10);
+		while ((value & ~0x7FL) != 0) {
+			data[size++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		data[size++] = (byte) value;
+	}
+
+	/**
+	 * 写入固定长度数值(小端)
+	 * @param value 数值
+	 * @param bytes 字节数
+	 */
+	private void writeFixed(long value, int bytes) {
+		ensureCapacity(bytes);
+		for (int i = 0; i < bytes; i++) {
+			data[size++] = (byte) (value >>> (i * 8));
+		}
+	}
+
+	/**
+	 * 写入一个字节
+	 * @param value 数值
+	 */
+	private void writeByte(int value) {
+		ensureCapacity(1);
+		data[size++] = (byte) value;
+	}
+
+	/**
+	 * 确保剩余容量
+	 * @param length 需要的长度
+	 */
+	private void ensureCapacity(int length) {
+		if (size + length > data.length) {
+			byte[] newData = new byte[Math.max(data.length * 2, size + length)];
+			System.arraycopy(data, 0, newData, 0, size);
+			data = newData;
+		}
+	}
+
+	/**
+	 * zigzag 编码(负数转为正数, 绝对值小的数字编码后也小)
+	 * @param value 数值
+	 * @return
+	 */
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+}
@@ -42,8 +42,8 @@ final class LogConstants {
 	/** JSON格式内容缩进 */
 	public static final int JSON_INDENT = 4;
 
-	/** 最小堆栈跟踪索引,在本类中启动2次本地调用。 */
-	public static final int MIN_STACK_OFFSET = 3;
+	/** 最小堆栈跟踪索引,堆栈在 LoggerPrinter 中获取,前2个必定为其内部调用。 */
+	public static final int MIN_STACK_OFFSET = 2;
 
 	// =========================
 	// == 绘制日志工具 - 字符 ==
@@ -0,0 +1,871 @@
+package cn.com.lbt.lbtlibrary.utils.app.logger;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import cn.com.lbt.lbtlibrary.utils.LogPrintUtils;
+import cn.com.lbt.lbtlibrary.utils.app.AnalysisRecordUtils;
+
+/**
+ * detail: 日志文件输出(按大小、时间分割文件)
+ * Created by Ttt
+ * ---
+ * hint:
+ * 通过 {@link DevLogger#setFileSink(LogFileSink)} 设置后, 打印的日志同时写入文件
+ * 打印线程只将日志加入有界队列 (队列已满则丢弃), 由写入线程编码到缓冲区, 达到条数或间隔时间后写入 FileChannel
+ * 当前文件为 name.log, 超过大小或时间间隔 (与 {@link AnalysisRecordUtils.FileInfo} 一致, DEFAULT 为按天) 后重命名为 name_yyyyMMdd_HHmmss.log
+ * 分割后的文件可在后台线程压缩为 .gz, 全部文件超过总大小时删除最早的文件
+ * 二进制格式 ({@link #setBinary(boolean)}, 后缀 .blog) 只写入格式字符串 id 与参数原始值, 使用 {@link LogBinaryDecoder} 转换为文本
+ * 配置方法需在设置到 DevLogger 前调用
+ */
+public final class LogFileSink {
+
+	// 日志TAG
+	private static final String TAG = LogFileSink.class.getSimpleName();
+
+	/** 文本文件后缀 */
+	private static final String TEXT_SUFFIX = ".log";
+
+	/** 二进制文件后缀 */
+	private static final String BINARY_SUFFIX = ".blog";
+
+	/** 压缩文件后缀 */
+	private static final String GZIP_SUFFIX = ".gz";
+
+	/** 写入缓冲区大小 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** 压缩缓冲区大小 */
+	private static final int GZIP_BUFFER_SIZE = 32 * 1024;
+
+	/** 日志级别字符(下标为 Log 类型) */
+	private static final char[] LEVEL_CHARS = {'?', '?', 'V', 'D', 'I', 'W', 'E', 'A'};
+
+	/**
+	 * detail: 等待写入的日志
+	 */
+	private static final class Entry {
+		/** 打印时间 */
+		final long time;
+		/** 日志类型 */
+		final int logType;
+		/** 日志Tag */
+		final String tag;
+		/** 日志信息 */
+		final String msg;
+		/** 参数(二进制格式使用) */
+		final Object[] args;
+		/** 线程名(二进制格式使用) */
+		final String thread;
+		/** 等待写入完成 (不为 null 则为 flush 标记) */
+		final CountDownLatch latch;
+
+		Entry(long time, int logType, String tag, String msg, CountDownLatch latch) {
+			this(time, logType, tag, msg, null, null, latch);
+		}
+
+		Entry(long time, int logType, String tag, String msg, Object[] args, String thread, CountDownLatch latch) {
+			this.time = time;
+			this.logType = logType;
+			this.tag = tag;
+			this.msg = msg;
+			this.args = args;
+			this.thread = thread;
+			this.latch = latch;
+		}
+	}
+
+	// ===================  配置信息  =======================
+
+	/** 日志文件夹 */
+	private final File dir;
+
+	/** 日志文件名(不含后缀) */
+	private final String fileName;
+
+	/** 分割后的文件名格式 (文件名_yyyyMMdd_HHmmss[_n] + 后缀, 不匹配同目录其他文件名前缀相同的日志) */
+	private final Pattern rotatedPattern;
+
+	/** 单个文件最大大小 */
+	private long maxFileSize = 4 * 1024 * 1024;
+
+	/** 全部文件最大总大小 */
+	private long maxTotalSize = 32 * 1024 * 1024;
+
+	/** 文件分割时间间隔 */
+	private @AnalysisRecordUtils.TIME int intervalTime = AnalysisRecordUtils.DEFAULT;
+
+	/** 是否压缩分割后的文件 */
+	private boolean compress = true;
+
+	/** 是否使用二进制格式 */
+	private boolean binary;
+
+	/** 缓存多少条后写入 */
+	private int flushCount = 64;
+
+	/** 缓存多久后写入(毫秒) */
+	private long flushInterval = 1000l;
+
+	/** 队列容量 */
+	private int queueCapacity = 4096;
+
+	// ===================  运行信息  =======================
+
+	/** 等待写入的日志 */
+	private volatile LinkedBlockingQueue<Entry> queue;
+
+	/** 写入线程 */
+	private volatile Thread thread;
+
+	/** 压缩线程 */
+	private ExecutorService compressExecutor;
+
+	/** 等待压缩、压缩中的文件名(清理时跳过) */
+	private final Set<String> compressing = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/** 是否已关闭 */
+	private volatile boolean closed;
+
+	/** 丢弃的日志数量 */
+	private final AtomicLong dropped = new AtomicLong();
+
+	// -- 以下只在写入线程使用 --
+
+	/** 当前文件 */
+	private FileChannel channel;
+
+	/** 当前文件大小(已写入) */
+	private long fileSize;
+
+	/** 当前文件开始时间 */
+	private long segmentStart;
+
+	/** 下次按时间分割的时间 */
+	private long nextRotateTime;
+
+	/** 写入缓冲区 */
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/** 缓冲区中的日志条数 */
+	private int pendingCount;
+
+	/** 缓冲区第一条日志加入时间 */
+	private long pendingTime;
+
+	/** 编码器 */
+	private final CharsetEncoder encoder = Charset.forName("UTF-8").newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+	/** 二进制编码 */
+	private final LogBinaryEncoder binaryEncoder = new LogBinaryEncoder();
+
+	/** 拼接日志行 */
+	private final StringBuilder builder = new StringBuilder(256);
+
+	/** 时间格式化 */
+	private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+	/** 缓存的时间(秒) */
+	private long cacheSecond = -1;
+
+	/** 缓存的时间字符串(秒) */
+	private String cacheDate;
+
+	/**
+	 * 构造函数
+	 * @param dirPath 日志文件夹
+	 * @param fileName 日志文件名(不含后缀)
+	 */
+	public LogFileSink(String dirPath, String fileName) {
+		this.dir = new File(dirPath);
+		this.fileName = fileName;
+		this.rotatedPattern = Pattern.compile(Pattern.quote(fileName) + "_\\d{8}_\\d{6}(_\\d+)?("
+				+ Pattern.quote(TEXT_SUFFIX) + "|" + Pattern.quote(BINARY_SUFFIX) + ")(" + Pattern.quote(GZIP_SUFFIX) + ")?");
+	}
+
+	// ===================  配置方法  =======================
+
+	/**
+	 * 设置单个文件最大大小
+	 * @param maxFileSize 最大大小(字节)
+	 * @return
+	 */
+	public LogFileSink setMaxFileSize(long maxFileSize) {
+		this.maxFileSize = maxFileSize;
+		return this;
+	}
+
+	/**
+	 * 设置全部文件最大总大小(超过则删除最早的文件)
+	 * @param maxTotalSize 最大总大小(字节), 小于等于 0 则不限制
+	 * @return
+	 */
+	public LogFileSink setMaxTotalSize(long maxTotalSize) {
+		this.maxTotalSize = maxTotalSize;
+		return this;
+	}
+
+	/**
+	 * 设置文件分割时间间隔
+	 * @param intervalTime {@link AnalysisRecordUtils#DEFAULT} (按天)、{@link AnalysisRecordUtils#HH}、{@link AnalysisRecordUtils#MM}、{@link AnalysisRecordUtils#SS}
+	 * @return
+	 */
+	public LogFileSink setIntervalTime(@AnalysisRecordUtils.TIME int intervalTime) {
+		this.intervalTime = intervalTime;
+		return this;
+	}
+
+	/**
+	 * 设置是否压缩分割后的文件
+	 * @param compress
+	 * @return
+	 */
+	public LogFileSink setCompress(boolean compress) {
+		this.compress = compress;
+		return this;
+	}
+
+	/**
+	 * 设置是否使用二进制格式(格式化在解码时进行, 文件更小)
+	 * @param binary
+	 * @return
+	 */
+	public LogFileSink setBinary(boolean binary) {
+		this.binary = binary;
+		return this;
+	}
+
+	/**
+	 * 是否使用二进制格式
+	 * @return
+	 */
+	public boolean isBinary() {
+		return binary;
+	}
+
+	/**
+	 * 设置缓存写入条件(满足任意一个则写入文件)
+	 * @param flushCount 缓存条数
+	 * @param flushInterval 缓存时间(毫秒)
+	 * @return
+	 */
+	public LogFileSink setFlush(int flushCount, long flushInterval) {
+		this.flushCount = Math.max(1, flushCount);
+		this.flushInterval = Math.max(1l, flushInterval);
+		return this;
+	}
+
+	/**
+	 * 设置队列容量(队列已满时丢弃日志)
+	 * @param queueCapacity
+	 * @return
+	 */
+	public LogFileSink setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = Math.max(1, queueCapacity);
+		return this;
+	}
+
+	// ===================  对外公开方法  =======================
+
+	/**
+	 * 获取当前写入的文件
+	 * @return
+	 */
+	public File getCurrentFile() {
+		return new File(dir, fileName + getSuffix());
+	}
+
+	/**
+	 * 获取丢弃的日志数量
+	 * @return
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * 写入日志(加入队列, 不等待写入)
+	 * @param logType 日志类型
+	 * @param tag 日志Tag
+	 * @param msg 日志信息
+	 */
+	public void print(int logType, String tag, String msg) {
+		if (closed) {
+			return;
+		}
+		ensureStarted();
+		if (!queue.offer(new Entry(System.currentTimeMillis(), logType, tag, msg, null))) {
+			dropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * 写入未格式化的日志(二进制格式, 加入队列, 不等待写入)
+	 * @param logType 日志类型
+	 * @param tag 日志Tag
+	 * @param format 打印信息
+	 * @param args 占位符替换
+	 */
+	void printRecord(int logType, String tag, String format, Object[] args) {
+		if (closed) {
+			return;
+		}
+		ensureStarted();
+		// 参数都是不可变的基本类型包装类、字符串时保留原始值, 否则在打印时格式化 (可变对象之后可能被修改, 且需要按原类型格式化)
+		String message = format;
+		Object[] values = args;
+		if (args != null) {
+			for (Object arg : args) {
+				if (!isRawArg(arg)) {
+					StringBuilder builder = new StringBuilder();
+					if (!LogFormatter.format(builder, format, args)) {
+						builder.append(format).append(' ').append(Arrays.toString(args));
+					}
+					message = builder.toString();
+					values = null;
+					break;
+				}
+			}
+		}
+		if (!queue.offer(new Entry(System.currentTimeMillis(), logType, tag, message, values, Thread.currentThread().getName(), null))) {
+			dropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * 判断参数是否保留原始值(二进制编码支持的不可变类型)
+	 * @param arg 参数
+	 * @return
+	 */
+	private static boolean isRawArg(Object arg) {
+		if (arg == null) {
+			return true;
+		}
+		Class<?> clazz = arg.getClass();
+		return clazz == String.class || clazz == Integer.class || clazz == Long.class || clazz == Short.class || clazz == Byte.class
+				|| clazz == Double.class || clazz == Float.class || clazz == Boolean.class || clazz == Character.class;
+	}
+
+	/**
+	 * 等待已加入队列的日志写入文件
+	 */
+	public void flush() {
+		if (closed || thread == null) {
+			return;
+		}
+		CountDownLatch latch = new CountDownLatch(1);
+		try {
+			queue.put(new Entry(0, 0, null, null, latch));
+			while (!latch.await(100, TimeUnit.MILLISECONDS)) {
+				if (!thread.isAlive()) {
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * 写入剩余日志后关闭(等待压缩完成)
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+		flush();
+		closed = true;
+		Thread writer = thread;
+		try {
+			if (writer != null) {
+				// 唤醒写入线程, 写入剩余日志后结束 (不使用 interrupt, 避免中断 FileChannel)
+				queue.put(new Entry(0, 0, null, null, new CountDownLatch(1)));
+				writer.join();
+			}
+			ExecutorService executor;
+			synchronized (this) {
+				executor = compressExecutor;
+			}
+			if (executor != null) {
+				executor.shutdown();
+				executor.awaitTermination(10, TimeUnit.SECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// ===================  写入线程  =======================
+
+	/**
+	 * 启动写入线程
+	 */
+	private void ensureStarted() {
+		if (thread == null) {
+			synchronized (this) {
+				if (thread == null && !closed) {
+					queue = new LinkedBlockingQueue<>(queueCapacity);
+					Thread writer = new Thread(new Runnable() {
+						@Override
+						public void run() {
+							loop();
+						}
+					}, "LogFileSink-" + fileName);
+					writer.setDaemon(true);
+					writer.start();
+					thread = writer;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 写入线程循环
+	 */
+	private void loop() {
+		try {
+			while (!closed) {
+				Entry entry;
+				try {
+					if (pendingCount == 0) {
+						entry = queue.take();
+					} else {
+						long wait = pendingTime + flushInterval - System.currentTimeMillis();
+						entry = (wait > 0) ? queue.poll(wait, TimeUnit.MILLISECONDS) : null;
+					}
+				} catch (InterruptedException e) {
+					break;
+				}
+				if (entry == null) {
+					// 超过缓存时间
+					writeBuffer();
+				} else if (entry.latch != null) {
+					writeBuffer();
+					entry.latch.countDown();
+				} else {
+					append(entry);
+					if (pendingCount >= flushCount) {
+						writeBuffer();
+					}
+				}
+			}
+			// 写入剩余日志
+			Entry entry;
+			while ((entry = queue.poll()) != null) {
+				if (entry.latch != null) {
+					entry.latch.countDown();
+				} else {
+					append(entry);
+				}
+			}
+			writeBuffer();
+		} catch (Exception e) {
+			LogPrintUtils.eTag(TAG, e, "loop");
+		} finally {
+			closeChannel();
+		}
+	}
+
+	/**
+	 * 编码日志到缓冲区
+	 * @param entry 日志
+	 */
+	private void append(Entry entry) {
+		try {
+			// 判断是否需要分割文件
+			if (channel == null) {
+				openChannel(entry.time);
+			} else if (entry.time >= nextRotateTime || fileSize + buffer.position() >= maxFileSize) {
+				rotate(entry.time);
+			}
+			if (binary) {
+				// 编码后写入缓冲区
+				binaryEncoder.encode(entry.time, entry.logType, entry.tag, entry.thread, entry.msg, entry.args);
+				putEncoded();
+			} else {
+				appendText(entry);
+			}
+			if (pendingCount++ == 0) {
+				pendingTime = System.currentTimeMillis();
+			}
+		} catch (Exception e) {
+			LogPrintUtils.eTag(TAG, e, "append");
+			closeChannel();
+		}
+	}
+
+	/**
+	 * 编码文本日志到缓冲区
+	 * @param entry 日志
+	 * @throws IOException
+	 */
+	private void appendText(Entry entry) throws IOException {
+		// 拼接日志行 (时间 级别/Tag: 信息)
+		builder.setLength(0);
+		long second = entry.time / 1000;
+		if (second != cacheSecond) {
+			cacheSecond = second;
+			cacheDate = dateFormat.format(new Date(entry.time));
+		}
+		int millis = (int) (entry.time % 1000);
+		builder.append(cacheDate).append('.');
+		if (millis < 100) builder.append('0');
+		if (millis < 10) builder.append('0');
+		builder.append(millis).append(' ');
+		int logType = entry.logType;
+		builder.append(logType >= 0 && logType < LEVEL_CHARS.length ? LEVEL_CHARS[logType] : LEVEL_CHARS[Log.ASSERT]);
+		builder.append('/').append(entry.tag).append(": ").append(entry.msg).append('\n');
+		// 编码到缓冲区, 缓冲区满则写入文件
+		CharBuffer chars = CharBuffer.wrap(builder);
+		encoder.reset();
+		while (encoder.encode(chars, buffer, true).isOverflow()) {
+			writeChannel();
+		}
+		while (encoder.flush(buffer).isOverflow()) {
+			writeChannel();
+		}
+	}
+
+	/**
+	 * 二进制编码数据写入缓冲区, 缓冲区满则写入文件
+	 * @throws IOException
+	 */
+	private void putEncoded() throws IOException {
+		byte[] data = binaryEncoder.getData();
+		int size = binaryEncoder.getSize();
+		int offset = 0;
+		while (offset < size) {
+			int length = Math.min(buffer.remaining(), size - offset);
+			buffer.put(data, offset, length);
+			offset += length;
+			if (!buffer.hasRemaining()) {
+				writeChannel();
+			}
+		}
+		binaryEncoder.clear();
+	}
+
+	/**
+	 * 写入缓冲区到文件
+	 */
+	private void writeBuffer() {
+		try {
+			writeChannel();
+		} catch (Exception e) {
+			LogPrintUtils.eTag(TAG, e, "writeBuffer");
+			closeChannel();
+		}
+		pendingCount = 0;
+	}
+
+	/**
+	 * 写入缓冲区到 FileChannel
+	 * @throws IOException
+	 */
+	private void writeChannel() throws IOException {
+		buffer.flip();
+		try {
+			if (channel != null) {
+				while (buffer.hasRemaining()) {
+					fileSize += channel.write(buffer);
+				}
+			}
+		} finally {
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * 打开当前文件
+	 * @param time 当前时间
+	 * @throws IOException
+	 */
+	private void openChannel(long time) throws IOException {
+		if (!dir.exists()) {
+			dir.mkdirs();
+		}
+		File file = getCurrentFile();
+		if (file.exists() && file.length() > 0) {
+			// 之前的文件, 判断是否已超过时间或大小
+			long lastModified = file.lastModified();
+			// 二进制格式需要字符串定义, 之前的文件不继续写入
+			if (binary || time >= getNextRotateTime(lastModified) || file.length() >= maxFileSize) {
+				rename(file, lastModified);
+			} else {
+				segmentStart = lastModified;
+			}
+		}
+		if (!file.exists()) {
+			segmentStart = time;
+		}
+		channel = new FileOutputStream(file, true).getChannel();
+		fileSize = channel.size();
+		nextRotateTime = getNextRotateTime(segmentStart);
+		if (binary) {
+			// 写入文件头
+			binaryEncoder.clear();
+			binaryEncoder.reset(time);
+			putEncoded();
+		}
+	}
+
+	/**
+	 * 分割文件
+	 * @param time 当前时间
+	 * @throws IOException
+	 */
+	private void rotate(long time) throws IOException {
+		writeChannel();
+		closeChannel();
+		rename(getCurrentFile(), segmentStart);
+		openChannel(time);
+	}
+
+	/**
+	 * 重命名当前文件, 并进行压缩、清理
+	 * @param file 当前文件
+	 * @param start 文件开始时间
+	 */
+	private void rename(File file, long start) {
+		String name = fileName + "_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date(start));
+		String suffix = getSuffix();
+		File target = new File(dir, name + suffix);
+		for (int i = 1; target.exists() || new File(dir, target.getName() + GZIP_SUFFIX).exists(); i++) {
+			target = new File(dir, name + "_" + i + suffix);
+		}
+		if (!file.renameTo(target)) {
+			LogPrintUtils.eTag(TAG, "rename failed: " + target.getName());
+			return;
+		}
+		if (compress) {
+			final File rotated = target;
+			compressing.add(rotated.getName());
+			getCompressExecutor().execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						gzip(rotated);
+					} finally {
+						compressing.remove(rotated.getName());
+					}
+					trim();
+				}
+			});
+		} else {
+			trim();
+		}
+	}
+
+	/**
+	 * 获取压缩线程
+	 * @return
+	 */
+	private synchronized ExecutorService getCompressExecutor() {
+		if (compressExecutor == null) {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "LogFileSink-gzip");
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				}
+			});
+			executor.allowCoreThreadTimeOut(true);
+			compressExecutor = executor;
+		}
+		return compressExecutor;
+	}
+
+	/**
+	 * 压缩文件(成功后删除原文件)
+	 * @param file 文件
+	 */
+	private void gzip(File file) {
+		File target = new File(file.getPath() + GZIP_SUFFIX);
+		InputStream is = null;
+		OutputStream os = null;
+		boolean success = false;
+		try {
+			is = new FileInputStream(file);
+			os = new GZIPOutputStream(new FileOutputStream(target), GZIP_BUFFER_SIZE);
+			byte[] data = new byte[GZIP_BUFFER_SIZE];
+			int len;
+			while ((len = is.read(data)) != -1) {
+				os.write(data, 0, len);
+			}
+			os.close();
+			os = null;
+			success = true;
+		} catch (Exception e) {
+			LogPrintUtils.eTag(TAG, e, "gzip");
+		} finally {
+			closeQuietly(is);
+			closeQuietly(os);
+		}
+		if (success) {
+			file.delete();
+		} else {
+			target.delete();
+		}
+	}
+
+	/**
+	 * 全部文件超过总大小时, 删除最早的分割文件(写入线程、压缩线程都会调用)
+	 */
+	private void trim() {
+		synchronized (dir) {
+			trimLocked();
+		}
+	}
+
+	/**
+	 * 删除最早的分割文件(已加锁)
+	 */
+	private void trimLocked() {
+		if (maxTotalSize <= 0) {
+			return;
+		}
+		File[] files = dir.listFiles();
+		if (files == null) {
+			return;
+		}
+		List<File> rotated = new ArrayList<>();
+		long total = getCurrentFile().length();
+		for (File file : files) {
+			String name = file.getName();
+			if (rotatedPattern.matcher(name).matches()) {
+				rotated.add(file);
+				total += file.length();
+			}
+		}
+		if (total <= maxTotalSize) {
+			return;
+		}
+		// 按修改时间排序 (相同则按名称长度、名称, 避免 _10 排在 _2 前面)
+		Collections.sort(rotated, new Comparator<File>() {
+			@Override
+			public int compare(File lhs, File rhs) {
+				long lTime = lhs.lastModified(), rTime = rhs.lastModified();
+				if (lTime != rTime) {
+					return lTime < rTime ? -1 : 1;
+				}
+				String lName = lhs.getName(), rName = rhs.getName();
+				if (lName.length() != rName.length()) {
+					return lName.length() - rName.length();
+				}
+				return lName.compareTo(rName);
+			}
+		});
+		for (File file : rotated) {
+			if (total <= maxTotalSize) {
+				break;
+			}
+			// 正在压缩的文件(包含压缩中的 .gz), 压缩完成后再次清理
+			String name = file.getName();
+			if (compressing.contains(name) || (name.endsWith(GZIP_SUFFIX)
+					&& compressing.contains(name.substring(0, name.length() - GZIP_SUFFIX.length())))) {
+				continue;
+			}
+			long length = file.length();
+			if (file.delete()) {
+				total -= length;
+			}
+		}
+	}
+
+	/**
+	 * 获取文件后缀
+	 * @return
+	 */
+	private String getSuffix() {
+		return binary ? BINARY_SUFFIX : TEXT_SUFFIX;
+	}
+
+	/**
+	 * 获取下次按时间分割的时间
+	 * @param start 文件开始时间
+	 * @return
+	 */
+	private long getNextRotateTime(long start) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(start);
+		calendar.set(Calendar.MILLISECOND, 0);
+		switch (intervalTime) {
+			case AnalysisRecordUtils.SS:
+				calendar.add(Calendar.SECOND, 1);
+				break;
+			case AnalysisRecordUtils.MM:
+				calendar.set(Calendar.SECOND, 0);
+				calendar.add(Calendar.MINUTE, 1);
+				break;
+			case AnalysisRecordUtils.HH:
+				calendar.set(Calendar.SECOND, 0);
+				calendar.set(Calendar.MINUTE, 0);
+				calendar.add(Calendar.HOUR_OF_DAY, 1);
+				break;
+			default:
+				calendar.set(Calendar.SECOND, 0);
+				calendar.set(Calendar.MINUTE, 0);
+				calendar.set(Calendar.HOUR_OF_DAY, 0);
+				calendar.add(Calendar.DAY_OF_MONTH, 1);
+				break;
+		}
+		return calendar.getTimeInMillis();
+	}
+
+	/**
+	 * 关闭当前文件
+	 */
+	private void closeChannel() {
+		if (channel != null) {
+			closeQuietly(channel);
+			channel = null;
+		}
+	}
+
+	/**
+	 * 关闭流
+	 * @param closeable
+	 */
+	private static void closeQuietly(java.io.Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException ignore) {
+			}
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package cn.com.lbt.lbtlibrary.utils.app.logger;
+
+/**
+ * detail: 日志格式化(每个线程复用缓存)
+ * Created by Ttt
+ * ---
+ * hint:
+ * 占位符支持 {} 与 %s (%% 输出 %, %n 输出换行), 直接拼接到线程复用的 StringBuilder, 不创建中间字符串
+ * 出现其他格式(如 %d、%.2f)时使用 {@link String#format(String, Object...)}, 与之前的格式保持一致
+ * 分段按字符下标计算 (估算 UTF-8 字节数), 不需要转换为字节数组
+ */
+final class LogFormatter {
+
+	/** 每个线程的格式化对象 */
+	private static final ThreadLocal<LogFormatter> LOCAL_FORMATTERS = new ThreadLocal<LogFormatter>() {
+		@Override
+		protected LogFormatter initialValue() {
+			return new LogFormatter();
+		}
+	};
+
+	/** 缓存初始容量 */
+	private static final int INITIAL_CAPACITY = 512;
+
+	/** 缓存最大保留容量(超过则重新创建, 避免单条超长日志一直占用内存) */
+	private static final int MAX_RETAIN_CAPACITY = 64 * 1024;
+
+	/** 日志内容 */
+	StringBuilder message = new StringBuilder(INITIAL_CAPACITY);
+
+	/** 排版后的日志(多行使用 '\n' 分隔) */
+	StringBuilder output = new StringBuilder(INITIAL_CAPACITY);
+
+	/** 是否使用中(参数 toString 中再次打印日志时, 使用新的对象) */
+	private boolean using;
+
+	private LogFormatter() {
+	}
+
+	/**
+	 * 获取当前线程的格式化对象
+	 * @return
+	 */
+	static LogFormatter obtain() {
+		LogFormatter formatter = LOCAL_FORMATTERS.get();
+		if (formatter.using) {
+			formatter = new LogFormatter();
+		}
+		formatter.using = true;
+		return formatter;
+	}
+
+	/**
+	 * 使用完成, 重置缓存
+	 */
+	void recycle() {
+		message = reset(message);
+		output = reset(output);
+		using = false;
+	}
+
+	// ======================= 格式化 ==========================
+
+	/**
+	 * 格式化日志内容
+	 * @param builder 拼接的对象
+	 * @param message 打印信息
+	 * @param args 占位符替换
+	 * @return true : 格式化成功, false : 格式化失败(不拼接内容)
+	 */
+	static boolean format(StringBuilder builder, String message, Object... args) {
+		if (message == null) {
+			builder.append("null");
+			return true;
+		}
+		int argCount = (args == null) ? 0 : args.length;
+		if (argCount == 0) {
+			builder.append(message);
+			return true;
+		}
+		// 格式化失败时还原
+		int mark = builder.length();
+		int length = message.length();
+		int start = 0;
+		int argIndex = 0;
+		for (int i = 0; i < length - 1; i++) {
+			char c = message.charAt(i);
+			if (c == '{') {
+				if (message.charAt(i + 1) == '}') {
+					if (argIndex < argCount) {
+						builder.append(message, start, i);
+						appendArg(builder, args[argIndex++]);
+						start = i + 2;
+					}
+					i++;
+				}
+			} else if (c == '%') {
+				char next = message.charAt(i + 1);
+				if (next == 's') {
+					if (argIndex < argCount) {
+						builder.append(message, start, i);
+						appendArg(builder, args[argIndex++]);
+						start = i + 2;
+					}
+				} else if (next == '%') {
+					builder.append(message, start, i + 1);
+					start = i + 2;
+				} else if (next == 'n') {
+					builder.append(message, start, i).append('\n');
+					start = i + 2;
+				} else {
+					// 其他格式, 使用 String.format
+					builder.setLength(mark);
+					try {
+						builder.append(String.format(message, args));
+						return true;
+					} catch (Exception e) {
+						return false;
+					}
+				}
+				i++;
+			}
+		}
+		builder.append(message, start, length);
+		return true;
+	}
+
+	/**
+	 * 拼接参数
+	 * @param builder 拼接的对象
+	 * @param arg 参数
+	 */
+	private static void appendArg(StringBuilder builder, Object arg) {
+		if (arg instanceof CharSequence) {
+			builder.append((CharSequence) arg);
+		} else {
+			builder.append(arg);
+		}
+	}
+
+	// ======================= 分段计算 ==========================
+
+	/**
+	 * 获取字符的 UTF-8 字节数(代理对每个字符按 2 计算, 合计 4)
+	 * @param c 字符
+	 * @return
+	 */
+	static int utf8Length(char c) {
+		if (c < 0x80) {
+			return 1;
+		} else if (c < 0x800 || (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE)) {
+			return 2;
+		}
+		return 3;
+	}
+
+	/**
+	 * 获取不超过指定字节数的结束下标(不拆分代理对)
+	 * @param text 内容
+	 * @param start 开始下标
+	 * @param end 最大结束下标
+	 * @param maxBytes 最大字节数
+	 * @return 结束下标(不包含), 至少前进一个字符
+	 */
+	static int chunkEnd(CharSequence text, int start, int end, int maxBytes) {
+		int bytes = 0;
+		for (int i = start; i < end; i++) {
+			bytes += utf8Length(text.charAt(i));
+			if (bytes > maxBytes) {
+				if (i > start && Character.isLowSurrogate(text.charAt(i)) && Character.isHighSurrogate(text.charAt(i - 1))) {
+					i--;
+				}
+				return Math.max(i, start + 1);
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * 重置缓存
+	 * @param builder 缓存
+	 * @return 重置后的缓存
+	 */
+	private static StringBuilder reset(StringBuilder builder) {
+		if (builder.capacity() > MAX_RETAIN_CAPACITY) {
+			return new StringBuilder(INITIAL_CAPACITY);
+		}
+		builder.setLength(0);
+		return builder;
+	}
+}
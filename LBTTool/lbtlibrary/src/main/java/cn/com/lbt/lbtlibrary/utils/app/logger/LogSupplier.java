@@ -0,0 +1,14 @@
+package cn.com.lbt.lbtlibrary.utils.app.logger;
+
+/**
+ * detail: 日志内容获取(日志级别允许输出时才调用)
+ * Created by Ttt
+ */
+public interface LogSupplier {
+
+	/**
+	 * 获取日志内容
+	 * @return 日志内容
+	 */
+	String get();
+}
@@ -8,6 +8,10 @@ import org.json.JSONObject;
 
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Source;
@@ -23,7 +27,19 @@ import javax.xml.transform.stream.StreamSource;
 final class LoggerPrinter implements IPrinter {
 
 	/** 日志配置 */
-	private static LogConfig LOG_CONFIG = null;
+	private static volatile LogConfig LOG_CONFIG = null;
+
+	/** 日志配置快照(判断日志级别使用, 配置改变时重新创建) */
+	private static volatile ConfigSnapshot CONFIG_SNAPSHOT = null;
+
+	/** 单独设置的 Tag 日志级别(修改时替换, 不修改原对象) */
+	private static volatile Map<String, LogLevel> TAG_LOG_LEVELS = Collections.emptyMap();
+
+	/** 已设置但未使用的线程日志配置数量(为 0 则不需要获取 ThreadLocal) */
+	private static final AtomicInteger LOCAL_LOG_CONFIG_COUNT = new AtomicInteger();
+
+	/** 日志文件输出 */
+	private static volatile LogFileSink FILE_SINK = null;
 
 	/** 每个线程的日志配置信息 */
 	private static final ThreadLocal<LogConfig> LOCAL_LOG_CONFIGS = new ThreadLocal<>();
@@ -37,6 +53,9 @@ final class LoggerPrinter implements IPrinter {
 	@Override
 	public IPrinter other(LogConfig lConfig) {
 		if (lConfig != null) {
+			if (LOCAL_LOG_CONFIGS.get() == null) {
+				LOCAL_LOG_CONFIG_COUNT.incrementAndGet();
+			}
 			LOCAL_LOG_CONFIGS.set(lConfig);
 		}
 		return this;
@@ -75,6 +94,64 @@ final class LoggerPrinter implements IPrinter {
 		LOG_CONFIG = lConfig;
 		// 防止日志配置参数为null
 		init();
+		// 重新创建配置快照
+		CONFIG_SNAPSHOT = null;
+	}
+
+	/**
+	 * 判断是否打印日志(不需要格式化日志, 可在拼接参数前调用)
+	 * @param logType 日志类型
+	 * @param tag 日志Tag(null 则使用配置的Tag)
+	 * @return
+	 */
+	@Override
+	public boolean isLoggable(int logType, String tag) {
+		// 存在单次日志配置, 由打印时判断
+		if (LOCAL_LOG_CONFIG_COUNT.get() != 0) {
+			return true;
+		}
+		return getConfigSnapshot().isLoggable(logType, tag);
+	}
+
+	/**
+	 * 单独设置 Tag 日志级别
+	 * @param tag 日志Tag
+	 * @param lLevel 日志级别, null 则使用配置的日志级别
+	 */
+	@Override
+	public void setTagLogLevel(String tag, LogLevel lLevel) {
+		if (tag == null) {
+			return;
+		}
+		synchronized (LoggerPrinter.class) {
+			Map<String, LogLevel> tagLogLevels = new HashMap<>(TAG_LOG_LEVELS);
+			if (lLevel == null) {
+				tagLogLevels.remove(tag);
+			} else {
+				tagLogLevels.put(tag, lLevel);
+			}
+			TAG_LOG_LEVELS = Collections.unmodifiableMap(tagLogLevels);
+			// 重新创建配置快照
+			CONFIG_SNAPSHOT = null;
+		}
+	}
+
+	/**
+	 * 设置日志文件输出
+	 * @param fileSink 日志文件输出, null 则不写入文件
+	 */
+	@Override
+	public void setFileSink(LogFileSink fileSink) {
+		FILE_SINK = fileSink;
+	}
+
+	/**
+	 * 获取日志文件输出
+	 * @return 日志文件输出
+	 */
+	@Override
+	public LogFileSink getFileSink() {
+		return FILE_SINK;
 	}
 
 	// ========= 使用默认TAG =========
@@ -436,6 +513,11 @@ final class LoggerPrinter implements IPrinter {
 	 * @param msg 打印信息
 	 */
 	private void fLogPrinter(int logType, String tag, String msg) {
+		// 同时写入文件(只加入队列)
+		LogFileSink fileSink = FILE_SINK;
+		if (fileSink != null && !fileSink.isBinary()) {
+			fileSink.print(logType, tag, msg);
+		}
 		switch (logType) {
 			case Log.VERBOSE:
 				Log.v(tag, msg);
@@ -483,20 +565,27 @@ final class LoggerPrinter implements IPrinter {
 	}
 
 	/**
-	 * 日志处理方法(统一调用这个) -- 此方法是同步的,以避免混乱的日志的顺序。
+	 * 日志处理方法(统一调用这个) -- 每个线程使用各自的缓存拼接, 排版后的日志按分段一次性输出, 不需要同步
 	 * @param lConfig 配置信息
 	 * @param tag 日志Tag
 	 * @param logType 日志类型
 	 * @param msg 打印信息
 	 * @param args 占位符替换
 	 */
-	private synchronized void logHandle(LogConfig lConfig, String tag, int logType, String msg, Object... args) {
+	private void logHandle(LogConfig lConfig, String tag, int logType, String msg, Object... args) {
 		if (lConfig == null) { // 如果配置为null,才进行获取
 			// 获取当前线程日志配置信息
-			lConfig = getThreadLogConfig();
+			lConfig = pollThreadLogConfig();
 		}
-		// 判断是否打印日志(日志级别)
-		if (!isPrintLog(lConfig, logType)) {
+		if (lConfig == null) {
+			// 使用默认配置, 判断是否打印日志(日志级别、Tag 日志级别)
+			ConfigSnapshot snapshot = getConfigSnapshot();
+			if (!snapshot.isLoggable(logType, tag)) {
+				return;
+			}
+			lConfig = snapshot.config;
+		} else if (!isPrintLog(lConfig, logType)) {
+			// 判断是否打印日志(日志级别)
 			return;
 		}
 		// 防止TAG为null
@@ -509,84 +598,77 @@ final class LoggerPrinter implements IPrinter {
 				tag = LogConstants.DEFAULT_LOG_TAG;
 			}
 		}
-		// 判断是否显示排序后的日志(如果不排序,则显示默认)
-		if (!lConfig.sortLog) {
-			fLogPrinter(logType, tag, createMessage(msg, args));
-			return;
+		// 二进制格式的文件输出, 不需要格式化
+		LogFileSink fileSink = FILE_SINK;
+		if (fileSink != null && fileSink.isBinary()) {
+			fileSink.printRecord(logType, tag, msg, args);
 		}
-		/** ============== 日志配置信息获取 ========== */
-		// 获取方法总数
-		int methodCount = lConfig.methodCount;
-		// 获取方法偏移索引
-		int methodOffset = lConfig.methodOffset;
-		// 如果出现小于0的设置,则设置默认值处理
-		if (methodOffset < 0) {
-			methodOffset = LogConstants.DEFAULT_LOG_METHOD_OFFSET;
-		}
-		// 如果出现小于0的设置,则设置默认值处理
-		if (methodCount < 0) {
-			methodCount = LogConstants.DEFAULT_LOG_METHOD_COUNT;
-		}
-		// 获取打印的日志信息
-		String message = createMessage(msg, args);
-		// 打印头部
-		logTopBorder(logType, tag);
-		// 打印头部线程信息
-		logHeaderContent(lConfig,logType, tag, methodCount, methodOffset);
-		// 获取系统的默认字符集的信息字节(UTF-8)
-		byte[] bytes = message.getBytes();
-		// 获取字节总数
-		int length = bytes.length;
-		// 判断是否超过总数,没有超过则一次性打印,超过则遍历打印
-		if (length <= LogConstants.CHUNK_SIZE) {
+		// 获取当前线程的格式化缓存
+		LogFormatter formatter = LogFormatter.obtain();
+		try {
+			// 获取打印的日志信息
+			LogFormatter.format(formatter.message, msg, args);
+			// 判断是否显示排序后的日志(如果不排序,则显示默认)
+			if (!lConfig.sortLog) {
+				fLogPrinter(logType, tag, formatter.message.toString());
+				return;
+			}
+			/** ============== 日志配置信息获取 ========== */
+			// 获取方法总数
+			int methodCount = lConfig.methodCount;
+			// 获取方法偏移索引
+			int methodOffset = lConfig.methodOffset;
+			// 如果出现小于0的设置,则设置默认值处理
+			if (methodOffset < 0) {
+				methodOffset = LogConstants.DEFAULT_LOG_METHOD_OFFSET;
+			}
+			// 如果出现小于0的设置,则设置默认值处理
+			if (methodCount < 0) {
+				methodCount = LogConstants.DEFAULT_LOG_METHOD_COUNT;
+			}
+			StringBuilder output = formatter.output;
+			// 拼接头部
+			output.append(LogConstants.TOP_BORDER);
+			// 拼接头部线程信息
+			appendHeaderContent(output, lConfig, methodCount, methodOffset);
+			// 拼接换行符
 			if (methodCount > 0) {
-				logDivider(logType, tag);
+				appendLine(output, LogConstants.MIDDLE_BORDER);
 			}
-			// 打印日志内容
-			logContent(logType, tag, message);
-			// 打印结尾
-			logBottomBorder(logType, tag);
-			return;
-		}
-		// 打印换行符
-		if (methodCount > 0) {
-			// 换行
-			logDivider(logType, tag);
+			// 拼接日志内容
+			appendContent(output, formatter.message);
+			// 拼接结尾
+			appendLine(output, LogConstants.BOTTOM_BORDER);
+			// 分段打印
+			printChunks(logType, tag, output);
+		} finally {
+			formatter.recycle();
 		}
-		// 因为超过系统打印字节总数,遍历打印
-		for (int i = 0; i < length; i += LogConstants.CHUNK_SIZE) {
-			int count = Math.min(length - i, LogConstants.CHUNK_SIZE);
-			// 创建系统的默认字符集的一个新的字符串(UTF-8),并打印日志内容
-			logContent(logType, tag, new String(bytes, i, count));
-		}
-		// 打印结尾
-		logBottomBorder(logType, tag);
 	}
 
 	// ========================== 日志格式拼接 ==========================
 	/**
 	 * 日志线程信息主体部分
+	 * @param output 拼接的对象
 	 * @param lConfig 日志配置
-	 * @param logType 日志类型
-	 * @param tag 日志Tag
 	 * @param methodCount 方法总数
 	 * @param methodOffset 方法偏移索引
 	 */
-	private void logHeaderContent(LogConfig lConfig, int logType, String tag, int methodCount, int methodOffset) {
-		StackTraceElement[] trace = Thread.currentThread().getStackTrace();
+	private void appendHeaderContent(StringBuilder output, LogConfig lConfig, int methodCount, int methodOffset) {
 		// 判断是否显示日志线程信息
-		if (lConfig.displayThreadInfo) {
-			// 打印线程信息(线程名)
-			fLogPrinter(logType, tag, LogConstants.HORIZONTAL_DOUBLE_LINE + " Thread: " + Thread.currentThread().getName());
-			// 进行换行
-			logDivider(logType, tag);
-		} else {
-			// 不打印线程信息,都设置为0
-			methodCount = methodOffset = 0;
+		if (!lConfig.displayThreadInfo) {
 			return;
 		}
-		// 手动进行偏移
-		String level = "";
+		// 拼接线程信息(线程名)
+		appendLine(output, null).append(LogConstants.HORIZONTAL_DOUBLE_LINE).append(" Thread: ").append(Thread.currentThread().getName());
+		// 进行换行
+		appendLine(output, LogConstants.MIDDLE_BORDER);
+		// 不需要打印方法, 则不获取堆栈
+		if (methodCount <= 0 && !lConfig.outputMethodAll) {
+			return;
+		}
+		// 获取堆栈 (由本类创建, 不包含 Thread.getStackTrace 等系统调用)
+		StackTraceElement[] trace = new Throwable().getStackTrace();
 		// 堆栈总数
 		int traceCount = trace.length;
 		// 获取堆栈偏移量
@@ -605,93 +687,127 @@ final class LoggerPrinter implements IPrinter {
 			// 如果打印数小于等于0,则直接跳过
 			return;
 		}
+		// 手动进行偏移
+		int level = 0;
 		// 遍历打印的方法数量(类名、行数、操作的方法名)
 		for (int i = methodCount; i > 0; i--) {
 			int stackIndex = i + stackOffset;
 			if (stackIndex >= traceCount) {
 				continue;
 			}
+			StackTraceElement element = trace[stackIndex];
 			// 拼接中间内容,以及操作的类名,行数,方法名等信息
-			StringBuilder builder = new StringBuilder();
-			builder.append("║ ");
-			builder.append(level);
-			builder.append(getSimpleClassName(trace[stackIndex].getClassName()));
-			builder.append(".").append(trace[stackIndex].getMethodName());
-			builder.append(" (");
-			builder.append(trace[stackIndex].getFileName());
-			builder.append(":");
-			builder.append(trace[stackIndex].getLineNumber());
-			builder.append(")");
-			level += "   ";
-			// 打印日志信息
-			fLogPrinter(logType, tag, builder.toString());
+			appendLine(output, null).append(LogConstants.HORIZONTAL_DOUBLE_LINE).append(' ');
+			for (int j = 0; j < level; j++) {
+				output.append("   ");
+			}
+			String className = element.getClassName();
+			output.append(className, className.lastIndexOf('.') + 1, className.length());
+			output.append('.').append(element.getMethodName());
+			output.append(" (");
+			output.append(element.getFileName());
+			output.append(':');
+			output.append(element.getLineNumber());
+			output.append(')');
+			level++;
 		}
 	}
 
 	/**
-	 * 日志顶部
-	 * @param logType 日志类型
-	 * @param tag 日志Tag
+	 * 日志内容(每行加上前缀, 超过分段大小的行拆分为多行)
+	 * @param output 拼接的对象
+	 * @param message 日志信息
 	 */
-	private void logTopBorder(int logType, String tag) {
-		fLogPrinter(logType, tag, LogConstants.TOP_BORDER);
-	}
-
-	/**
-	 * 日志结尾
-	 * @param logType 日志类型
-	 * @param tag 日志Tag
-	 */
-	private void logBottomBorder(int logType, String tag) {
-		fLogPrinter(logType, tag, LogConstants.BOTTOM_BORDER);
+	private void appendContent(StringBuilder output, CharSequence message) {
+		// 与 String.split 一致, 忽略结尾的空行
+		int end = message.length();
+		while (end > 0 && isLineBreak(message.charAt(end - 1))) {
+			end--;
+		}
+		if (end == 0 && message.length() != 0) {
+			return;
+		}
+		// 每行内容最大字节数(去除前缀 "║ "、换行符)
+		int maxBytes = LogConstants.CHUNK_SIZE - 5;
+		int start = 0;
+		while (true) {
+			// 查找行尾
+			int lineEnd = start;
+			while (lineEnd < end && message.charAt(lineEnd) != '\n') {
+				lineEnd++;
+			}
+			int contentEnd = (lineEnd > start && message.charAt(lineEnd - 1) == '\r') ? lineEnd - 1 : lineEnd;
+			int index = start;
+			do {
+				int chunkEnd = LogFormatter.chunkEnd(message, index, contentEnd, maxBytes);
+				appendLine(output, null).append(LogConstants.HORIZONTAL_DOUBLE_LINE).append(' ').append(message, index, chunkEnd);
+				index = chunkEnd;
+			} while (index < contentEnd);
+			if (lineEnd >= end) {
+				break;
+			}
+			start = lineEnd + 1;
+		}
 	}
 
 	/**
-	 * 日志换行
-	 * @param logType 日志类型
-	 * @param tag 日志Tag
+	 * 换行后拼接
+	 * @param output 拼接的对象
+	 * @param line 拼接的内容(null 则只换行)
+	 * @return 拼接的对象
 	 */
-	private void logDivider(int logType, String tag) {
-		fLogPrinter(logType, tag, LogConstants.MIDDLE_BORDER);
+	private StringBuilder appendLine(StringBuilder output, String line) {
+		output.append('\n');
+		if (line != null) {
+			output.append(line);
+		}
+		return output;
 	}
 
 	/**
-	 * 日志内容
+	 * 分段打印(按行合并, 每段不超过 {@link LogConstants#CHUNK_SIZE} 字节, 日志较短时一次输出, 不会与其他线程交错)
 	 * @param logType 日志类型
 	 * @param tag 日志Tag
-	 * @param msg 日志信息
+	 * @param output 排版后的日志
 	 */
-	private void logContent(int logType, String tag, String msg) {
-		String[] lines = msg.split(System.getProperty("line.separator"));
-		for (String line : lines) {
-			fLogPrinter(logType, tag, LogConstants.HORIZONTAL_DOUBLE_LINE + " " + line);
+	private void printChunks(int logType, String tag, StringBuilder output) {
+		int length = output.length();
+		// 分段开始下标
+		int start = 0;
+		// 最后一个可分段的位置(换行符下标)
+		int lastBreak = -1;
+		// 分段开始到当前的字节数
+		int bytes = 0;
+		// 最后一个换行符之前的字节数
+		int breakBytes = 0;
+		for (int i = 0; i < length; i++) {
+			char c = output.charAt(i);
+			if (c == '\n') {
+				lastBreak = i;
+				breakBytes = bytes + 1;
+			}
+			bytes += LogFormatter.utf8Length(c);
+			if (bytes > LogConstants.CHUNK_SIZE && lastBreak > start) {
+				fLogPrinter(logType, tag, output.substring(start, lastBreak));
+				start = lastBreak + 1;
+				bytes -= breakBytes;
+			}
+		}
+		if (start < length) {
+			fLogPrinter(logType, tag, output.substring(start, length));
 		}
 	}
 
 	/**
-	 * 处理信息
-	 * @param message 打印信息
-	 * @param args 占位符替换
+	 * 是否换行符
+	 * @param c 字符
 	 * @return
 	 */
-	private String createMessage(String message, Object... args) {
-		try {
-			return args.length == 0 ? message : String.format(message, args);
-		} catch (Exception e) {
-		}
-		return "";
+	private boolean isLineBreak(char c) {
+		return c == '\n' || c == '\r';
 	}
 
 	// ===================  获取堆栈信息 ============================
-	/**
-	 * 获取类名
-	 * @param name 类名.class
-	 */
-	private String getSimpleClassName(String name) {
-		int lastIndex = name.lastIndexOf(".");
-		return name.substring(lastIndex + 1);
-	}
-
 	/**
 	 * 确定该类的方法调用后的堆栈跟踪的起始索引。
 	 * @param trace 堆栈
@@ -714,14 +830,117 @@ final class LoggerPrinter implements IPrinter {
 	 */
 	private LogConfig getThreadLogConfig() {
 		// 获取当前线程的日志配置信息
-		LogConfig lConfig = LOCAL_LOG_CONFIGS.get();
+		LogConfig lConfig = pollThreadLogConfig();
 		// 如果等于null,则返回默认配置信息
 		if (lConfig == null) {
 			return init();
-		} else {
-			LOCAL_LOG_CONFIGS.remove();
 		}
 		// 如果存在当前线程的配置信息,则返回
 		return lConfig;
 	}
+
+	/**
+	 * 获取并移除当前线程的日志配置信息(没有设置过则不获取 ThreadLocal)
+	 * @return 当前线程的日志配置信息, 不存在则返回 null
+	 */
+	private LogConfig pollThreadLogConfig() {
+		if (LOCAL_LOG_CONFIG_COUNT.get() == 0) {
+			return null;
+		}
+		LogConfig lConfig = LOCAL_LOG_CONFIGS.get();
+		if (lConfig != null) {
+			LOCAL_LOG_CONFIGS.remove();
+			LOCAL_LOG_CONFIG_COUNT.decrementAndGet();
+		}
+		return lConfig;
+	}
+
+	/**
+	 * 获取日志配置快照(配置改变时重新创建)
+	 * @return
+	 */
+	private ConfigSnapshot getConfigSnapshot() {
+		ConfigSnapshot snapshot = CONFIG_SNAPSHOT;
+		// 日志配置、Tag 日志级别被替换, 或者日志级别被直接修改 (其他线程使用旧数据创建的快照也会重新创建)
+		if (snapshot == null || snapshot.config != LOG_CONFIG || snapshot.logLevel != snapshot.config.logLevel
+				|| snapshot.tagLogLevels != TAG_LOG_LEVELS) {
+			LogConfig lConfig = init();
+			Map<String, LogLevel> tagLogLevels = TAG_LOG_LEVELS;
+			Map<String, boolean[]> tagLoggables = Collections.emptyMap();
+			if (!tagLogLevels.isEmpty()) {
+				tagLoggables = new HashMap<>();
+				for (Map.Entry<String, LogLevel> entry : tagLogLevels.entrySet()) {
+					tagLoggables.put(entry.getKey(), getLoggables(entry.getValue()));
+				}
+			}
+			snapshot = new ConfigSnapshot(lConfig, lConfig.logLevel, tagLogLevels, getLoggables(lConfig.logLevel), tagLoggables);
+			CONFIG_SNAPSHOT = snapshot;
+		}
+		return snapshot;
+	}
+
+	/**
+	 * 获取日志级别允许输出的日志类型
+	 * @param lLevel 日志级别
+	 * @return 下标为日志类型, 是否允许输出
+	 */
+	private boolean[] getLoggables(LogLevel lLevel) {
+		LogConfig lConfig = new LogConfig();
+		lConfig.logLevel = lLevel;
+		boolean[] loggables = new boolean[Log.ASSERT + 1];
+		for (int i = 0; i < loggables.length; i++) {
+			loggables[i] = isPrintLog(lConfig, i);
+		}
+		return loggables;
+	}
+
+	/**
+	 * detail: 日志配置快照(创建后不修改)
+	 */
+	private static final class ConfigSnapshot {
+
+		/** 日志配置 */
+		final LogConfig config;
+
+		/** 创建时的日志级别 */
+		final LogLevel logLevel;
+
+		/** 创建时的 Tag 日志级别 */
+		final Map<String, LogLevel> tagLogLevels;
+
+		/** 允许输出的日志类型(下标为日志类型) */
+		final boolean[] loggables;
+
+		/** 单独设置的 Tag 允许输出的日志类型 */
+		final Map<String, boolean[]> tagLoggables;
+
+		ConfigSnapshot(LogConfig config, LogLevel logLevel, Map<String, LogLevel> tagLogLevels, boolean[] loggables, Map<String, boolean[]> tagLoggables) {
+			this.config = config;
+			this.logLevel = logLevel;
+			this.tagLogLevels = tagLogLevels;
+			this.loggables = loggables;
+			this.tagLoggables = tagLoggables;
+		}
+
+		/**
+		 * 判断是否打印日志
+		 * @param logType 日志类型
+		 * @param tag 日志Tag(null 则使用配置的Tag)
+		 * @return
+		 */
+		boolean isLoggable(int logType, String tag) {
+			boolean[] array = loggables;
+			if (!tagLoggables.isEmpty()) {
+				boolean[] tagArray = tagLoggables.get(tag != null ? tag : config.tag);
+				if (tagArray != null) {
+					array = tagArray;
+				}
+			}
+			if (logType >= 0 && logType < array.length) {
+				return array[logType];
+			}
+			// 未知的日志类型, 按 ASSERT 判断
+			return array[Log.ASSERT];
+		}
+	}
 }
@@ -37,6 +37,19 @@ public final class FileIOUtils {
     private static final String LINE_SEP = System.getProperty("line.separator");
     // 缓存大小
     private static int sBufferSize = 8192;
+    // 小于该大小使用 stream 写入 (channel、direct buffer 的额外开销大于收益)
+    private static final int STREAM_MAX_SIZE = 16 * 1024;
+    // 不小于该大小且覆盖写入时使用 map 写入 (避免一次复制到 direct buffer)
+    private static final int MAP_MIN_SIZE = 8 * 1024 * 1024;
+    // 每个线程复用的 direct buffer 大小
+    private static final int DIRECT_BUFFER_SIZE = 256 * 1024;
+    // 每个线程复用的 direct buffer
+    private static final ThreadLocal<ByteBuffer> sDirectBuffer = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+        }
+    };
 
     /**
      * Set the buffer's size. - Default size equals 8192 bytes.
@@ -206,7 +219,10 @@ public final class FileIOUtils {
         try {
             fc = new FileOutputStream(file, append).getChannel();
             fc.position(fc.size());
-            fc.write(ByteBuffer.wrap(bytes));
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                fc.write(buffer);
+            }
             if (isForce) {
                 fc.force(true);
             }
@@ -265,9 +281,12 @@ public final class FileIOUtils {
         if (bytes == null || !createOrExistsFile(file)) {
             return false;
         }
+        RandomAccessFile raf = null;
         FileChannel fc = null;
         try {
-            fc = new FileOutputStream(file, append).getChannel();
+            raf = new RandomAccessFile(file, "rw");
+            if (!append) raf.setLength(0);
+            fc = raf.getChannel();
             MappedByteBuffer mbb = fc.map(FileChannel.MapMode.READ_WRITE, fc.size(), bytes.length);
             mbb.put(bytes);
             if (isForce) mbb.force();
@@ -275,6 +294,107 @@ public final class FileIOUtils {
         } catch (IOException e) {
             JCLogUtils.eTag(TAG, e, "writeFileFromBytesByMap");
             return false;
+        } finally {
+            CloseUtils.closeIO(fc, raf);
+        }
+    }
+
+    /**
+     * Write file from bytes (select stream, channel or map by size and append mode).
+     * @param filePath The path of file.
+     * @param bytes The bytes.
+     * @param append True to append, false otherwise.
+     * @return true : success, false : fail
+     */
+    public static boolean writeFileFromBytes(final String filePath, final byte[] bytes, final boolean append) {
+        return writeFileFromBytes(getFileByPath(filePath), bytes, append, false);
+    }
+
+    /**
+     * Write file from bytes (select stream, channel or map by size and append mode).
+     * @param file The file.
+     * @param bytes The bytes.
+     * @param append True to append, false otherwise.
+     * @return true : success, false : fail
+     */
+    public static boolean writeFileFromBytes(final File file, final byte[] bytes, final boolean append) {
+        return writeFileFromBytes(file, bytes, append, false);
+    }
+
+    /**
+     * Write file from bytes (select stream, channel or map by size and append mode).
+     * <pre>
+     *     小于 16KB : stream 直接写入 (不经过 BufferedOutputStream, 一次系统调用)
+     *     不小于 8MB 且覆盖写入 : map 写入
+     *     其他 : channel 写入 (复用线程的 direct buffer, 追加写入保持 O_APPEND 语义)
+     * </pre>
+     * @param file The file.
+     * @param bytes The bytes.
+     * @param append True to append, false otherwise.
+     * @param isForce True to force write file, false otherwise.
+     * @return true : success, false : fail
+     */
+    public static boolean writeFileFromBytes(final File file, final byte[] bytes, final boolean append, final boolean isForce) {
+        if (bytes == null || !createOrExistsFile(file)) return false;
+        if (!append && bytes.length >= MAP_MIN_SIZE) {
+            return writeFileFromBytesByMap(file, bytes, false, isForce);
+        }
+        FileOutputStream fos = null;
+        try {
+            fos = new FileOutputStream(file, append);
+            if (bytes.length < STREAM_MAX_SIZE) {
+                fos.write(bytes);
+                if (isForce) fos.getFD().sync();
+            } else {
+                FileChannel fc = fos.getChannel();
+                ByteBuffer buffer = sDirectBuffer.get();
+                for (int offset = 0; offset < bytes.length; ) {
+                    int len = Math.min(buffer.capacity(), bytes.length - offset);
+                    buffer.clear();
+                    buffer.put(bytes, offset, len);
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        fc.write(buffer);
+                    }
+                    offset += len;
+                }
+                if (isForce) fc.force(true);
+            }
+            return true;
+        } catch (IOException e) {
+            JCLogUtils.eTag(TAG, e, "writeFileFromBytes");
+            return false;
+        } finally {
+            CloseUtils.closeIO(fos);
+        }
+    }
+
+    /**
+     * Write file from buffers (gathering write, from position to limit of each buffer).
+     * @param file The file.
+     * @param append True to append, false otherwise.
+     * @param isForce True to force write file, false otherwise.
+     * @param buffers The buffers.
+     * @return true : success, false : fail
+     */
+    public static boolean writeFileFromBuffers(final File file, final boolean append, final boolean isForce, final ByteBuffer... buffers) {
+        if (buffers == null || !createOrExistsFile(file)) return false;
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            if (buffer == null) return false;
+            remaining += buffer.remaining();
+        }
+        FileChannel fc = null;
+        try {
+            fc = new FileOutputStream(file, append).getChannel();
+            while (remaining > 0) {
+                remaining -= fc.write(buffers);
+            }
+            if (isForce) fc.force(true);
+            return true;
+        } catch (IOException e) {
+            JCLogUtils.eTag(TAG, e, "writeFileFromBuffers");
+            return false;
         } finally {
             CloseUtils.closeIO(fc);
         }
@@ -421,6 +541,7 @@ public final class FileIOUtils {
      * @param end The line's index of end.
      * @param charsetName The name of charset.
      * @return the lines in file
+     * hint: 已通过 {@link FileLineIndex#open(File)} 创建行索引时, 直接定位到开始行附近读取
      */
     public static List<String> readFile2List(final File file, final int st, final int end, final String charsetName) {
         if (!isFileExists(file)) {
@@ -429,6 +550,12 @@ public final class FileIOUtils {
         if (st > end) {
             return null;
         }
+        if (st > 1 && FileLineIndex.isSupportCharset(isSpace(charsetName) ? null : charsetName)) {
+            FileLineIndex index = FileLineIndex.get(file);
+            if (index != null) {
+                return index.readLines(st, end, isSpace(charsetName) ? null : charsetName);
+            }
+        }
         BufferedReader reader = null;
         try {
             String line;
@@ -513,6 +640,48 @@ public final class FileIOUtils {
         }
     }
 
+    /**
+     * Return the line iterator of file (lazy, need close).
+     * @param filePath The path of file.
+     * @param charsetName The name of charset.
+     * @return the line iterator of file
+     */
+    public static FileRecordReader readFile2LineIterator(final String filePath, final String charsetName) {
+        return readFile2LineIterator(getFileByPath(filePath), charsetName);
+    }
+
+    /**
+     * Return the line iterator of file (lazy, need close).
+     * @param file The file.
+     * @param charsetName The name of charset.
+     * @return the line iterator of file
+     */
+    public static FileRecordReader readFile2LineIterator(final File file, final String charsetName) {
+        return FileRecordReader.lines(file, charsetName);
+    }
+
+    /**
+     * Return the record iterator of file (lazy, need close).
+     * @param file The file.
+     * @param delimiter The delimiter of record.
+     * @param charsetName The name of charset.
+     * @return the record iterator of file
+     */
+    public static FileRecordReader readFile2RecordIterator(final File file, final String delimiter, final String charsetName) {
+        return FileRecordReader.records(file, delimiter, charsetName);
+    }
+
+    /**
+     * Return the line iterators of file split on line boundaries (lazy, need close).
+     * @param file The file.
+     * @param count The count of split.
+     * @param charsetName The name of charset.
+     * @return the line iterators of file
+     */
+    public static List<FileRecordReader> readFile2LineIterators(final File file, final int count, final String charsetName) {
+        return FileRecordReader.split(file, count, charsetName);
+    }
+
     /**
      * Return the bytes in file by stream.
      * @param filePath The path of file.
@@ -0,0 +1,508 @@
+package cn.com.lbt.lbtlibrary.utils.common;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import cn.com.lbt.lbtlibrary.utils.JCLogUtils;
+
+/**
+ * detail: 文件行索引 (稀疏索引, 用于大文件按行号读取)
+ * Created by Ttt
+ * ---
+ * hint:
+ * 按 '\n' 分行, 每 INTERVAL 行记录一次行首的文件偏移, 读取第 N 行时直接定位到最近的记录位置, 最多再扫描 INTERVAL 行
+ * 扫描时内存映射文件(分段), 每次读取 8 字节判断换行符 (word-at-a-time), 不存在换行符则跳过整个 8 字节
+ * 索引保存在同目录 文件名.lidx 中, 再次打开时文件只追加了数据(校验已索引部分末尾数据)则只扫描新增部分, 否则重建
+ * 只支持 '\n' 为单字节 0x0A 的编码 (UTF-8、GBK、ISO-8859-1 等), 不支持 UTF-16 等编码
+ * 文件包含单独的 '\r' (后面不是 '\n', readLine 也作为换行) 时, 行号与索引不一致, readLines 从文件开头按 readLine 读取
+ */
+public final class FileLineIndex {
+
+    // 日志TAG
+    private static final String TAG = FileLineIndex.class.getSimpleName();
+    // 索引文件后缀
+    public static final String INDEX_SUFFIX = ".lidx";
+    // 索引文件标识
+    private static final int MAGIC = 0x4C494458;
+    // 索引文件版本
+    private static final int VERSION = 2;
+    // 每多少行记录一次偏移
+    private static final int INTERVAL = 1024;
+    // 校验已索引部分末尾数据的长度
+    private static final int TAIL_CHECK_SIZE = 4096;
+    // 每次映射的长度
+    private static final long MAP_WINDOW_SIZE = 32 * 1024 * 1024;
+    // 读取缓冲区大小
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // 每个字节都为 '\n'
+    private static final long NEW_LINE_MASK = 0x0A0A0A0A0A0A0A0AL;
+    // 每个字节都为 '\r'
+    private static final long CARRIAGE_RETURN_MASK = 0x0D0D0D0D0D0D0D0DL;
+    private static final long LOW_7_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    // 源文件
+    private final File file;
+    // 已索引的文件长度
+    private long indexedLength;
+    // 已索引部分的换行符数量
+    private long lineBreaks;
+    // 已索引部分末尾数据的 CRC32
+    private long tailCrc;
+    // 是否包含单独的 '\r' (后面不是 '\n')
+    private boolean loneCr;
+    // 扫描时上一个缓冲区以 '\r' 结尾 (只在扫描时使用)
+    private boolean pendingCr;
+    // 第 k * INTERVAL + 1 行行首偏移
+    private long[] offsets = new long[16];
+    // 记录数量
+    private int offsetCount;
+
+    private FileLineIndex(File file) {
+        this.file = file;
+        offsets[0] = 0;
+        offsetCount = 1;
+    }
+
+    /**
+     * 打开文件行索引 (不存在则创建, 文件有新增数据则更新, 并保存索引文件)
+     * @param file 文件
+     * @return {@link FileLineIndex}, 失败则返回 null
+     */
+    public static FileLineIndex open(final File file) {
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        FileLineIndex index = readIndex(file);
+        if (index == null) {
+            index = new FileLineIndex(file);
+        }
+        try {
+            if (index.update()) {
+                index.save();
+            }
+            return index;
+        } catch (IOException e) {
+            JCLogUtils.eTag(TAG, e, "open");
+        }
+        return null;
+    }
+
+    /**
+     * 获取已保存的文件行索引 (文件有新增数据则更新)
+     * @param file 文件
+     * @return {@link FileLineIndex}, 不存在索引文件则返回 null
+     */
+    public static FileLineIndex get(final File file) {
+        if (file == null || !getIndexFile(file).isFile()) {
+            return null;
+        }
+        return open(file);
+    }
+
+    /**
+     * 统计文件换行符数量 (不使用、不保存索引)
+     * @param file 文件
+     * @return 换行符数量, 失败则返回 -1
+     */
+    public static long countLineBreaks(final File file) {
+        if (file == null || !file.isFile()) {
+            return -1l;
+        }
+        FileLineIndex index = new FileLineIndex(file);
+        try {
+            index.update();
+            return index.lineBreaks;
+        } catch (IOException e) {
+            JCLogUtils.eTag(TAG, e, "countLineBreaks");
+        }
+        return -1l;
+    }
+
+    /**
+     * 判断编码是否支持行索引 ('\n' 为单字节 0x0A)
+     * @param charsetName 编码, null 则为默认编码
+     * @return true : 支持, false : 不支持
+     */
+    public static boolean isSupportCharset(final String charsetName) {
+        try {
+            Charset charset = charsetName == null ? Charset.defaultCharset() : Charset.forName(charsetName);
+            return Arrays.equals("\n".getBytes(charset.name()), new byte[]{'\n'});
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 获取索引文件
+     * @param file 文件
+     * @return 索引文件
+     */
+    public static File getIndexFile(final File file) {
+        return new File(file.getParentFile(), file.getName() + INDEX_SUFFIX);
+    }
+
+    // =
+
+    /**
+     * 获取换行符数量
+     * @return 换行符数量
+     */
+    public long getLineBreakCount() {
+        return lineBreaks;
+    }
+
+    /**
+     * 是否包含单独的 '\r' (readLine 作为换行, 行号与换行符数量不一致)
+     * @return true : 包含, false : 不包含
+     */
+    public boolean hasLoneCarriageReturn() {
+        return loneCr;
+    }
+
+    /**
+     * 获取已索引的文件长度
+     * @return 已索引的文件长度
+     */
+    public long getIndexedLength() {
+        return indexedLength;
+    }
+
+    /**
+     * 获取行首的文件偏移
+     * @param line 行号 (从 1 开始)
+     * @return 行首偏移, 超过行数则返回 -1
+     * @throws IOException
+     */
+    public long getLineOffset(final long line) throws IOException {
+        if (line < 1 || line - 1 > lineBreaks) {
+            return -1l;
+        }
+        int k = (int) Math.min((line - 1) / INTERVAL, offsetCount - 1);
+        long offset = offsets[k];
+        long skip = (line - 1) - (long) k * INTERVAL;
+        if (skip == 0) {
+            return offset;
+        }
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            raf.seek(offset);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int len;
+            while ((len = raf.read(buffer)) != -1) {
+                for (int i = 0; i < len; i++) {
+                    if (buffer[i] == '\n' && --skip == 0) {
+                        return offset + i + 1;
+                    }
+                }
+                offset += len;
+            }
+        } finally {
+            CloseUtils.closeIO(raf);
+        }
+        return -1l;
+    }
+
+    /**
+     * 读取指定行 (从最近的索引位置开始读取)
+     * @param st          开始行数 (从 1 开始)
+     * @param end         结束行数 (包含)
+     * @param charsetName 编码, null 则为默认编码
+     * @return 读取的行, 失败则返回 null
+     */
+    public List<String> readLines(final int st, final int end, final String charsetName) {
+        if (st > end) {
+            return null;
+        }
+        int start = Math.max(st, 1);
+        BufferedReader reader = null;
+        FileInputStream fis = null;
+        try {
+            List<String> list = new ArrayList<>();
+            // 包含单独的 '\r' 时行号与索引不一致, 从文件开头读取
+            long offset = loneCr ? 0 : getLineOffset(start);
+            if (offset < 0) {
+                return list;
+            }
+            fis = new FileInputStream(file);
+            FileChannel channel = fis.getChannel();
+            channel.position(offset);
+            if (charsetName == null || charsetName.trim().length() == 0) {
+                reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel)));
+            } else {
+                reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), charsetName));
+            }
+            String line;
+            for (int curLine = loneCr ? 1 : start; curLine <= end && (line = reader.readLine()) != null; curLine++) {
+                if (curLine >= start) {
+                    list.add(line);
+                }
+            }
+            return list;
+        } catch (IOException e) {
+            JCLogUtils.eTag(TAG, e, "readLines");
+            return null;
+        } finally {
+            CloseUtils.closeIO(reader, fis);
+        }
+    }
+
+    // =
+
+    /**
+     * 更新索引 (文件只追加了数据则扫描新增部分, 否则重建)
+     * @return true : 索引有变化, false : 无变化
+     * @throws IOException
+     */
+    private boolean update() throws IOException {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel();
+            long length = channel.size();
+            if (indexedLength > 0) {
+                if (length < indexedLength || tailCrc(channel, indexedLength) != tailCrc) {
+                    // 文件被修改, 重建索引
+                    indexedLength = 0;
+                    lineBreaks = 0;
+                    offsetCount = 1;
+                    loneCr = false;
+                } else if (length == indexedLength) {
+                    return false;
+                }
+            }
+            // 已索引部分以 '\r' 结尾时, 需要判断新增部分第一个字节
+            pendingCr = false;
+            if (indexedLength > 0 && !loneCr) {
+                ByteBuffer last = ByteBuffer.allocate(1);
+                channel.read(last, indexedLength - 1);
+                pendingCr = last.position() == 1 && last.get(0) == '\r';
+            }
+            scan(channel, indexedLength, length);
+            indexedLength = length;
+            tailCrc = tailCrc(channel, length);
+            return true;
+        } finally {
+            CloseUtils.closeIO(raf);
+        }
+    }
+
+    /**
+     * 扫描换行符 (分段映射)
+     * @param channel {@link FileChannel}
+     * @param start   开始位置
+     * @param end     结束位置
+     * @throws IOException
+     */
+    private void scan(final FileChannel channel, final long start, final long end) throws IOException {
+        long position = start;
+        while (position < end) {
+            long size = Math.min(MAP_WINDOW_SIZE, end - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            scanBuffer(buffer, position, (int) size);
+            position += size;
+        }
+    }
+
+    /**
+     * 扫描缓冲区换行符 (每次判断 8 字节)
+     * @param buffer 缓冲区
+     * @param base   缓冲区起始位置的文件偏移
+     * @param size   缓冲区长度
+     */
+    private void scanBuffer(final ByteBuffer buffer, final long base, final int size) {
+        long breaks = lineBreaks;
+        long nextCheckpoint = (long) offsetCount * INTERVAL;
+        if (pendingCr && size > 0) {
+            loneCr = buffer.get(0) != '\n';
+            pendingCr = false;
+        }
+        int i = 0;
+        int wordEnd = size - 7;
+        while (i < wordEnd) {
+            long word = buffer.getLong(i);
+            long x = word ^ NEW_LINE_MASK;
+            // 为 0 的字节 (即 '\n') 对应位置最高位为 1, 其他为 0
+            long zeros = ~(((x & LOW_7_BITS) + LOW_7_BITS) | x | LOW_7_BITS);
+            if (!loneCr) {
+                long y = word ^ CARRIAGE_RETURN_MASK;
+                if (~(((y & LOW_7_BITS) + LOW_7_BITS) | y | LOW_7_BITS) != 0) {
+                    checkLoneCr(buffer, i, i + 8, size);
+                }
+            }
+            if (zeros != 0) {
+                int count = Long.bitCount(zeros);
+                if (breaks + count >= nextCheckpoint) {
+                    // 包含记录位置, 逐字节处理
+                    for (int j = i; j < i + 8; j++) {
+                        if (buffer.get(j) == '\n' && ++breaks == nextCheckpoint) {
+                            addOffset(base + j + 1);
+                            nextCheckpoint += INTERVAL;
+                        }
+                    }
+                } else {
+                    breaks += count;
+                }
+            }
+            i += 8;
+        }
+        if (!loneCr) {
+            checkLoneCr(buffer, i, size, size);
+        }
+        for (; i < size; i++) {
+            if (buffer.get(i) == '\n' && ++breaks == nextCheckpoint) {
+                addOffset(base + i + 1);
+                nextCheckpoint += INTERVAL;
+            }
+        }
+        lineBreaks = breaks;
+    }
+
+    /**
+     * 判断是否包含单独的 '\r' (缓冲区末尾的 '\r' 在下一个缓冲区判断, 文件末尾的 '\r' 不作为单独的 '\r')
+     * @param buffer 缓冲区
+     * @param from   开始位置
+     * @param to     结束位置 (不包含)
+     * @param size   缓冲区长度
+     */
+    private void checkLoneCr(final ByteBuffer buffer, final int from, final int to, final int size) {
+        for (int j = from; j < to; j++) {
+            if (buffer.get(j) == '\r') {
+                if (j + 1 < size) {
+                    if (buffer.get(j + 1) != '\n') {
+                        loneCr = true;
+                        return;
+                    }
+                } else {
+                    pendingCr = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * 添加行首偏移记录
+     * @param offset 行首偏移
+     */
+    private void addOffset(final long offset) {
+        if (offsetCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsetCount * 2);
+        }
+        offsets[offsetCount++] = offset;
+    }
+
+    /**
+     * 计算已索引部分末尾数据的 CRC32
+     * @param channel {@link FileChannel}
+     * @param end     已索引的文件长度
+     * @return CRC32
+     * @throws IOException
+     */
+    private static long tailCrc(final FileChannel channel, final long end) throws IOException {
+        int size = (int) Math.min(TAIL_CHECK_SIZE, end);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        long position = end - size;
+        while (buffer.hasRemaining()) {
+            int len = channel.read(buffer, position + buffer.position());
+            if (len < 0) {
+                break;
+            }
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(buffer.array(), 0, buffer.position());
+        return crc32.getValue();
+    }
+
+    // =
+
+    /**
+     * 读取索引文件
+     * @param file 文件
+     * @return {@link FileLineIndex}, 不存在或者损坏则返回 null
+     */
+    private static FileLineIndex readIndex(final File file) {
+        File indexFile = getIndexFile(file);
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        DataInputStream dis = null;
+        try {
+            dis = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), BUFFER_SIZE));
+            if (dis.readInt() != MAGIC || dis.readInt() != VERSION || dis.readInt() != INTERVAL) {
+                return null;
+            }
+            FileLineIndex index = new FileLineIndex(file);
+            index.indexedLength = dis.readLong();
+            index.lineBreaks = dis.readLong();
+            index.tailCrc = dis.readLong();
+            index.loneCr = dis.readBoolean();
+            int count = dis.readInt();
+            if (count < 1 || count - 1 != index.lineBreaks / INTERVAL) {
+                return null;
+            }
+            index.offsets = new long[count];
+            for (int i = 0; i < count; i++) {
+                index.offsets[i] = dis.readLong();
+            }
+            index.offsetCount = count;
+            return index;
+        } catch (Exception e) {
+            JCLogUtils.eTag(TAG, e, "readIndex");
+            return null;
+        } finally {
+            CloseUtils.closeIO(dis);
+        }
+    }
+
+    /**
+     * 保存索引文件 (先写入临时文件再重命名)
+     */
+    private void save() {
+        File indexFile = getIndexFile(file);
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        DataOutputStream dos = null;
+        try {
+            dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE));
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeInt(INTERVAL);
+            dos.writeLong(indexedLength);
+            dos.writeLong(lineBreaks);
+            dos.writeLong(tailCrc);
+            dos.writeBoolean(loneCr);
+            dos.writeInt(offsetCount);
+            for (int i = 0; i < offsetCount; i++) {
+                dos.writeLong(offsets[i]);
+            }
+            dos.close();
+            dos = null;
+            if (!tempFile.renameTo(indexFile)) {
+                indexFile.delete();
+                tempFile.renameTo(indexFile);
+            }
+        } catch (IOException e) {
+            JCLogUtils.eTag(TAG, e, "save");
+            tempFile.delete();
+        } finally {
+            CloseUtils.closeIO(dos);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package cn.com.lbt.lbtlibrary.utils.common;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import cn.com.lbt.lbtlibrary.utils.JCLogUtils;
+
+/**
+ * detail: 文件行、记录迭代读取 (流式读取, 不一次性读取全部内容)
+ * Created by Ttt
+ * ---
+ * hint:
+ * 使用 {@link CharsetDecoder} 分段解码, 字节、字符缓冲区在读取过程中复用, 内存占用只与单条记录长度有关
+ * 按行读取时与 {@link java.io.BufferedReader#readLine()} 一致 ('\n'、'\r'、"\r\n" 结尾), 按记录读取时以指定分隔符分隔
+ * 可通过 {@link #split(File, int, String)} 按 '\n' 将文件分为多段, 每段在各自线程中读取
+ * 使用完成需要调用 {@link #close()}, 读取失败时 {@link #hasNext()} 返回 false, 可通过 {@link #getException()} 获取异常
+ */
+public final class FileRecordReader implements Iterator<String>, Closeable {
+
+    // 日志TAG
+    private static final String TAG = FileRecordReader.class.getSimpleName();
+    // 字节缓冲区大小
+    private static final int BYTE_BUFFER_SIZE = 64 * 1024;
+    // 字符缓冲区大小
+    private static final int CHAR_BUFFER_SIZE = 32 * 1024;
+    // 查找分段位置时的缓冲区大小
+    private static final int SPLIT_BUFFER_SIZE = 8 * 1024;
+
+    // 文件
+    private final RandomAccessFile raf;
+    // 文件通道
+    private final FileChannel channel;
+    // 解码器
+    private final CharsetDecoder decoder;
+    // 记录分隔符 (null 则按行读取)
+    private final String delimiter;
+    // 读取结束位置
+    private final long end;
+    // 当前读取位置
+    private long position;
+    // 字节缓冲区 (写模式)
+    private final ByteBuffer byteBuffer = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+    // 字符缓冲区 (读模式)
+    private final CharBuffer charBuffer = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+    // 当前记录
+    private final StringBuilder builder = new StringBuilder();
+    // 是否已读取到结束位置
+    private boolean endOfInput;
+    // 是否已解码全部数据
+    private boolean decoded;
+    // 是否已解码完成 (包含 flush)
+    private boolean finished;
+    // 上一个字符是否为 '\r' (跳过后面的 '\n')
+    private boolean skipLF;
+    // 下一条记录
+    private String next;
+    // 是否已关闭
+    private boolean closed;
+    // 读取异常
+    private IOException exception;
+
+    /**
+     * 构造函数
+     * @param file        文件
+     * @param start       开始位置
+     * @param end         结束位置 (不包含)
+     * @param delimiter   记录分隔符 (null 则按行读取)
+     * @param charsetName 编码, null 则为默认编码
+     * @throws IOException
+     */
+    private FileRecordReader(final File file, final long start, final long end, final String delimiter, final String charsetName) throws IOException {
+        Charset charset = isSpace(charsetName) ? Charset.defaultCharset() : Charset.forName(charsetName);
+        this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.delimiter = delimiter;
+        this.raf = new RandomAccessFile(file, "r");
+        this.channel = raf.getChannel();
+        this.position = start;
+        this.end = end < 0 ? Long.MAX_VALUE : end;
+        this.charBuffer.flip();
+    }
+
+    /**
+     * 按行读取文件
+     * @param file        文件
+     * @param charsetName 编码, null 则为默认编码
+     * @return {@link FileRecordReader}, 失败则返回 null
+     */
+    public static FileRecordReader lines(final File file, final String charsetName) {
+        return open(file, 0, -1, null, charsetName);
+    }
+
+    /**
+     * 按分隔符读取文件
+     * @param file        文件
+     * @param delimiter   记录分隔符
+     * @param charsetName 编码, null 则为默认编码
+     * @return {@link FileRecordReader}, 失败则返回 null
+     */
+    public static FileRecordReader records(final File file, final String delimiter, final String charsetName) {
+        if (delimiter == null || delimiter.length() == 0) {
+            return null;
+        }
+        return open(file, 0, -1, delimiter, charsetName);
+    }
+
+    /**
+     * 将文件按 '\n' 分为多段按行读取 (每段可在不同线程中读取)
+     * @param file        文件
+     * @param count       分段数量
+     * @param charsetName 编码, null 则为默认编码 ('\n' 不为单字节 0x0A 的编码只返回一段)
+     * @return 每段的 {@link FileRecordReader}, 失败则返回 null
+     */
+    public static List<FileRecordReader> split(final File file, final int count, final String charsetName) {
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        List<FileRecordReader> readers = new ArrayList<>();
+        if (count <= 1 || !FileLineIndex.isSupportCharset(isSpace(charsetName) ? null : charsetName)) {
+            FileRecordReader reader = lines(file, charsetName);
+            if (reader == null) {
+                return null;
+            }
+            readers.add(reader);
+            return readers;
+        }
+        long length = file.length();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0l);
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            for (int i = 1; i < count; i++) {
+                long bound = nextLineStart(raf, Math.max(length * i / count, bounds.get(bounds.size() - 1)), length);
+                if (bound > bounds.get(bounds.size() - 1) && bound < length) {
+                    bounds.add(bound);
+                }
+            }
+        } catch (IOException e) {
+            JCLogUtils.eTag(TAG, e, "split");
+            return null;
+        } finally {
+            CloseUtils.closeIO(raf);
+        }
+        bounds.add(length);
+        for (int i = 0, size = bounds.size() - 1; i < size; i++) {
+            FileRecordReader reader = open(file, bounds.get(i), bounds.get(i + 1), null, charsetName);
+            if (reader == null) {
+                for (FileRecordReader opened : readers) {
+                    opened.close();
+                }
+                return null;
+            }
+            readers.add(reader);
+        }
+        return readers;
+    }
+
+    // =
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !closed) {
+            try {
+                next = readRecord();
+            } catch (IOException e) {
+                exception = e;
+                JCLogUtils.eTag(TAG, e, "hasNext");
+                close();
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String record = next;
+        next = null;
+        return record;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            CloseUtils.closeIO(channel, raf);
+        }
+    }
+
+    /**
+     * 获取读取异常
+     * @return 读取异常, 未发生异常则返回 null
+     */
+    public IOException getException() {
+        return exception;
+    }
+
+    // =
+
+    /**
+     * 读取下一条记录
+     * @return 下一条记录, 读取完成则返回 null
+     * @throws IOException
+     */
+    private String readRecord() throws IOException {
+        builder.setLength(0);
+        boolean hasData = false;
+        while (true) {
+            if (!charBuffer.hasRemaining() && !fill()) {
+                return hasData ? builder.toString() : null;
+            }
+            char[] chars = charBuffer.array();
+            int start = charBuffer.position();
+            int limit = charBuffer.limit();
+            if (delimiter == null) {
+                if (skipLF) {
+                    skipLF = false;
+                    if (chars[start] == '\n') {
+                        charBuffer.position(++start);
+                        continue;
+                    }
+                }
+                for (int i = start; i < limit; i++) {
+                    char c = chars[i];
+                    if (c == '\n' || c == '\r') {
+                        builder.append(chars, start, i - start);
+                        charBuffer.position(i + 1);
+                        skipLF = c == '\r';
+                        return builder.toString();
+                    }
+                }
+            } else {
+                int length = delimiter.length();
+                char last = delimiter.charAt(length - 1);
+                for (int i = start; i < limit; i++) {
+                    if (chars[i] == last) {
+                        builder.append(chars, start, i + 1 - start);
+                        start = i + 1;
+                        int from = builder.length() - length;
+                        if (from >= 0 && builder.indexOf(delimiter, from) == from) {
+                            builder.setLength(from);
+                            charBuffer.position(start);
+                            return builder.toString();
+                        }
+                    }
+                }
+            }
+            builder.append(chars, start, limit - start);
+            charBuffer.position(limit);
+            hasData = true;
+        }
+    }
+
+    /**
+     * 读取并解码下一段数据
+     * @return true : 有新的字符, false : 已读取完成
+     * @throws IOException
+     */
+    private boolean fill() throws IOException {
+        charBuffer.clear();
+        while (charBuffer.position() == 0 && !finished) {
+            if (!endOfInput) {
+                long remaining = end - position;
+                if (remaining < byteBuffer.remaining()) {
+                    byteBuffer.limit(byteBuffer.position() + (int) remaining);
+                }
+                int len = byteBuffer.hasRemaining() ? channel.read(byteBuffer, position) : 0;
+                if (len < 0 || remaining <= len) {
+                    endOfInput = true;
+                }
+                if (len > 0) {
+                    position += len;
+                }
+            }
+            if (!decoded) {
+                byteBuffer.flip();
+                CoderResult result = decoder.decode(byteBuffer, charBuffer, endOfInput);
+                byteBuffer.compact();
+                decoded = endOfInput && result.isUnderflow();
+            }
+            if (decoded) {
+                finished = decoder.flush(charBuffer).isUnderflow();
+                if (!finished) {
+                    // 字符缓冲区已满, 下次继续
+                    break;
+                }
+            }
+        }
+        charBuffer.flip();
+        return charBuffer.hasRemaining();
+    }
+
+    /**
+     * 打开读取
+     * @param file        文件
+     * @param start       开始位置
+     * @param end         结束位置 (-1 则读取到文件末尾)
+     * @param delimiter   记录分隔符 (null 则按行读取)
+     * @param charsetName 编码, null 则为默认编码
+     * @return {@link FileRecordReader}, 失败则返回 null
+     */
+    private static FileRecordReader open(final File file, final long start, final long end, final String delimiter, final String charsetName) {
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        try {
+            return new FileRecordReader(file, start, end, delimiter, charsetName);
+        } catch (Exception e) {
+            JCLogUtils.eTag(TAG, e, "open");
+        }
+        return null;
+    }
+
+    /**
+     * 获取指定位置后的下一行行首位置
+     * @param raf    文件
+     * @param from   查找开始位置
+     * @param length 文件长度
+     * @return 下一行行首位置, 不存在则返回文件长度
+     * @throws IOException
+     */
+    private static long nextLineStart(final RandomAccessFile raf, final long from, final long length) throws IOException {
+        if (from <= 0) {
+            return 0;
+        }
+        // 从前一个字节开始查找, from 刚好为行首时不跳过该行
+        long offset = from - 1;
+        raf.seek(offset);
+        byte[] buffer = new byte[SPLIT_BUFFER_SIZE];
+        int len;
+        while (offset < length && (len = raf.read(buffer)) != -1) {
+            for (int i = 0; i < len; i++) {
+                if (buffer[i] == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += len;
+        }
+        return length;
+    }
+
+    /**
+     * 判断字符串是否为 null 或全为空白字符
+     * @param str 待校验字符串
+     * @return
+     */
+    private static boolean isSpace(final String str) {
+        if (str == null) return true;
+        for (int i = 0, len = str.length(); i < len; ++i) {
+            if (!Character.isWhitespace(str.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
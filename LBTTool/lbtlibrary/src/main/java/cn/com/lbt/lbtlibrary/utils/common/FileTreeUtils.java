@@ -0,0 +1,529 @@
+package cn.com.lbt.lbtlibrary.utils.common;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cn.com.lbt.lbtlibrary.utils.JCLogUtils;
+
+/**
+ * detail: 目录树并行操作工具类 (复制、移动、删除)
+ * Created by Ttt
+ * ---
+ * hint:
+ * 每个子目录、文件作为单独任务由线程池并行处理, 适合包含大量小文件的目录 (耗时主要在每个文件的系统调用)
+ * 删除时目录在全部子文件删除完成后再删除 (计数归零时由最后完成的任务删除)
+ * 不会在第一个失败时停止, 全部失败的文件保存在 {@link Result} 中
+ * OnReplaceListener 与 {@link FileUtils#copyDir(File, File, FileUtils.OnReplaceListener)} 一致: 目标目录已存在时在调用线程询问一次,
+ * 覆盖则先清空目标目录; 之后遇到已存在的文件(其他程序同时写入)再次询问时, 同一时间只会有一个线程调用 (不会并发回调)
+ */
+public final class FileTreeUtils {
+
+    private FileTreeUtils() {
+    }
+
+    // 日志TAG
+    private static final String TAG = FileTreeUtils.class.getSimpleName();
+    // 默认并行数量 (耗时主要在 IO 等待, 不少于 2)
+    public static final int DEFAULT_PARALLELISM = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * detail: 失败信息
+     */
+    public static final class Failure {
+
+        // 失败的文件
+        public final File file;
+        // 失败原因
+        public final String reason;
+
+        Failure(File file, String reason) {
+            this.file = file;
+            this.reason = reason;
+        }
+
+        @Override
+        public String toString() {
+            return file + ": " + reason;
+        }
+    }
+
+    /**
+     * detail: 操作结果
+     */
+    public static final class Result {
+
+        // 处理成功的文件数量
+        private final int count;
+        // 失败信息
+        private final List<Failure> failures;
+
+        Result(int count, List<Failure> failures) {
+            this.count = count;
+            this.failures = Collections.unmodifiableList(failures);
+        }
+
+        /**
+         * 是否全部成功
+         * @return true : 全部成功, false : 存在失败
+         */
+        public boolean isSuccess() {
+            return failures.isEmpty();
+        }
+
+        /**
+         * 获取处理成功的文件数量 (不包含目录)
+         * @return 处理成功的文件数量
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * 获取全部失败信息
+         * @return 失败信息 (不可修改)
+         */
+        public List<Failure> getFailures() {
+            return failures;
+        }
+
+        @Override
+        public String toString() {
+            return "Result[count=" + count + ",failures=" + failures + "]";
+        }
+    }
+
+    // ========
+    // == 复制 ==
+    // ========
+
+    /**
+     * 复制目录
+     * @param srcDir    源目录
+     * @param destDir   目标目录
+     * @param listener  是否覆盖监听器
+     * @return {@link Result}
+     */
+    public static Result copyDir(final File srcDir, final File destDir, final FileUtils.OnReplaceListener listener) {
+        return copyDir(srcDir, destDir, listener, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * 复制目录
+     * @param srcDir      源目录
+     * @param destDir     目标目录
+     * @param listener    是否覆盖监听器
+     * @param parallelism 并行数量
+     * @return {@link Result}
+     */
+    public static Result copyDir(final File srcDir, final File destDir, final FileUtils.OnReplaceListener listener, final int parallelism) {
+        return copyOrMoveDir(srcDir, destDir, listener, parallelism, false);
+    }
+
+    /**
+     * 移动目录 (同一文件系统直接重命名, 否则复制全部成功后删除源目录)
+     * @param srcDir    源目录
+     * @param destDir   目标目录
+     * @param listener  是否覆盖监听器
+     * @return {@link Result}
+     */
+    public static Result moveDir(final File srcDir, final File destDir, final FileUtils.OnReplaceListener listener) {
+        return moveDir(srcDir, destDir, listener, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * 移动目录 (同一文件系统直接重命名, 否则复制全部成功后删除源目录)
+     * @param srcDir      源目录
+     * @param destDir     目标目录
+     * @param listener    是否覆盖监听器
+     * @param parallelism 并行数量
+     * @return {@link Result}
+     */
+    public static Result moveDir(final File srcDir, final File destDir, final FileUtils.OnReplaceListener listener, final int parallelism) {
+        return copyOrMoveDir(srcDir, destDir, listener, parallelism, true);
+    }
+
+    /**
+     * 复制或移动目录
+     * @param srcDir      源目录
+     * @param destDir     目标目录
+     * @param listener    是否覆盖监听器
+     * @param parallelism 并行数量
+     * @param isMove      是否移动
+     * @return {@link Result}
+     */
+    private static Result copyOrMoveDir(final File srcDir, final File destDir, final FileUtils.OnReplaceListener listener,
+                                        final int parallelism, final boolean isMove) {
+        if (srcDir == null || destDir == null) {
+            return failure(srcDir, "file is null");
+        }
+        // 目标目录在源目录中
+        String srcPath = srcDir.getPath() + File.separator;
+        String destPath = destDir.getPath() + File.separator;
+        if (destPath.contains(srcPath)) {
+            return failure(destDir, "dest dir is inside src dir");
+        }
+        if (!srcDir.isDirectory()) {
+            return failure(srcDir, "src dir not exists");
+        }
+        if (destDir.exists()) {
+            if (listener == null || !listener.onReplace()) {
+                // 不需要覆盖
+                return new Result(0, new ArrayList<Failure>());
+            }
+            Result result = deleteAllInDir(destDir, parallelism);
+            if (!result.isSuccess()) {
+                return result;
+            }
+        }
+        // 移动目录时, 同一文件系统直接重命名
+        if (isMove && FileUtils.createOrExistsDir(destDir.getParentFile()) && srcDir.renameTo(destDir)) {
+            return new Result(0, new ArrayList<Failure>());
+        }
+        final Walker walker = new Walker(parallelism);
+        walker.submit(new Runnable() {
+            @Override
+            public void run() {
+                copyTree(walker, srcDir, destDir, listener);
+            }
+        });
+        Result result = walker.await();
+        if (isMove && result.isSuccess()) {
+            Result deleteResult = deleteDir(srcDir, parallelism);
+            if (!deleteResult.isSuccess()) {
+                return new Result(result.getCount(), new ArrayList<>(deleteResult.getFailures()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 复制目录 (子目录、文件提交到线程池)
+     * @param walker   {@link Walker}
+     * @param srcDir   源目录
+     * @param destDir  目标目录
+     * @param listener 是否覆盖监听器
+     */
+    private static void copyTree(final Walker walker, final File srcDir, final File destDir, final FileUtils.OnReplaceListener listener) {
+        if (!FileUtils.createOrExistsDir(destDir)) {
+            walker.fail(destDir, "create dir failed");
+            return;
+        }
+        File[] files = srcDir.listFiles();
+        if (files == null) {
+            walker.fail(srcDir, "list files failed");
+            return;
+        }
+        for (final File file : files) {
+            final File destFile = new File(destDir, file.getName());
+            if (file.isDirectory()) {
+                walker.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        copyTree(walker, file, destFile, listener);
+                    }
+                });
+            } else {
+                walker.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (destFile.exists() && !walker.replace(listener)) {
+                            return;
+                        }
+                        if (FileUtils.copyFileByChannel(file, destFile, null)) {
+                            walker.succeed();
+                        } else {
+                            walker.fail(file, "copy failed");
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    // ========
+    // == 删除 ==
+    // ========
+
+    /**
+     * 删除目录
+     * @param dir 目录
+     * @return {@link Result}
+     */
+    public static Result deleteDir(final File dir) {
+        return deleteDir(dir, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * 删除目录
+     * @param dir         目录
+     * @param parallelism 并行数量
+     * @return {@link Result}
+     */
+    public static Result deleteDir(final File dir, final int parallelism) {
+        return delete(dir, parallelism, true);
+    }
+
+    /**
+     * 删除目录下所有东西 (保留目录本身)
+     * @param dir 目录
+     * @return {@link Result}
+     */
+    public static Result deleteAllInDir(final File dir) {
+        return deleteAllInDir(dir, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * 删除目录下所有东西 (保留目录本身)
+     * @param dir         目录
+     * @param parallelism 并行数量
+     * @return {@link Result}
+     */
+    public static Result deleteAllInDir(final File dir, final int parallelism) {
+        return delete(dir, parallelism, false);
+    }
+
+    /**
+     * 删除目录
+     * @param dir         目录
+     * @param parallelism 并行数量
+     * @param deleteSelf  是否删除目录本身
+     * @return {@link Result}
+     */
+    private static Result delete(final File dir, final int parallelism, final boolean deleteSelf) {
+        if (dir == null) {
+            return failure(null, "file is null");
+        }
+        if (!dir.exists()) {
+            return new Result(0, new ArrayList<Failure>());
+        }
+        if (!dir.isDirectory()) {
+            return failure(dir, "not a directory");
+        }
+        final Walker walker = new Walker(parallelism);
+        final DirNode root = new DirNode(dir, null, deleteSelf);
+        walker.submit(new Runnable() {
+            @Override
+            public void run() {
+                deleteTree(walker, root);
+            }
+        });
+        return walker.await();
+    }
+
+    /**
+     * detail: 等待删除的目录
+     */
+    private static final class DirNode {
+        // 目录
+        final File dir;
+        // 上级目录
+        final DirNode parent;
+        // 是否删除目录本身
+        final boolean deleteSelf;
+        // 未完成的子文件、子目录数量 (+1 为遍历中)
+        final AtomicInteger remaining = new AtomicInteger(1);
+        // 是否存在删除失败的子文件 (目录无法删除, 不重复记录)
+        volatile boolean failed;
+
+        DirNode(File dir, DirNode parent, boolean deleteSelf) {
+            this.dir = dir;
+            this.parent = parent;
+            this.deleteSelf = deleteSelf;
+        }
+    }
+
+    /**
+     * 删除目录 (子目录、文件提交到线程池)
+     * @param walker {@link Walker}
+     * @param node   {@link DirNode}
+     */
+    private static void deleteTree(final Walker walker, final DirNode node) {
+        File[] files = node.dir.listFiles();
+        if (files == null) {
+            node.failed = true;
+            walker.fail(node.dir, "list files failed");
+        } else {
+            node.remaining.addAndGet(files.length);
+            for (final File file : files) {
+                if (file.isDirectory()) {
+                    walker.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            deleteTree(walker, new DirNode(file, node, true));
+                        }
+                    });
+                } else {
+                    walker.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (file.delete()) {
+                                walker.succeed();
+                            } else {
+                                node.failed = true;
+                                walker.fail(file, "delete failed");
+                            }
+                            childDone(walker, node);
+                        }
+                    });
+                }
+            }
+        }
+        childDone(walker, node);
+    }
+
+    /**
+     * 子文件、子目录处理完成, 全部完成则删除目录 (并通知上级目录)
+     * @param walker {@link Walker}
+     * @param node   {@link DirNode}
+     */
+    private static void childDone(final Walker walker, DirNode node) {
+        while (node != null && node.remaining.decrementAndGet() == 0) {
+            if (node.failed) {
+                if (node.parent != null) {
+                    node.parent.failed = true;
+                }
+            } else if (node.deleteSelf && !node.dir.delete()) {
+                walker.fail(node.dir, "delete dir failed");
+                if (node.parent != null) {
+                    node.parent.failed = true;
+                }
+            }
+            node = node.parent;
+        }
+    }
+
+    // =
+
+    /**
+     * 单个失败结果
+     * @param file   失败的文件
+     * @param reason 失败原因
+     * @return {@link Result}
+     */
+    private static Result failure(final File file, final String reason) {
+        List<Failure> failures = new ArrayList<>(1);
+        failures.add(new Failure(file, reason));
+        return new Result(0, failures);
+    }
+
+    /**
+     * detail: 并行遍历 (记录未完成任务数量, 归零时结束)
+     */
+    private static final class Walker {
+        // 线程池
+        private final ExecutorService executor;
+        // 未完成的任务数量
+        private final AtomicInteger pending = new AtomicInteger();
+        // 全部完成
+        private final CountDownLatch done = new CountDownLatch(1);
+        // 处理成功的文件数量
+        private final AtomicInteger count = new AtomicInteger();
+        // 失败信息
+        private final List<Failure> failures = new ArrayList<>();
+        // 覆盖询问锁
+        private final Object replaceLock = new Object();
+
+        Walker(int parallelism) {
+            executor = Executors.newFixedThreadPool(parallelism > 0 ? parallelism : DEFAULT_PARALLELISM, new ThreadFactory() {
+                private final AtomicInteger number = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "FileTree-" + number.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        /**
+         * 提交任务
+         * @param task
+         */
+        void submit(final Runnable task) {
+            pending.incrementAndGet();
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            task.run();
+                        } catch (Throwable e) {
+                            JCLogUtils.eTag(TAG, e, "run");
+                            fail(null, String.valueOf(e));
+                        } finally {
+                            finish();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                fail(null, String.valueOf(e));
+                finish();
+            }
+        }
+
+        private void finish() {
+            if (pending.decrementAndGet() == 0) {
+                done.countDown();
+            }
+        }
+
+        void succeed() {
+            count.incrementAndGet();
+        }
+
+        void fail(File file, String reason) {
+            synchronized (failures) {
+                failures.add(new Failure(file, reason));
+            }
+        }
+
+        /**
+         * 询问是否覆盖 (不会并发回调)
+         * @param listener 是否覆盖监听器
+         * @return true : 覆盖, false : 跳过
+         */
+        boolean replace(FileUtils.OnReplaceListener listener) {
+            if (listener == null) {
+                return false;
+            }
+            synchronized (replaceLock) {
+                return listener.onReplace();
+            }
+        }
+
+        /**
+         * 等待全部任务完成
+         * @return {@link Result}
+         */
+        Result await() {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        done.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                executor.shutdown();
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (failures) {
+                return new Result(count.get(), new ArrayList<>(failures));
+            }
+        }
+    }
+}
@@ -6,7 +6,6 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -17,14 +16,14 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.security.DigestInputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.List;
 
 import cn.com.lbt.lbtlibrary.utils.JCLogUtils;
+import cn.com.lbt.lbtlibrary.utils.common.encrypt.FileDigester;
 
 
 /**
@@ -664,6 +663,14 @@ public final class FileUtils {
      * @return 文件行数
      */
     public static int getFileLines(final File file) {
+        if (NEW_LINE_STR.endsWith("\n")) {
+            // 存在行索引则只统计新增部分, 否则映射文件按 8 字节扫描
+            FileLineIndex index = FileLineIndex.get(file);
+            long lineBreaks = index != null ? index.getLineBreakCount() : FileLineIndex.countLineBreaks(file);
+            if (lineBreaks >= 0) {
+                return (int) Math.min(lineBreaks + 1, Integer.MAX_VALUE);
+            }
+        }
         int count = 1;
         InputStream is = null;
         try {
@@ -1037,28 +1044,7 @@ public final class FileUtils {
      * @return 文件的 MD5 校验码
      */
     public static byte[] getFileMD5(final File file) {
-        if (file == null) {
-            return null;
-        }
-        DigestInputStream dis = null;
-        try {
-            FileInputStream fis = new FileInputStream(file);
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            dis = new DigestInputStream(fis, md);
-            byte[] buffer = new byte[1024 * 256];
-            while (true) {
-                if (!(dis.read(buffer) > 0)) {
-                    break;
-                }
-            }
-            md = dis.getMessageDigest();
-            return md.digest();
-        } catch (NoSuchAlgorithmException | IOException e) {
-            JCLogUtils.eTag(TAG, e, "getFileMD5");
-        } finally {
-            CloseUtils.closeIO(dis);
-        }
-        return null;
+        return FileDigester.getFileDigest(file, FileDigester.MD5);
     }
 
     // ==
@@ -1080,20 +1066,8 @@ public final class FileUtils {
      * @return
      */
     public static String getFileMD5ToString2(final File file) {
-        try {
-            InputStream fis = new FileInputStream(file);
-            byte[] buffer = new byte[1024];
-            MessageDigest md5 = MessageDigest.getInstance("MD5");
-            int numRead = 0;
-            while ((numRead = fis.read(buffer)) > 0) {
-                md5.update(buffer, 0, numRead);
-            }
-            fis.close();
-            return toHexString(md5.digest(), HEX_DIGITS);
-        } catch (Exception e) {
-            JCLogUtils.eTag(TAG, e, "getFileMD5ToString2");
-        }
-        return null;
+        byte[] md5 = FileDigester.getFileDigest(file, FileDigester.MD5);
+        return md5 != null ? toHexString(md5, HEX_DIGITS) : null;
     }
 
     // 小写
@@ -1548,7 +1522,11 @@ public final class FileUtils {
         OutputStream out = null;
         try {
             out = new FileOutputStream(destFile);
-            byte[] buffer = new byte[1024];
+            if (in instanceof FileInputStream) {
+                // 文件流直接使用 FileChannel 复制
+                return transfer(((FileInputStream) in).getChannel(), ((FileOutputStream) out).getChannel(), null);
+            }
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
             while ((byteread = in.read(buffer)) != -1) {
                 out.write(buffer, 0, byteread);
             }
@@ -1611,31 +1589,7 @@ public final class FileUtils {
             }
         }
         // 复制文件
-        int byteread = 0; // 读取的字节数
-        InputStream in = null;
-        OutputStream out = null;
-        try {
-            in = new FileInputStream(srcFile);
-            out = new FileOutputStream(destFile);
-            byte[] buffer = new byte[1024];
-            while ((byteread = in.read(buffer)) != -1) {
-                out.write(buffer, 0, byteread);
-            }
-            return true;
-        } catch (Exception e) {
-            JCLogUtils.eTag(TAG, e, "copyFile");
-            return false;
-        } finally {
-            try {
-                if (out != null) {
-                    out.close();
-                }
-                if (in != null) {
-                    in.close();
-                }
-            } catch (IOException e) {
-            }
-        }
+        return copyFileByChannel(srcFile, destFile, null);
     }
 
     /**
@@ -1727,6 +1681,16 @@ public final class FileUtils {
      * @return
      */
     public static boolean moveFile(final String srcFilePath, final String destFilePath, final boolean overlay) {
+        if (srcFilePath == null || destFilePath == null) {
+            return false;
+        }
+        File srcFile = new File(srcFilePath);
+        File destFile = new File(destFilePath);
+        // 同一文件系统直接重命名
+        if (srcFile.isFile() && !destFile.isDirectory() && (!destFile.exists() || (overlay && destFile.delete()))
+                && createOrExistsDir(destFile.getParentFile()) && srcFile.renameTo(destFile)) {
+            return true;
+        }
         // 复制文件
         if (copyFile(srcFilePath, destFilePath, overlay)) {
             // 删除文件
@@ -1744,6 +1708,16 @@ public final class FileUtils {
      * @return
      */
     public static boolean moveFolder(final String srcFilePath, final String destFilePath, final boolean overlay) {
+        if (srcFilePath == null || destFilePath == null) {
+            return false;
+        }
+        File srcFile = new File(srcFilePath);
+        File destFile = new File(destFilePath);
+        // 目标文件夹不存在, 并且同一文件系统则直接重命名
+        if (srcFile.isDirectory() && !destFile.exists()
+                && createOrExistsDir(destFile.getParentFile()) && srcFile.renameTo(destFile)) {
+            return true;
+        }
         // 复制文件夹
         if (copyFolder(srcFilePath, destFilePath, overlay)) {
             // 删除文件夹
@@ -1804,6 +1778,10 @@ public final class FileUtils {
                 return true;
             }
         }
+        // 移动目录时, 同一文件系统直接重命名 (目标目录不存在或者已清空)
+        if (isMove && createOrExistsDir(destDir.getParentFile()) && srcDir.renameTo(destDir)) {
+            return true;
+        }
         // 目标目录不存在返回 false
         if (!createOrExistsDir(destDir)) {
             return false;
@@ -1873,12 +1851,10 @@ public final class FileUtils {
         if (!createOrExistsDir(destFile.getParentFile())) {
             return false;
         }
-        try {
-            return FileIOUtils.writeFileFromIS(destFile, new FileInputStream(srcFile), false) && !(isMove && !deleteFile(srcFile));
-        } catch (FileNotFoundException e) {
-            JCLogUtils.eTag(TAG, e, "copyOrMoveFile");
-            return false;
+        if (isMove) {
+            return moveFileByChannel(srcFile, destFile, null);
         }
+        return copyFileByChannel(srcFile, destFile, null);
     }
 
     /**
@@ -1977,6 +1953,123 @@ public final class FileUtils {
         return copyOrMoveFile(srcFile, destFile, listener, true);
     }
 
+    // ================
+    // == 零拷贝复制 ==
+    // ================
+
+    // 流复制缓冲区大小
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    // FileChannel 每次 transferTo 的最大长度 (分段回调进度)
+    private static final long TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+    // 不支持 transferTo 时使用的直接缓冲区大小
+    private static final int DIRECT_BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * 复制文件 (FileChannel.transferTo, 由系统直接复制, 不经过用户空间缓冲区)
+     *
+     * @param srcFile  源文件
+     * @param destFile 目标文件 (存在则覆盖)
+     * @param listener 复制进度监听器 (可以取消复制), 可以为 null
+     * @return true : 复制成功, false :复制失败或者已取消 (删除未复制完的目标文件)
+     */
+    public static boolean copyFileByChannel(final File srcFile, final File destFile, final OnCopyListener listener) {
+        if (srcFile == null || destFile == null || !srcFile.isFile() || srcFile.equals(destFile)) {
+            return false;
+        }
+        FileInputStream fis = null;
+        FileOutputStream fos = null;
+        boolean result = false;
+        try {
+            fis = new FileInputStream(srcFile);
+            fos = new FileOutputStream(destFile);
+            result = transfer(fis.getChannel(), fos.getChannel(), listener);
+        } catch (Exception e) {
+            JCLogUtils.eTag(TAG, e, "copyFileByChannel");
+        } finally {
+            CloseUtils.closeIO(fis, fos);
+            if (!result) {
+                destFile.delete();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 移动文件 (同一文件系统直接重命名, 否则复制后删除源文件)
+     *
+     * @param srcFile  源文件
+     * @param destFile 目标文件 (存在则覆盖)
+     * @param listener 复制进度监听器 (可以取消复制), 可以为 null
+     * @return true : 移动成功, false :移动失败或者已取消
+     */
+    public static boolean moveFileByChannel(final File srcFile, final File destFile, final OnCopyListener listener) {
+        if (srcFile == null || destFile == null || !srcFile.isFile() || srcFile.equals(destFile)) {
+            return false;
+        }
+        if (srcFile.renameTo(destFile)) {
+            if (listener != null) {
+                long length = destFile.length();
+                listener.onProgress(length, length);
+            }
+            return true;
+        }
+        return copyFileByChannel(srcFile, destFile, listener) && deleteFile(srcFile);
+    }
+
+    /**
+     * 从输入 FileChannel 当前位置复制到输出 FileChannel (不支持 transferTo 则使用直接缓冲区)
+     *
+     * @param in       输入 FileChannel
+     * @param out      输出 FileChannel
+     * @param listener 复制进度监听器, 可以为 null
+     * @return true : 复制完成, false :已取消
+     * @throws IOException
+     */
+    private static boolean transfer(final FileChannel in, final FileChannel out, final OnCopyListener listener) throws IOException {
+        long start;
+        long size;
+        try {
+            start = in.position();
+            size = in.size();
+        } catch (IOException e) {
+            // 管道等不支持定位
+            start = -1;
+            size = 0;
+        }
+        // procfs、管道 (如 ContentResolver 返回的 AutoCloseInputStream) 等 size 为 0, 大小未知只使用读取
+        long total = (start >= 0 && size > start) ? size - start : -1;
+        long copied = 0;
+        if (total > 0) {
+            while (true) {
+                long count = in.transferTo(start + copied, TRANSFER_CHUNK_SIZE, out);
+                if (count <= 0) {
+                    break;
+                }
+                copied += count;
+                if (listener != null && !listener.onProgress(copied, Math.max(total, copied))) {
+                    return false;
+                }
+            }
+            in.position(start + copied);
+        }
+        if (total < 0 || in.size() > start + copied) {
+            // 大小未知, 或者不支持 transferTo, 读取到结束
+            ByteBuffer buffer = ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                copied += buffer.limit();
+                buffer.clear();
+                if (listener != null && !listener.onProgress(copied, total < 0 ? -1 : Math.max(total, copied))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * 删除目录
      *
@@ -2230,6 +2323,21 @@ public final class FileUtils {
         return list;
     }
 
+    /**
+     * 复制进度事件
+     */
+    public interface OnCopyListener {
+
+        /**
+         * 复制进度
+         *
+         * @param copied 已复制大小
+         * @param total  文件大小 (大小未知则为 -1)
+         * @return true : 继续复制, false :取消复制
+         */
+        boolean onProgress(long copied, long total);
+    }
+
     /**
      * 覆盖/替换事件
      */
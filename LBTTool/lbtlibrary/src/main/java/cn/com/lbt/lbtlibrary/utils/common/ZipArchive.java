@@ -0,0 +1,451 @@
+package cn.com.lbt.lbtlibrary.utils.common;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * detail: zip 文件格式读写 (本地文件头、中央目录)
+ * Created by Ttt
+ * ---
+ * hint:
+ * 用于直接写入已压缩的数据 (ZipOutputStream 只能写入未压缩数据)、读取文件数据位置, 不支持 zip64 (单个文件、压缩文件不超过 4GB, 不超过 65535 个文件)
+ * 文件名使用 UTF-8 编码 (包含非 ASCII 字符时设置通用标志位 11), 与 {@link java.util.zip.ZipOutputStream} 一致
+ */
+final class ZipArchive {
+
+    private ZipArchive() {
+    }
+
+    // 不压缩
+    static final int METHOD_STORED = 0;
+    // deflate 压缩
+    static final int METHOD_DEFLATED = 8;
+    // 本地文件头标识
+    static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    // 中央目录文件头标识
+    static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    // 中央目录结束标识
+    static final int END_SIGNATURE = 0x06054b50;
+    // 本地文件头长度 (不包含文件名、扩展字段)
+    static final int LOCAL_HEADER_SIZE = 30;
+    // 中央目录文件头长度 (不包含文件名、扩展字段、注释)
+    static final int CENTRAL_HEADER_SIZE = 46;
+    // 中央目录结束长度 (不包含注释)
+    static final int END_SIZE = 22;
+    // 文件名为 UTF-8 编码标志
+    private static final int FLAG_UTF8 = 0x0800;
+    // 解压所需版本
+    private static final int VERSION = 20;
+    // 4 字节最大值
+    private static final long MAX_UINT32 = 0xFFFFFFFFL;
+    // 2 字节最大值
+    private static final int MAX_UINT16 = 0xFFFF;
+
+    /**
+     * detail: 压缩文件中的文件信息
+     */
+    static final class Entry {
+        // 文件名
+        final String name;
+        // 文件名 (编码后)
+        final byte[] nameBytes;
+        // 注释 (编码后)
+        final byte[] commentBytes;
+        // 通用标志位
+        final int flags;
+        // 压缩方式
+        int method;
+        // 修改时间 (DOS 格式)
+        long dosTime;
+        // 未压缩数据的 CRC32
+        long crc;
+        // 压缩后大小
+        long compressedSize;
+        // 未压缩大小
+        long size;
+        // 本地文件头位置
+        long offset;
+
+        Entry(String name, byte[] nameBytes, byte[] commentBytes, int flags) {
+            this.name = name;
+            this.nameBytes = nameBytes;
+            this.commentBytes = commentBytes;
+            this.flags = flags;
+        }
+
+        Entry(String name, String comment, long time) {
+            this.name = name;
+            this.nameBytes = encode(name);
+            this.commentBytes = comment == null ? new byte[0] : encode(comment);
+            this.flags = (nameBytes.length != name.length() || commentBytes.length != (comment == null ? 0 : comment.length())) ? FLAG_UTF8 : 0;
+            this.dosTime = toDosTime(time);
+        }
+    }
+
+    /**
+     * detail: 中央目录
+     */
+    static final class CentralDirectory {
+        // 中央目录位置
+        long offset;
+        // 中央目录长度
+        long size;
+        // 文件数量
+        int count;
+        // 压缩文件注释 (编码后)
+        byte[] comment;
+        // 中央目录结束的结束位置 (之后为追加中断遗留的数据)
+        long end;
+        // 文件信息
+        final List<Entry> entries = new ArrayList<>();
+    }
+
+    /**
+     * 读取中央目录 (文件末尾为追加中断遗留的数据时, 使用之前的中央目录)
+     * @param channel {@link FileChannel}
+     * @return {@link CentralDirectory}
+     * @throws IOException 非 zip 文件或 zip64 时抛出
+     */
+    static CentralDirectory readCentralDirectory(final FileChannel channel) throws IOException {
+        long length = channel.size();
+        int tailSize = (int) Math.min(length, END_SIZE + MAX_UINT16);
+        ByteBuffer tail = allocate(tailSize);
+        readFully(channel, tail, length - tailSize);
+        CentralDirectory directory = null;
+        // 从后往前查找中央目录结束 (注释长度需要刚好到文件末尾)
+        for (int i = tailSize - END_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_SIGNATURE && i + END_SIZE + (tail.getShort(i + 20) & MAX_UINT16) == tailSize) {
+                directory = new CentralDirectory();
+                directory.count = tail.getShort(i + 10) & MAX_UINT16;
+                directory.size = tail.getInt(i + 12) & MAX_UINT32;
+                directory.offset = tail.getInt(i + 16) & MAX_UINT32;
+                directory.comment = new byte[tail.getShort(i + 20) & MAX_UINT16];
+                tail.position(i + END_SIZE);
+                tail.get(directory.comment);
+                directory.end = length;
+                break;
+            }
+        }
+        if (directory == null) {
+            directory = findInterruptedEnd(channel, length);
+        }
+        if (directory == null) {
+            throw new IOException("not a zip file");
+        }
+        if (directory.count == MAX_UINT16 || directory.offset == MAX_UINT32 || directory.size == MAX_UINT32) {
+            throw new IOException("zip64 is not supported");
+        }
+        if (directory.offset + directory.size > length) {
+            throw new IOException("invalid central directory");
+        }
+        ByteBuffer buffer = allocate((int) directory.size);
+        readFully(channel, buffer, directory.offset);
+        buffer.flip();
+        for (int i = 0; i < directory.count; i++) {
+            if (buffer.remaining() < CENTRAL_HEADER_SIZE || buffer.getInt() != CENTRAL_HEADER_SIGNATURE) {
+                throw new IOException("invalid central directory");
+            }
+            int start = buffer.position() - 4;
+            int flags = buffer.getShort(start + 8) & MAX_UINT16;
+            int nameLength = buffer.getShort(start + 28) & MAX_UINT16;
+            int extraLength = buffer.getShort(start + 30) & MAX_UINT16;
+            int commentLength = buffer.getShort(start + 32) & MAX_UINT16;
+            byte[] nameBytes = new byte[nameLength];
+            byte[] commentBytes = new byte[commentLength];
+            buffer.position(start + CENTRAL_HEADER_SIZE);
+            buffer.get(nameBytes);
+            buffer.position(buffer.position() + extraLength);
+            buffer.get(commentBytes);
+            Entry entry = new Entry(new String(nameBytes, "UTF-8"), nameBytes, commentBytes, flags);
+            entry.method = buffer.getShort(start + 10) & MAX_UINT16;
+            entry.dosTime = buffer.getInt(start + 12) & MAX_UINT32;
+            entry.crc = buffer.getInt(start + 16) & MAX_UINT32;
+            entry.compressedSize = buffer.getInt(start + 20) & MAX_UINT32;
+            entry.size = buffer.getInt(start + 24) & MAX_UINT32;
+            entry.offset = buffer.getInt(start + 42) & MAX_UINT32;
+            directory.entries.add(entry);
+        }
+        return directory;
+    }
+
+    /**
+     * 从后往前查找有效的中央目录结束 (中央目录刚好在中央目录结束前面, 之后的数据为追加中断遗留)
+     * @param channel {@link FileChannel}
+     * @param length  文件长度
+     * @return {@link CentralDirectory}, 不存在则返回 null
+     * @throws IOException
+     */
+    private static CentralDirectory findInterruptedEnd(final FileChannel channel, final long length) throws IOException {
+        final int chunkSize = 64 * 1024;
+        ByteBuffer signature = allocate(4);
+        // 查找位置范围 [start, limit)
+        long limit = length - END_SIZE + 1;
+        while (limit > 0) {
+            long start = Math.max(0, limit - chunkSize);
+            ByteBuffer chunk = allocate((int) (Math.min(length, limit - 1 + END_SIZE) - start));
+            readFully(channel, chunk, start);
+            for (int i = (int) (limit - 1 - start); i >= 0; i--) {
+                if (chunk.getInt(i) != END_SIGNATURE) {
+                    continue;
+                }
+                long position = start + i;
+                int count = chunk.getShort(i + 10) & MAX_UINT16;
+                long size = chunk.getInt(i + 12) & MAX_UINT32;
+                long offset = chunk.getInt(i + 16) & MAX_UINT32;
+                int commentLength = chunk.getShort(i + 20) & MAX_UINT16;
+                if (offset + size != position || position + END_SIZE + commentLength > length) {
+                    continue;
+                }
+                if (count != 0) {
+                    signature.clear();
+                    readFully(channel, signature, offset);
+                    if (signature.getInt(0) != CENTRAL_HEADER_SIGNATURE) {
+                        continue;
+                    }
+                }
+                CentralDirectory directory = new CentralDirectory();
+                directory.count = count;
+                directory.size = size;
+                directory.offset = offset;
+                directory.comment = new byte[commentLength];
+                readFully(channel, ByteBuffer.wrap(directory.comment), position + END_SIZE);
+                directory.end = position + END_SIZE + commentLength;
+                return directory;
+            }
+            limit = start;
+        }
+        return null;
+    }
+
+    /**
+     * 获取文件数据位置 (读取本地文件头)
+     * @param channel {@link FileChannel}
+     * @param entry   文件信息
+     * @return 数据位置
+     * @throws IOException
+     */
+    static long getDataOffset(final FileChannel channel, final Entry entry) throws IOException {
+        ByteBuffer buffer = allocate(LOCAL_HEADER_SIZE);
+        readFully(channel, buffer, entry.offset);
+        if (buffer.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new IOException("invalid local header: " + entry.name);
+        }
+        return entry.offset + LOCAL_HEADER_SIZE + (buffer.getShort(26) & MAX_UINT16) + (buffer.getShort(28) & MAX_UINT16);
+    }
+
+    /**
+     * 读取数据直到缓冲区填满
+     * @param channel  {@link FileChannel}
+     * @param buffer   缓冲区
+     * @param position 读取位置
+     * @throws IOException
+     */
+    static void readFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int len = channel.read(buffer, offset);
+            if (len < 0) {
+                throw new EOFException();
+            }
+            offset += len;
+        }
+    }
+
+    /**
+     * 写入本地文件头
+     * @param channel {@link FileChannel}
+     * @param entry   文件信息 (offset 为写入位置)
+     * @return 本地文件头长度
+     * @throws IOException
+     */
+    static int writeLocalHeader(final FileChannel channel, final Entry entry) throws IOException {
+        checkEntry(entry);
+        ByteBuffer buffer = allocate(LOCAL_HEADER_SIZE + entry.nameBytes.length);
+        buffer.putInt(LOCAL_HEADER_SIGNATURE);
+        buffer.putShort((short) VERSION);
+        buffer.putShort((short) entry.flags);
+        buffer.putShort((short) entry.method);
+        buffer.putInt((int) entry.dosTime);
+        buffer.putInt((int) entry.crc);
+        buffer.putInt((int) entry.compressedSize);
+        buffer.putInt((int) entry.size);
+        buffer.putShort((short) entry.nameBytes.length);
+        buffer.putShort((short) 0);
+        buffer.put(entry.nameBytes);
+        buffer.flip();
+        writeFully(channel, buffer, entry.offset);
+        return buffer.limit();
+    }
+
+    /**
+     * 写入中央目录及中央目录结束
+     * @param channel  {@link FileChannel}
+     * @param position 写入位置
+     * @param existing 保留的中央目录数据 (写在前面, 可为 null)
+     * @param count    保留的中央目录文件数量
+     * @param entries  新增的文件信息
+     * @param comment  压缩文件注释 (编码后, 可为 null)
+     * @return 写入结束位置
+     * @throws IOException
+     */
+    static long writeCentralDirectory(final FileChannel channel, final long position, final byte[] existing, final int count,
+                                      final List<Entry> entries, final byte[] comment) throws IOException {
+        int total = count + entries.size();
+        if (total > MAX_UINT16 || position > MAX_UINT32) {
+            throw new IOException("zip64 is not supported");
+        }
+        long offset = position;
+        if (existing != null && existing.length > 0) {
+            writeFully(channel, ByteBuffer.wrap(existing), offset);
+            offset += existing.length;
+        }
+        for (Entry entry : entries) {
+            ByteBuffer buffer = allocate(CENTRAL_HEADER_SIZE + entry.nameBytes.length + entry.commentBytes.length);
+            buffer.putInt(CENTRAL_HEADER_SIGNATURE);
+            buffer.putShort((short) VERSION);
+            buffer.putShort((short) VERSION);
+            buffer.putShort((short) entry.flags);
+            buffer.putShort((short) entry.method);
+            buffer.putInt((int) entry.dosTime);
+            buffer.putInt((int) entry.crc);
+            buffer.putInt((int) entry.compressedSize);
+            buffer.putInt((int) entry.size);
+            buffer.putShort((short) entry.nameBytes.length);
+            buffer.putShort((short) 0);
+            buffer.putShort((short) entry.commentBytes.length);
+            buffer.putShort((short) 0);
+            buffer.putShort((short) 0);
+            buffer.putInt(0);
+            buffer.putInt((int) entry.offset);
+            buffer.put(entry.nameBytes);
+            buffer.put(entry.commentBytes);
+            buffer.flip();
+            writeFully(channel, buffer, offset);
+            offset += buffer.limit();
+        }
+        long size = offset - position;
+        if (size > MAX_UINT32) {
+            throw new IOException("zip64 is not supported");
+        }
+        int commentLength = comment == null ? 0 : Math.min(comment.length, MAX_UINT16);
+        ByteBuffer buffer = allocate(END_SIZE + commentLength);
+        buffer.putInt(END_SIGNATURE);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) total);
+        buffer.putShort((short) total);
+        buffer.putInt((int) size);
+        buffer.putInt((int) position);
+        buffer.putShort((short) commentLength);
+        if (commentLength > 0) {
+            buffer.put(comment, 0, commentLength);
+        }
+        buffer.flip();
+        writeFully(channel, buffer, offset);
+        return offset + buffer.limit();
+    }
+
+    /**
+     * 写入全部数据
+     * @param channel  {@link FileChannel}
+     * @param buffer   数据
+     * @param position 写入位置
+     * @throws IOException
+     */
+    static void writeFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    /**
+     * 复制数据 (transferTo, 零拷贝)
+     * @param source   源文件通道
+     * @param from     读取位置
+     * @param count    数据长度
+     * @param target   目标文件通道
+     * @param position 写入位置
+     * @throws IOException
+     */
+    static void transfer(final FileChannel source, final long from, final long count, final FileChannel target, final long position) throws IOException {
+        long done = 0;
+        while (done < count) {
+            long len = source.transferTo(from + done, count - done, target.position(position + done));
+            if (len <= 0) {
+                if (from + done >= source.size()) {
+                    throw new IOException("unexpected end of file");
+                }
+                // transferTo 不支持时使用缓冲区复制
+                ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(count - done, 64 * 1024));
+                len = source.read(buffer, from + done);
+                if (len <= 0) {
+                    throw new IOException("unexpected end of file");
+                }
+                buffer.flip();
+                writeFully(target, buffer, position + done);
+            }
+            done += len;
+        }
+    }
+
+    /**
+     * 转换为 DOS 格式时间
+     * @param time 毫秒
+     * @return DOS 格式时间
+     */
+    static long toDosTime(final long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((year - 1980) << 25 | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16 | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5 | calendar.get(Calendar.SECOND) >> 1) & MAX_UINT32;
+    }
+
+    /**
+     * UTF-8 编码
+     * @param str 字符串
+     * @return 编码后的数据
+     */
+    static byte[] encode(final String str) {
+        try {
+            return str.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // =
+
+    /**
+     * 检查是否超出 zip (非 zip64) 限制
+     * @param entry 文件信息
+     * @throws IOException
+     */
+    private static void checkEntry(final Entry entry) throws IOException {
+        if (entry.size > MAX_UINT32 || entry.compressedSize > MAX_UINT32 || entry.offset > MAX_UINT32
+                || entry.nameBytes.length > MAX_UINT16 || entry.commentBytes.length > MAX_UINT16) {
+            throw new IOException("zip64 is not supported: " + entry.name);
+        }
+    }
+
+    /**
+     * 申请小端序缓冲区
+     * @param size 大小
+     * @return {@link ByteBuffer}
+     */
+    private static ByteBuffer allocate(final int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
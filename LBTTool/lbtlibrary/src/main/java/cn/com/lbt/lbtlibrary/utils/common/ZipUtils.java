@@ -7,12 +7,33 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
@@ -31,6 +52,21 @@ public final class ZipUtils {
     private static final String TAG = ZipUtils.class.getSimpleName();
     // 缓存大小
     private static final int BUFFER_LEN = 8192;
+    // 压缩等级: 不压缩 (STORED)
+    public static final int LEVEL_STORED = -2;
+    // 默认并行数量
+    public static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    // 并行压缩时的读取缓存大小
+    private static final int PARALLEL_BUFFER_LEN = 64 * 1024;
+    // 压缩后数据超过该大小写入临时文件
+    private static final int SPILL_THRESHOLD = 4 * 1024 * 1024;
+    // STORED 文件不小于该大小时直接复制文件数据 (transferTo)
+    private static final int ZERO_COPY_MIN_SIZE = 64 * 1024;
+    // 已压缩格式的后缀 (不再压缩, 直接 STORED)
+    private static final String[] COMPRESSED_SUFFIXES = {
+            ".zip", ".gz", ".tgz", ".bz2", ".xz", ".7z", ".rar", ".apk", ".jar",
+            ".jpg", ".jpeg", ".png", ".gif", ".webp", ".mp3", ".aac", ".ogg", ".mp4", ".3gp", ".mkv", ".webm"
+    };
 
     /**
      * 批量压缩文件
@@ -216,6 +252,503 @@ public final class ZipUtils {
         return true;
     }
 
+    /**
+     * 并行批量压缩文件
+     * @param resFiles 待压缩文件集合
+     * @param zipFile 压缩文件
+     * @param comment 压缩文件的注释
+     * @return true : 压缩成功, false : 压缩失败
+     * @throws IOException IO错误时抛出, 存在相同路径时抛出 {@link ZipException}
+     */
+    public static boolean zipFilesParallel(final Collection<File> resFiles, final File zipFile, final String comment) throws IOException {
+        return zipFilesParallel(resFiles, zipFile, comment, Deflater.DEFAULT_COMPRESSION, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * 并行批量压缩文件
+     * <pre>
+     *     每个文件在线程池中单独压缩到内存 (超过 4MB 写入临时文件), 调用线程按顺序写入压缩文件
+     *     已压缩格式 (zip、jpg、mp4 等) 以及压缩后更大的文件直接 STORED
+     * </pre>
+     * @param resFiles 待压缩文件集合
+     * @param zipFile 压缩文件
+     * @param comment 压缩文件的注释
+     * @param level 压缩等级 ({@link Deflater#DEFAULT_COMPRESSION}, 0-9, {@link #LEVEL_STORED} 全部不压缩)
+     * @param parallelism 并行数量
+     * @return true : 压缩成功, false : 压缩失败
+     * @throws IOException IO错误时抛出, 存在相同路径时抛出 {@link ZipException}
+     */
+    public static boolean zipFilesParallel(final Collection<File> resFiles, final File zipFile, final String comment,
+                                           final int level, final int parallelism) throws IOException {
+        if (resFiles == null || zipFile == null) {
+            return false;
+        }
+        if (level != LEVEL_STORED && (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("level: " + level);
+        }
+        final List<File> sources = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        for (File resFile : resFiles) {
+            if (resFile == null || !resFile.exists()) {
+                return false;
+            }
+            collectFiles(resFile, "", sources, names);
+        }
+        // 与 ZipOutputStream 一致, 不允许相同路径
+        Set<String> existing = new HashSet<>();
+        for (String name : names) {
+            if (!existing.add(name)) {
+                throw new ZipException("duplicate entry: " + name);
+            }
+        }
+        FileOutputStream fos = null;
+        try {
+            fos = new FileOutputStream(zipFile);
+            FileChannel channel = fos.getChannel();
+            List<ZipArchive.Entry> entries = new ArrayList<>(sources.size());
+            long position = writeEntries(channel, 0, sources, names, comment, level, parallelism,
+                    zipFile.getAbsoluteFile().getParentFile(), entries);
+            long end = ZipArchive.writeCentralDirectory(channel, position, null, 0, entries, null);
+            channel.truncate(end);
+            return true;
+        } finally {
+            CloseUtils.closeIO(fos);
+        }
+    }
+
+    /**
+     * 追加文件到压缩文件 (不存在则创建)
+     * @param resFiles 待压缩文件集合
+     * @param zipFile 压缩文件
+     * @param comment 压缩文件的注释
+     * @return true : 压缩成功, false : 压缩失败
+     * @throws IOException IO错误时抛出, 压缩文件中已存在相同路径时抛出 {@link ZipException}
+     */
+    public static boolean appendFiles(final Collection<File> resFiles, final File zipFile, final String comment) throws IOException {
+        return appendFiles(resFiles, zipFile, comment, Deflater.DEFAULT_COMPRESSION, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * 追加文件到压缩文件 (不存在则创建)
+     * <pre>
+     *     已有文件的数据不读取、不重新压缩, 新文件写入在原中央目录结束之后, 再写入原中央目录数据 + 新文件信息
+     *     原中央目录不修改 (成为无效数据), 写入过程中进程被杀死、断电时仍可读取原中央目录 (再次追加时覆盖遗留的数据)
+     *     写入失败时删除已写入的数据 (压缩文件保持追加前的内容)
+     * </pre>
+     * @param resFiles 待压缩文件集合
+     * @param zipFile 压缩文件
+     * @param comment 压缩文件的注释
+     * @param level 压缩等级 ({@link Deflater#DEFAULT_COMPRESSION}, 0-9, {@link #LEVEL_STORED} 全部不压缩)
+     * @param parallelism 并行数量
+     * @return true : 压缩成功, false : 压缩失败
+     * @throws IOException IO错误时抛出, 压缩文件中已存在相同路径时抛出 {@link ZipException}
+     */
+    public static boolean appendFiles(final Collection<File> resFiles, final File zipFile, final String comment,
+                                      final int level, final int parallelism) throws IOException {
+        if (resFiles == null || zipFile == null) {
+            return false;
+        }
+        if (!zipFile.exists() || zipFile.length() == 0) {
+            return zipFilesParallel(resFiles, zipFile, comment, level, parallelism);
+        }
+        if (level != LEVEL_STORED && (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("level: " + level);
+        }
+        final List<File> sources = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        for (File resFile : resFiles) {
+            if (resFile == null || !resFile.exists()) {
+                return false;
+            }
+            collectFiles(resFile, "", sources, names);
+        }
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(zipFile, "rw");
+            FileChannel channel = raf.getChannel();
+            ZipArchive.CentralDirectory directory = ZipArchive.readCentralDirectory(channel);
+            Set<String> existing = new HashSet<>();
+            for (ZipArchive.Entry entry : directory.entries) {
+                existing.add(entry.name);
+            }
+            for (String name : names) {
+                if (!existing.add(name)) {
+                    throw new ZipException("duplicate entry: " + name);
+                }
+            }
+            // 原中央目录数据 (保持不变, 写在新文件信息前面)
+            ByteBuffer buffer = ByteBuffer.allocate((int) directory.size);
+            ZipArchive.readFully(channel, buffer, directory.offset);
+            byte[] centralDirectory = buffer.array();
+            List<ZipArchive.Entry> entries = new ArrayList<>(sources.size());
+            try {
+                long position = writeEntries(channel, directory.end, sources, names, comment, level, parallelism,
+                        zipFile.getAbsoluteFile().getParentFile(), entries);
+                // 文件数据写入磁盘后再写入中央目录, 避免断电时中央目录指向未写入的数据
+                channel.force(false);
+                long end = ZipArchive.writeCentralDirectory(channel, position, centralDirectory, directory.count, entries, directory.comment);
+                channel.truncate(end);
+            } catch (IOException | RuntimeException e) {
+                // 删除已写入的数据 (原中央目录未修改)
+                channel.truncate(directory.end);
+                throw e;
+            }
+            return true;
+        } finally {
+            CloseUtils.closeIO(raf);
+        }
+    }
+
+    /**
+     * 并行压缩并按顺序写入文件 (本地文件头 + 压缩数据)
+     * @param channel 压缩文件通道
+     * @param position 写入位置
+     * @param sources 需要压缩的文件
+     * @param names 压缩文件中的路径
+     * @param comment 注释
+     * @param level 压缩等级
+     * @param parallelism 并行数量
+     * @param spillDir 临时文件目录
+     * @param entries 写入的文件信息
+     * @return 写入结束位置
+     * @throws IOException
+     */
+    private static long writeEntries(final FileChannel channel, final long position, final List<File> sources, final List<String> names,
+                                     final String comment, final int level, final int parallelism, final File spillDir,
+                                     final List<ZipArchive.Entry> entries) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ZipUtils-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        List<Future<Compressed>> futures = new ArrayList<>();
+        try {
+            // 限制同时压缩完成等待写入的数量, 避免占用过多内存
+            int window = Math.max(1, parallelism) * 2;
+            int submitted = 0;
+            for (; submitted < sources.size() && submitted < window; submitted++) {
+                futures.add(executor.submit(new CompressTask(sources.get(submitted), names.get(submitted), comment, level, spillDir)));
+            }
+            long offset = position;
+            for (int i = 0; i < sources.size(); i++) {
+                Compressed compressed = getResult(futures.get(i));
+                futures.set(i, null);
+                try {
+                    ZipArchive.Entry entry = compressed.entry;
+                    entry.offset = offset;
+                    offset += ZipArchive.writeLocalHeader(channel, entry);
+                    compressed.writeTo(channel, offset);
+                    offset += entry.compressedSize;
+                    entries.add(entry);
+                } finally {
+                    compressed.release();
+                }
+                if (submitted < sources.size()) {
+                    futures.add(executor.submit(new CompressTask(sources.get(submitted), names.get(submitted), comment, level, spillDir)));
+                    submitted++;
+                }
+            }
+            return offset;
+        } finally {
+            // 未开始的任务取消, 已开始的任务等待完成后删除临时文件
+            for (Runnable runnable : executor.shutdownNow()) {
+                ((Future<?>) runnable).cancel(false);
+            }
+            for (Future<Compressed> future : futures) {
+                if (future != null) {
+                    try {
+                        future.get().release();
+                    } catch (Exception ignore) {
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取压缩后的文件信息
+     * @param future {@link Future}
+     * @return {@link Compressed}
+     * @throws IOException
+     */
+    private static Compressed getResult(final Future<Compressed> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("zipFilesParallel");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 获取需要压缩的文件 (空文件夹保存为文件夹)
+     * @param resFile 待压缩文件
+     * @param rootPath 相对于压缩文件的路径
+     * @param sources 需要压缩的文件
+     * @param names 压缩文件中的路径
+     */
+    private static void collectFiles(final File resFile, final String rootPath, final List<File> sources, final List<String> names) {
+        String path = rootPath + (isSpace(rootPath) ? "" : "/") + resFile.getName();
+        if (resFile.isDirectory()) {
+            File[] fileList = resFile.listFiles();
+            if (fileList == null || fileList.length <= 0) {
+                sources.add(resFile);
+                names.add(path + '/');
+            } else {
+                for (File file : fileList) {
+                    collectFiles(file, path, sources, names);
+                }
+            }
+        } else {
+            sources.add(resFile);
+            names.add(path);
+        }
+    }
+
+    /**
+     * 判断是否为已压缩格式
+     * @param file 文件
+     * @return true : 已压缩格式, false : 其他格式
+     */
+    private static boolean isCompressedFile(final File file) {
+        String name = file.getName().toLowerCase(Locale.ENGLISH);
+        for (String suffix : COMPRESSED_SUFFIXES) {
+            if (name.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * detail: 压缩后的文件 (压缩数据保存在内存或临时文件中, STORED 则直接使用源文件)
+     */
+    private static final class Compressed {
+
+        // 文件信息
+        final ZipArchive.Entry entry;
+        // 源文件
+        final File source;
+        // 压缩数据
+        byte[] data;
+        // 压缩数据临时文件
+        File spill;
+
+        Compressed(ZipArchive.Entry entry, File source) {
+            this.entry = entry;
+            this.source = source;
+        }
+
+        /**
+         * 写入压缩数据
+         * @param channel 压缩文件通道
+         * @param position 写入位置
+         * @throws IOException
+         */
+        void writeTo(final FileChannel channel, final long position) throws IOException {
+            if (entry.compressedSize == 0) {
+                return;
+            }
+            if (data != null) {
+                ZipArchive.writeFully(channel, ByteBuffer.wrap(data, 0, (int) entry.compressedSize), position);
+                return;
+            }
+            FileInputStream fis = null;
+            try {
+                fis = new FileInputStream(spill != null ? spill : source);
+                ZipArchive.transfer(fis.getChannel(), 0, entry.compressedSize, channel, position);
+            } finally {
+                CloseUtils.closeIO(fis);
+            }
+        }
+
+        /**
+         * 释放压缩数据
+         */
+        void release() {
+            data = null;
+            if (spill != null) {
+                spill.delete();
+                spill = null;
+            }
+        }
+    }
+
+    /**
+     * detail: 压缩任务
+     */
+    private static final class CompressTask implements Callable<Compressed> {
+
+        // 源文件
+        private final File source;
+        // 压缩文件中的路径
+        private final String name;
+        // 注释
+        private final String comment;
+        // 压缩等级
+        private final int level;
+        // 临时文件目录
+        private final File spillDir;
+
+        CompressTask(File source, String name, String comment, int level, File spillDir) {
+            this.source = source;
+            this.name = name;
+            this.comment = comment;
+            this.level = level;
+            this.spillDir = spillDir;
+        }
+
+        @Override
+        public Compressed call() throws Exception {
+            ZipArchive.Entry entry = new ZipArchive.Entry(name, comment, source.lastModified());
+            Compressed compressed = new Compressed(entry, source);
+            if (source.isDirectory()) {
+                entry.method = ZipArchive.METHOD_STORED;
+                return compressed;
+            }
+            boolean stored = level == LEVEL_STORED || isCompressedFile(source);
+            CRC32 crc32 = new CRC32();
+            byte[] buffer = new byte[PARALLEL_BUFFER_LEN];
+            Deflater deflater = stored ? null : new Deflater(level, true);
+            SpillOutputStream out = stored ? null : new SpillOutputStream(spillDir);
+            InputStream is = null;
+            try {
+                is = new FileInputStream(source);
+                byte[] output = new byte[PARALLEL_BUFFER_LEN];
+                long size = 0;
+                int len;
+                while ((len = is.read(buffer)) != -1) {
+                    crc32.update(buffer, 0, len);
+                    size += len;
+                    if (deflater != null) {
+                        deflater.setInput(buffer, 0, len);
+                        while (!deflater.needsInput()) {
+                            out.write(output, 0, deflater.deflate(output, 0, output.length));
+                        }
+                    }
+                }
+                entry.crc = crc32.getValue();
+                entry.size = size;
+                if (deflater != null) {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        out.write(output, 0, deflater.deflate(output, 0, output.length));
+                    }
+                    out.close();
+                }
+                if (deflater == null || out.size() >= size) {
+                    // 不压缩或压缩后更大, 直接使用源文件数据
+                    entry.method = ZipArchive.METHOD_STORED;
+                    entry.compressedSize = size;
+                    if (out != null) {
+                        out.delete();
+                    }
+                } else {
+                    entry.method = ZipArchive.METHOD_DEFLATED;
+                    entry.compressedSize = out.size();
+                    compressed.data = out.getData();
+                    compressed.spill = out.getSpill();
+                }
+                return compressed;
+            } catch (Exception e) {
+                if (out != null) {
+                    out.delete();
+                }
+                throw e;
+            } finally {
+                CloseUtils.closeIO(is, out);
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+        }
+    }
+
+    /**
+     * detail: 压缩数据输出 (超过 {@link #SPILL_THRESHOLD} 写入临时文件)
+     */
+    private static final class SpillOutputStream extends OutputStream {
+
+        // 临时文件目录
+        private final File dir;
+        // 内存数据
+        private byte[] data = new byte[BUFFER_LEN];
+        // 数据大小
+        private long size;
+        // 临时文件
+        private File spill;
+        // 临时文件输出流
+        private OutputStream spillStream;
+
+        SpillOutputStream(File dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len <= 0) {
+                return;
+            }
+            if (spillStream == null && size + len > SPILL_THRESHOLD) {
+                spill = File.createTempFile("zip", ".tmp", dir);
+                spillStream = new BufferedOutputStream(new FileOutputStream(spill), PARALLEL_BUFFER_LEN);
+                spillStream.write(data, 0, (int) size);
+                data = null;
+            }
+            if (spillStream != null) {
+                spillStream.write(b, off, len);
+            } else {
+                if (size + len > data.length) {
+                    data = Arrays.copyOf(data, (int) Math.min(SPILL_THRESHOLD, Math.max(data.length * 2L, size + len)));
+                }
+                System.arraycopy(b, off, data, (int) size, len);
+            }
+            size += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (spillStream != null) {
+                spillStream.close();
+            }
+        }
+
+        long size() {
+            return size;
+        }
+
+        byte[] getData() {
+            return data;
+        }
+
+        File getSpill() {
+            return spill;
+        }
+
+        void delete() {
+            CloseUtils.closeIO(spillStream);
+            if (spill != null) {
+                spill.delete();
+            }
+        }
+    }
+
     /**
      * 解压文件
      * @param zipFilePath 待解压文件路径
@@ -264,12 +797,29 @@ public final class ZipUtils {
         }
         List<File> files = new ArrayList<>();
         ZipFile zip = new ZipFile(zipFile);
+        try {
+            return unzipFileByKeyword(zip, destDir, keyword, files);
+        } finally {
+            CloseUtils.closeIO(zip);
+        }
+    }
+
+    /**
+     * 解压带有关键字的文件
+     * @param zip 待解压文件
+     * @param destDir 目标目录
+     * @param keyword 关键字
+     * @param files 解压的文件链表
+     * @return 返回带有关键字的文件链表
+     * @throws IOException IO 错误时抛出
+     */
+    private static List<File> unzipFileByKeyword(final ZipFile zip, final File destDir, final String keyword, final List<File> files) throws IOException {
         Enumeration<?> entries = zip.entries();
         if (isSpace(keyword)) {
             while (entries.hasMoreElements()) {
                 ZipEntry entry = ((ZipEntry) entries.nextElement());
                 String entryName = entry.getName();
-                if (entryName.contains("../")) {
+                if (!isSafeEntryName(entryName)) {
                     JCLogUtils.dTag(TAG, ("entryName: " + entryName + " is dangerous!"));
                     continue;
                 }
@@ -281,7 +831,7 @@ public final class ZipUtils {
             while (entries.hasMoreElements()) {
                 ZipEntry entry = ((ZipEntry) entries.nextElement());
                 String entryName = entry.getName();
-                if (entryName.contains("../")) {
+                if (!isSafeEntryName(entryName)) {
                     JCLogUtils.dTag(TAG, ("entryName: " + entryName + " is dangerous!"));
                     continue;
                 }
@@ -295,6 +845,267 @@ public final class ZipUtils {
         return files;
     }
 
+    /**
+     * 并行解压带有关键字的文件
+     * @param zipFile 待解压文件
+     * @param destDir 目标目录
+     * @param keyword 关键字 (为空则解压全部)
+     * @param parallelism 并行数量
+     * @return 返回带有关键字的文件链表
+     * @throws IOException IO 错误时抛出
+     */
+    public static List<File> unzipFileParallel(final File zipFile, final File destDir, final String keyword, final int parallelism) throws IOException {
+        return unzipParallel(zipFile, destDir, keyword, null, parallelism);
+    }
+
+    /**
+     * 并行解压指定的文件 (通过中央目录直接定位, 不遍历压缩文件)
+     * @param zipFile 待解压文件
+     * @param destDir 目标目录
+     * @param entryNames 压缩文件中的路径集合 (不存在的路径忽略)
+     * @param parallelism 并行数量
+     * @return 解压的文件链表
+     * @throws IOException IO 错误时抛出
+     */
+    public static List<File> unzipEntries(final File zipFile, final File destDir, final Collection<String> entryNames, final int parallelism) throws IOException {
+        if (entryNames == null) {
+            return null;
+        }
+        return unzipParallel(zipFile, destDir, null, entryNames, parallelism);
+    }
+
+    /**
+     * 并行解压文件
+     * <pre>
+     *     文件夹、父目录在调用线程按顺序创建, 文件在线程池中解压
+     *     不小于 64KB 的 STORED 文件直接从压缩文件复制数据 (transferTo), 不经过 Inflater
+     * </pre>
+     * @param zipFile 待解压文件
+     * @param destDir 目标目录
+     * @param keyword 关键字 (entryNames 为 null 时使用)
+     * @param entryNames 压缩文件中的路径集合
+     * @param parallelism 并行数量
+     * @return 解压的文件链表
+     * @throws IOException IO 错误时抛出
+     */
+    private static List<File> unzipParallel(final File zipFile, final File destDir, final String keyword,
+                                            final Collection<String> entryNames, final int parallelism) throws IOException {
+        if (zipFile == null || destDir == null) {
+            return null;
+        }
+        // 只获取一次目标目录的规范路径, 文件路径在 isSafeEntryName 中按名称校验
+        final File root = destDir.getCanonicalFile();
+        final ZipFile zip = new ZipFile(zipFile);
+        ExecutorService executor = null;
+        try {
+            List<ZipEntry> selected = new ArrayList<>();
+            if (entryNames != null) {
+                for (String entryName : entryNames) {
+                    ZipEntry entry = entryName != null ? zip.getEntry(entryName) : null;
+                    if (entry != null) {
+                        selected.add(entry);
+                    }
+                }
+            } else {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (isSpace(keyword) || entry.getName().contains(keyword)) {
+                        selected.add(entry);
+                    }
+                }
+            }
+            Map<String, ZipArchive.Entry> rawEntries = null;
+            List<File> files = new ArrayList<>();
+            List<ZipEntry> fileEntries = new ArrayList<>();
+            List<File> targets = new ArrayList<>();
+            for (ZipEntry entry : selected) {
+                String entryName = entry.getName();
+                if (!isSafeEntryName(entryName)) {
+                    JCLogUtils.dTag(TAG, ("entryName: " + entryName + " is dangerous!"));
+                    continue;
+                }
+                File file = new File(root, entryName);
+                files.add(file);
+                if (entry.isDirectory()) {
+                    if (!createOrExistsDir(file)) {
+                        throw new IOException("create dir failed: " + file);
+                    }
+                } else {
+                    if (!createOrExistsDir(file.getParentFile())) {
+                        throw new IOException("create dir failed: " + file.getParentFile());
+                    }
+                    if (rawEntries == null && entry.getMethod() == ZipEntry.STORED && entry.getSize() >= ZERO_COPY_MIN_SIZE) {
+                        try {
+                            rawEntries = readRawEntries(zipFile);
+                        } catch (IOException e) {
+                            // zip64 等不支持直接读取的格式, 全部使用 ZipFile 读取
+                            rawEntries = new HashMap<>();
+                        }
+                    }
+                    fileEntries.add(entry);
+                    targets.add(file);
+                }
+            }
+            if (fileEntries.isEmpty()) {
+                return files;
+            }
+            executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, fileEntries.size())), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ZipUtils-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            List<Future<Void>> futures = new ArrayList<>(fileEntries.size());
+            for (int i = 0, size = fileEntries.size(); i < size; i++) {
+                ZipEntry entry = fileEntries.get(i);
+                ZipArchive.Entry raw = rawEntries != null ? rawEntries.get(entry.getName()) : null;
+                if (raw != null && (raw.method != ZipArchive.METHOD_STORED || raw.size != entry.getSize())) {
+                    raw = null;
+                }
+                futures.add(executor.submit(new UnzipTask(zip, zipFile, entry, raw, targets.get(i))));
+            }
+            IOException exception = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("unzipParallel");
+                } catch (ExecutionException e) {
+                    if (exception == null) {
+                        Throwable cause = e.getCause();
+                        exception = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                    }
+                }
+            }
+            if (exception != null) {
+                throw exception;
+            }
+            return files;
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+                try {
+                    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            CloseUtils.closeIO(zip);
+        }
+    }
+
+    /**
+     * 读取中央目录中的文件信息
+     * @param zipFile 压缩文件
+     * @return 文件名对应的文件信息
+     * @throws IOException
+     */
+    private static Map<String, ZipArchive.Entry> readRawEntries(final File zipFile) throws IOException {
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(zipFile);
+            Map<String, ZipArchive.Entry> map = new HashMap<>();
+            for (ZipArchive.Entry entry : ZipArchive.readCentralDirectory(fis.getChannel()).entries) {
+                map.put(entry.name, entry);
+            }
+            return map;
+        } finally {
+            CloseUtils.closeIO(fis);
+        }
+    }
+
+    /**
+     * 判断压缩文件中的路径是否安全 (不会解压到目标目录外)
+     * <pre>
+     *     不允许绝对路径、盘符、包含 ".." 的路径段, 校验只需要遍历一次名称, 不需要获取每个文件的规范路径
+     * </pre>
+     * @param entryName 压缩文件中的路径
+     * @return true : 安全, false : 不安全
+     */
+    private static boolean isSafeEntryName(final String entryName) {
+        int len = entryName.length();
+        if (len == 0 || entryName.charAt(0) == '/' || entryName.charAt(0) == '\\'
+                || (len > 1 && entryName.charAt(1) == ':')) {
+            return false;
+        }
+        int start = 0;
+        for (int i = 0; i <= len; i++) {
+            char c = i < len ? entryName.charAt(i) : '/';
+            if (c == '\0') {
+                return false;
+            }
+            if (c == '/' || c == '\\') {
+                if (i - start == 2 && entryName.charAt(start) == '.' && entryName.charAt(start + 1) == '.') {
+                    return false;
+                }
+                start = i + 1;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * detail: 解压任务
+     */
+    private static final class UnzipTask implements Callable<Void> {
+
+        // 压缩文件
+        private final ZipFile zip;
+        // 压缩文件 (直接复制数据时使用)
+        private final File zipFile;
+        // 解压的文件
+        private final ZipEntry entry;
+        // 中央目录中的文件信息 (不为 null 则直接复制数据)
+        private final ZipArchive.Entry raw;
+        // 目标文件
+        private final File file;
+
+        UnzipTask(ZipFile zip, File zipFile, ZipEntry entry, ZipArchive.Entry raw, File file) {
+            this.zip = zip;
+            this.zipFile = zipFile;
+            this.entry = entry;
+            this.raw = raw;
+            this.file = file;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            if (raw != null) {
+                FileInputStream fis = null;
+                FileOutputStream fos = null;
+                try {
+                    fis = new FileInputStream(zipFile);
+                    fos = new FileOutputStream(file);
+                    FileChannel source = fis.getChannel();
+                    ZipArchive.transfer(source, ZipArchive.getDataOffset(source, raw), raw.size, fos.getChannel(), 0);
+                } finally {
+                    CloseUtils.closeIO(fis, fos);
+                }
+                return null;
+            }
+            InputStream in = null;
+            OutputStream out = null;
+            try {
+                in = zip.getInputStream(entry);
+                out = new FileOutputStream(file);
+                byte buffer[] = new byte[PARALLEL_BUFFER_LEN];
+                int len;
+                while ((len = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, len);
+                }
+            } finally {
+                CloseUtils.closeIO(in, out);
+            }
+            return null;
+        }
+    }
+
     /**
      * 解压文件
      * @param destDir
@@ -352,16 +1163,21 @@ public final class ZipUtils {
             return null;
         }
         List<String> paths = new ArrayList<>();
-        Enumeration<?> entries = new ZipFile(zipFile).entries();
-        while (entries.hasMoreElements()) {
-            String entryName = ((ZipEntry) entries.nextElement()).getName();
-            if (entryName.contains("../")) {
-                JCLogUtils.dTag(TAG, ("entryName: " + entryName + " is dangerous!"));
-                // =
-                paths.add(entryName);
-            } else {
-                paths.add(entryName);
+        ZipFile zip = new ZipFile(zipFile);
+        try {
+            Enumeration<?> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                String entryName = ((ZipEntry) entries.nextElement()).getName();
+                if (!isSafeEntryName(entryName)) {
+                    JCLogUtils.dTag(TAG, ("entryName: " + entryName + " is dangerous!"));
+                    // =
+                    paths.add(entryName);
+                } else {
+                    paths.add(entryName);
+                }
             }
+        } finally {
+            CloseUtils.closeIO(zip);
         }
         return paths;
     }
@@ -387,10 +1203,15 @@ public final class ZipUtils {
             return null;
         }
         List<String> comments = new ArrayList<>();
-        Enumeration<?> entries = new ZipFile(zipFile).entries();
-        while (entries.hasMoreElements()) {
-            ZipEntry entry = ((ZipEntry) entries.nextElement());
-            comments.add(entry.getComment());
+        ZipFile zip = new ZipFile(zipFile);
+        try {
+            Enumeration<?> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = ((ZipEntry) entries.nextElement());
+                comments.add(entry.getComment());
+            }
+        } finally {
+            CloseUtils.closeIO(zip);
         }
         return comments;
     }
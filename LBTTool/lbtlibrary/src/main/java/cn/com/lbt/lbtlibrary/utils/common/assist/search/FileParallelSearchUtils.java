@@ -0,0 +1,513 @@
+package cn.com.lbt.lbtlibrary.utils.common.assist.search;
+
+import java.io.File;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import cn.com.lbt.lbtlibrary.utils.JCLogUtils;
+
+/**
+ * detail: 文件并行搜索 (多线程, 边搜索边回调)
+ * Created by Ttt
+ * ---
+ * hint:
+ * 每个文件夹作为一个任务, 由线程池并行处理, 任务队列后进先出 (优先处理刚发现的子文件夹, 队列不会随目录宽度无限增长)
+ * 匹配的文件通过 {@link ISearchHandler#onFind(File)} 立即回调 (回调在搜索线程中, 同一时间只会有一个线程回调), 不保存目录结构
+ * 匹配条件: 文件名通配符 (*、?、[abc]、{a,b})、文件名正则、文件大小范围、修改时间范围, 先判断文件名 (不需要读取文件信息)
+ * 支持最大深度 (根目录的子文件深度为 1)、最多匹配数量 (达到后停止搜索)、停止搜索
+ */
+public final class FileParallelSearchUtils {
+
+    // 日志TAG
+    private static final String TAG = FileParallelSearchUtils.class.getSimpleName();
+
+    // = 构造函数 =
+
+    public FileParallelSearchUtils() {
+    }
+
+    public FileParallelSearchUtils(ISearchHandler iSearchHandler) {
+        this.iSearchHandler = iSearchHandler;
+    }
+
+    /**
+     * 搜索处理接口
+     */
+    public interface ISearchHandler {
+
+        /**
+         * 判断是否处理该文件 (文件夹返回 false 则不搜索该文件夹)
+         * @param file
+         * @return
+         */
+        boolean isHandlerFile(File file);
+
+        /**
+         * 找到匹配的文件
+         * @param file
+         */
+        void onFind(File file);
+
+        /**
+         * 搜索结束监听
+         * @param count 匹配的文件数量
+         * @param startTime
+         * @param endTime
+         */
+        void OnEndListener(int count, long startTime, long endTime);
+    }
+
+    // 搜索处理接口
+    private ISearchHandler iSearchHandler;
+    // 判断是否运行中
+    private volatile boolean running = false;
+    // 是否停止搜索
+    private volatile boolean stop = false;
+    // 开始搜索时间
+    private long startTime = 0l;
+    // 结束搜索时间
+    private long endTime = 0l;
+    // 并行数量
+    private int parallelism = Math.max(2, Runtime.getRuntime().availableProcessors());
+    // 最大深度 (-1 表示不限制)
+    private int maxDepth = -1;
+    // 最多匹配数量 (-1 表示不限制)
+    private int limit = -1;
+    // 文件名匹配
+    private Pattern namePattern;
+    // 最小文件大小 (包含)
+    private long minSize = -1l;
+    // 最大文件大小 (包含)
+    private long maxSize = -1l;
+    // 修改时间起始 (包含)
+    private long modifiedAfter = -1l;
+    // 修改时间结束 (包含)
+    private long modifiedBefore = -1l;
+    // 是否匹配文件夹
+    private boolean includeDirectory = false;
+
+    // 线程池
+    private ThreadPoolExecutor executor;
+    // 未完成的任务数量
+    private final AtomicInteger pending = new AtomicInteger();
+    // 匹配的文件数量
+    private int count;
+    // 回调锁
+    private final Object lock = new Object();
+
+    /**
+     * 设置搜索处理接口
+     * @param iSearchHandler
+     * @return
+     */
+    public FileParallelSearchUtils setSearchHandler(ISearchHandler iSearchHandler) {
+        this.iSearchHandler = iSearchHandler;
+        return this;
+    }
+
+    /**
+     * 设置并行数量
+     * @param parallelism
+     * @return
+     */
+    public synchronized FileParallelSearchUtils setParallelism(int parallelism) {
+        if (!running && parallelism > 0) {
+            this.parallelism = parallelism;
+        }
+        return this;
+    }
+
+    /**
+     * 设置最大深度 (根目录的子文件深度为 1, -1 表示不限制)
+     * @param maxDepth
+     * @return
+     */
+    public synchronized FileParallelSearchUtils setMaxDepth(int maxDepth) {
+        if (!running) {
+            this.maxDepth = maxDepth;
+        }
+        return this;
+    }
+
+    /**
+     * 设置最多匹配数量 (达到后停止搜索, -1 表示不限制)
+     * @param limit
+     * @return
+     */
+    public synchronized FileParallelSearchUtils setLimit(int limit) {
+        if (!running) {
+            this.limit = limit;
+        }
+        return this;
+    }
+
+    /**
+     * 设置文件名通配符 (*、?、[abc]、{a,b}, null 表示不限制)
+     * @param glob
+     * @return
+     */
+    public synchronized FileParallelSearchUtils setNameGlob(String glob) {
+        if (!running) {
+            this.namePattern = glob != null ? Pattern.compile(globToRegex(glob)) : null;
+        }
+        return this;
+    }
+
+    /**
+     * 设置文件名正则 (完整匹配, null 表示不限制)
+     * @param regex
+     * @return
+     */
+    public synchronized FileParallelSearchUtils setNameRegex(String regex) {
+        if (!running) {
+            this.namePattern = regex != null ? Pattern.compile(regex) : null;
+        }
+        return this;
+    }
+
+    /**
+     * 设置文件大小范围 (包含, -1 表示不限制)
+     * @param minSize
+     * @param maxSize
+     * @return
+     */
+    public synchronized FileParallelSearchUtils setSizeRange(long minSize, long maxSize) {
+        if (!running) {
+            this.minSize = minSize;
+            this.maxSize = maxSize;
+        }
+        return this;
+    }
+
+    /**
+     * 设置修改时间范围 (包含, 毫秒, -1 表示不限制)
+     * @param modifiedAfter
+     * @param modifiedBefore
+     * @return
+     */
+    public synchronized FileParallelSearchUtils setModifiedRange(long modifiedAfter, long modifiedBefore) {
+        if (!running) {
+            this.modifiedAfter = modifiedAfter;
+            this.modifiedBefore = modifiedBefore;
+        }
+        return this;
+    }
+
+    /**
+     * 设置是否匹配文件夹 (文件夹只判断文件名、修改时间)
+     * @param includeDirectory
+     * @return
+     */
+    public synchronized FileParallelSearchUtils setIncludeDirectory(boolean includeDirectory) {
+        if (!running) {
+            this.includeDirectory = includeDirectory;
+        }
+        return this;
+    }
+
+    /**
+     * 是否搜索中
+     * @return
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 停止搜索
+     */
+    public void stop() {
+        stop = true;
+    }
+
+    /**
+     * 是否停止搜索
+     * @return
+     */
+    public boolean isStop() {
+        return stop;
+    }
+
+    /**
+     * 获取开始搜索时间
+     * @return
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * 获取结束搜索时间
+     * @return
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    // =
+
+    /**
+     * 查询
+     * @param path 根目录地址
+     */
+    public synchronized void query(String path) {
+        if (running || path == null) {
+            return;
+        }
+        // 表示运行中
+        running = true;
+        stop = false;
+        count = 0;
+        // 设置开始搜索时间
+        startTime = System.currentTimeMillis();
+        File root = new File(path);
+        if (!root.isDirectory()) {
+            if (root.isFile() && isHandlerFile(root) && isMatch(root, false)) {
+                emit(root);
+            }
+            finish();
+            return;
+        }
+        executor = new ThreadPoolExecutor(parallelism, parallelism, 0l, TimeUnit.MILLISECONDS, new LifoQueue(), new ThreadFactory() {
+            private final AtomicInteger number = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, TAG + "-" + number.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        submit(root, 0);
+    }
+
+    /**
+     * 添加文件夹搜索任务
+     * @param dir   文件夹
+     * @param depth 文件夹深度
+     */
+    private void submit(final File dir, final int depth) {
+        pending.incrementAndGet();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        queryDir(dir, depth);
+                    } catch (Exception e) {
+                        JCLogUtils.eTag(TAG, e, "queryDir");
+                    } finally {
+                        if (pending.decrementAndGet() == 0) {
+                            finish();
+                        }
+                    }
+                }
+            });
+        } catch (Exception e) {
+            JCLogUtils.eTag(TAG, e, "submit");
+            if (pending.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+    }
+
+    /**
+     * 搜索文件夹
+     * @param dir   文件夹
+     * @param depth 文件夹深度
+     */
+    private void queryDir(File dir, int depth) {
+        int childDepth = depth + 1;
+        if (stop || (maxDepth >= 0 && childDepth > maxDepth)) {
+            return;
+        }
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (stop) {
+                return;
+            }
+            if (!isHandlerFile(file)) {
+                continue;
+            }
+            boolean isDirectory = file.isDirectory();
+            if (isDirectory) {
+                if (includeDirectory && isMatch(file, true)) {
+                    emit(file);
+                }
+                if (maxDepth < 0 || childDepth < maxDepth) {
+                    submit(file, childDepth);
+                }
+            } else if (isMatch(file, false)) {
+                emit(file);
+            }
+        }
+    }
+
+    /**
+     * 判断是否匹配
+     * @param file        文件
+     * @param isDirectory 是否文件夹
+     * @return
+     */
+    private boolean isMatch(File file, boolean isDirectory) {
+        if (namePattern != null && !namePattern.matcher(file.getName()).matches()) {
+            return false;
+        }
+        if (!isDirectory && (minSize >= 0 || maxSize >= 0)) {
+            long length = file.length();
+            if ((minSize >= 0 && length < minSize) || (maxSize >= 0 && length > maxSize)) {
+                return false;
+            }
+        }
+        if (modifiedAfter >= 0 || modifiedBefore >= 0) {
+            long modified = file.lastModified();
+            if ((modifiedAfter >= 0 && modified < modifiedAfter) || (modifiedBefore >= 0 && modified > modifiedBefore)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断是否处理该文件
+     * @param file
+     * @return
+     */
+    private boolean isHandlerFile(File file) {
+        ISearchHandler handler = iSearchHandler;
+        return handler == null || handler.isHandlerFile(file);
+    }
+
+    /**
+     * 回调匹配的文件
+     * @param file
+     */
+    private void emit(File file) {
+        synchronized (lock) {
+            if (stop) {
+                return;
+            }
+            // 已达到数量限制 (包含 limit 为 0)
+            if (limit >= 0 && count >= limit) {
+                stop = true;
+                return;
+            }
+            count++;
+            ISearchHandler handler = iSearchHandler;
+            if (handler != null) {
+                try {
+                    handler.onFind(file);
+                } catch (Exception e) {
+                    JCLogUtils.eTag(TAG, e, "onFind");
+                }
+            }
+            if (limit >= 0 && count >= limit) {
+                stop = true;
+            }
+        }
+    }
+
+    /**
+     * 搜索结束
+     */
+    private void finish() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+        endTime = System.currentTimeMillis();
+        running = false;
+        ISearchHandler handler = iSearchHandler;
+        if (handler != null) {
+            int total;
+            synchronized (lock) {
+                total = count;
+            }
+            handler.OnEndListener(total, startTime, endTime);
+        }
+    }
+
+    /**
+     * 通配符转换为正则
+     * @param glob 通配符
+     * @return 正则
+     */
+    private static String globToRegex(String glob) {
+        StringBuilder builder = new StringBuilder(glob.length() + 8);
+        boolean inGroup = false;
+        for (int i = 0, len = glob.length(); i < len; i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    builder.append(".*");
+                    break;
+                case '?':
+                    builder.append('.');
+                    break;
+                case '[':
+                    builder.append('[');
+                    if (i + 1 < len && glob.charAt(i + 1) == '!') {
+                        builder.append('^');
+                        i++;
+                    }
+                    break;
+                case ']':
+                    builder.append(']');
+                    break;
+                case '{':
+                    builder.append("(?:");
+                    inGroup = true;
+                    break;
+                case '}':
+                    builder.append(inGroup ? ")" : "\\}");
+                    inGroup = false;
+                    break;
+                case ',':
+                    builder.append(inGroup ? "|" : ",");
+                    break;
+                case '\\':
+                    if (i + 1 < len) {
+                        builder.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                    }
+                    break;
+                default:
+                    if ("().+^$|".indexOf(c) >= 0) {
+                        builder.append('\\');
+                    }
+                    builder.append(c);
+                    break;
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * detail: 后进先出任务队列
+     */
+    private static final class LifoQueue extends LinkedBlockingDeque<Runnable> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean offer(Runnable runnable) {
+            return offerFirst(runnable);
+        }
+
+        @Override
+        public boolean add(Runnable runnable) {
+            return offerFirst(runnable);
+        }
+
+        @Override
+        public void put(Runnable runnable) throws InterruptedException {
+            putFirst(runnable);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package cn.com.lbt.lbtlibrary.utils.common.encrypt;
 
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.io.File;
 import java.util.zip.CRC32;
 
 import cn.com.lbt.lbtlibrary.utils.JCLogUtils;
@@ -56,19 +55,10 @@ public final class CRCUtils {
      * @return
      */
     public static String getFileCrc32(String fPath) {
-        try {
-            InputStream fis = new FileInputStream(fPath);
-            byte[] buffer = new byte[1024];
-            CRC32 crc32 = new CRC32();
-            int numRead = 0;
-            while ((numRead = fis.read(buffer)) > 0) {
-                crc32.update(buffer, 0, numRead);
-            }
-            fis.close();
-            return Long.toHexString(crc32.getValue());
-        } catch (Exception e) {
-            JCLogUtils.eTag(TAG, e, "getFileCrc32");
+        if (fPath == null) {
+            return null;
         }
-        return null;
+        long crc32 = FileDigester.getFileCRC32(new File(fPath));
+        return crc32 != -1l ? Long.toHexString(crc32) : null;
     }
 }
@@ -3,9 +3,6 @@ package cn.com.lbt.lbtlibrary.utils.common.encrypt;
 import android.util.Base64;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.security.DigestInputStream;
 import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.KeyFactory;
@@ -160,29 +157,7 @@ public final class EncryptUtils {
      */
     public static byte[] encryptMD5File(final File file) {
         if (file == null) return null;
-        FileInputStream fis = null;
-        DigestInputStream digestInputStream;
-        try {
-            fis = new FileInputStream(file);
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            digestInputStream = new DigestInputStream(fis, md);
-            byte[] buffer = new byte[256 * 1024];
-            while (true) {
-                if (!(digestInputStream.read(buffer) > 0)) break;
-            }
-            md = digestInputStream.getMessageDigest();
-            return md.digest();
-        } catch (NoSuchAlgorithmException | IOException e) {
-            JCLogUtils.eTag(TAG, e, "encryptMD5File");
-            return null;
-        } finally {
-            try {
-                if (fis != null) {
-                    fis.close();
-                }
-            } catch (IOException e) {
-            }
-        }
+        return FileDigester.getFileDigest(file, FileDigester.MD5);
     }
 
     /**
@@ -0,0 +1,456 @@
+package cn.com.lbt.lbtlibrary.utils.common.encrypt;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import cn.com.lbt.lbtlibrary.utils.JCLogUtils;
+
+/**
+ * detail: 文件摘要、校验值计算工具类
+ * Created by Ttt
+ * ---
+ * hint:
+ * 多个算法只读取一次文件, 例: digest(file, FileDigester.MD5, FileDigester.SHA256, FileDigester.CRC32)
+ * 大文件多个算法时, 每个算法由单独线程计算, 读取下一段数据与计算同时进行 (双缓冲区)
+ * 大文件只计算 CRC32 时, 分段并行计算后合并 (CRC32 combine)
+ * MD5、SHA 等摘要算法不支持分段合并, 只能顺序计算
+ */
+public final class FileDigester {
+
+    private FileDigester() {
+    }
+
+    // 日志TAG
+    private static final String TAG = FileDigester.class.getSimpleName();
+    // MD5
+    public static final String MD5 = "MD5";
+    // SHA-1
+    public static final String SHA1 = "SHA-1";
+    // SHA-256
+    public static final String SHA256 = "SHA-256";
+    // SHA-512
+    public static final String SHA512 = "SHA-512";
+    // CRC32 (结果为 4 字节, 高位在前)
+    public static final String CRC32 = "CRC32";
+    // Adler32 (结果为 4 字节, 高位在前)
+    public static final String ADLER32 = "Adler32";
+    // 读取缓冲区大小
+    private static final int BUFFER_SIZE = 256 * 1024;
+    // 并行计算的文件大小阀值
+    private static final long PARALLEL_THRESHOLD = 4 * 1024 * 1024;
+    // 小写
+    private static final char HEX_DIGITS[] = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    /**
+     * 计算文件摘要、校验值 (只读取一次文件)
+     * @param file       文件
+     * @param algorithms 算法 (MessageDigest 支持的算法、CRC32、Adler32)
+     * @return 算法 - 结果 (按传入顺序), 失败则返回 null
+     */
+    public static Map<String, byte[]> digest(final File file, final String... algorithms) {
+        if (file == null || algorithms == null || algorithms.length == 0) {
+            return null;
+        }
+        try {
+            Updater[] updaters = new Updater[algorithms.length];
+            for (int i = 0; i < algorithms.length; i++) {
+                updaters[i] = newUpdater(algorithms[i]);
+            }
+            if (updaters.length > 1 && file.length() >= PARALLEL_THRESHOLD
+                    && Runtime.getRuntime().availableProcessors() > 1) {
+                digestParallel(file, updaters);
+            } else {
+                digestSequential(file, updaters);
+            }
+            Map<String, byte[]> results = new LinkedHashMap<>();
+            for (int i = 0; i < algorithms.length; i++) {
+                results.put(algorithms[i], updaters[i].result());
+            }
+            return results;
+        } catch (Exception e) {
+            JCLogUtils.eTag(TAG, e, "digest");
+        }
+        return null;
+    }
+
+    /**
+     * 计算文件摘要、校验值 (只读取一次文件)
+     * @param file       文件
+     * @param algorithms 算法 (MessageDigest 支持的算法、CRC32、Adler32)
+     * @return 算法 - 结果(小写十六进制) (按传入顺序), 失败则返回 null
+     */
+    public static Map<String, String> digestToHex(final File file, final String... algorithms) {
+        Map<String, byte[]> results = digest(file, algorithms);
+        if (results == null) {
+            return null;
+        }
+        Map<String, String> hexs = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> entry : results.entrySet()) {
+            hexs.put(entry.getKey(), toHexString(entry.getValue()));
+        }
+        return hexs;
+    }
+
+    /**
+     * 计算文件摘要、校验值
+     * @param file      文件
+     * @param algorithm 算法 (MessageDigest 支持的算法、CRC32、Adler32)
+     * @return 结果, 失败则返回 null
+     */
+    public static byte[] getFileDigest(final File file, final String algorithm) {
+        Map<String, byte[]> results = digest(file, algorithm);
+        return results != null ? results.get(algorithm) : null;
+    }
+
+    /**
+     * 计算文件 CRC32 (大文件分段并行计算)
+     * @param file 文件
+     * @return CRC32, 失败则返回 -1
+     */
+    public static long getFileCRC32(final File file) {
+        if (file == null) {
+            return -1l;
+        }
+        try {
+            long length = file.length();
+            int parallelism = Runtime.getRuntime().availableProcessors();
+            if (length < PARALLEL_THRESHOLD || parallelism < 2) {
+                CRC32 crc32 = new CRC32();
+                digestSequential(file, new Updater[]{new ChecksumUpdater(crc32)});
+                return crc32.getValue();
+            }
+            return crc32Parallel(file, length, parallelism);
+        } catch (Exception e) {
+            JCLogUtils.eTag(TAG, e, "getFileCRC32");
+        }
+        return -1l;
+    }
+
+    // =
+
+    /**
+     * 顺序读取计算
+     * @param file     文件
+     * @param updaters 计算对象
+     * @throws IOException
+     */
+    private static void digestSequential(final File file, final Updater[] updaters) throws IOException {
+        InputStream is = null;
+        try {
+            is = new FileInputStream(file);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int len;
+            while ((len = is.read(buffer)) != -1) {
+                for (Updater updater : updaters) {
+                    updater.update(buffer, 0, len);
+                }
+            }
+        } finally {
+            if (is != null) {
+                try {
+                    is.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * 每个算法单独线程计算, 调用线程同时读取下一段数据
+     * @param file     文件
+     * @param updaters 计算对象
+     * @throws Exception
+     */
+    private static void digestParallel(final File file, final Updater[] updaters) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(updaters.length);
+        InputStream is = null;
+        try {
+            is = new FileInputStream(file);
+            byte[][] buffers = {new byte[BUFFER_SIZE], new byte[BUFFER_SIZE]};
+            List<Future<?>> futures = new ArrayList<>(updaters.length);
+            int index = 0;
+            int len = readFully(is, buffers[index]);
+            while (len > 0) {
+                final byte[] buffer = buffers[index];
+                final int count = len;
+                for (final Updater updater : updaters) {
+                    futures.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            updater.update(buffer, 0, count);
+                        }
+                    }));
+                }
+                index ^= 1;
+                len = readFully(is, buffers[index]);
+                awaitAll(futures);
+            }
+        } finally {
+            executor.shutdownNow();
+            if (is != null) {
+                try {
+                    is.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * 分段并行计算 CRC32 后合并
+     * @param file        文件
+     * @param length      文件大小
+     * @param parallelism 并行数量
+     * @return CRC32
+     * @throws Exception
+     */
+    private static long crc32Parallel(final File file, final long length, final int parallelism) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            final FileChannel channel = raf.getChannel();
+            long chunkSize = (length + parallelism - 1) / parallelism;
+            List<Future<Long>> futures = new ArrayList<>(parallelism);
+            List<Long> lengths = new ArrayList<>(parallelism);
+            for (long start = 0; start < length; start += chunkSize) {
+                final long position = start;
+                final long end = Math.min(length, start + chunkSize);
+                lengths.add(end - start);
+                futures.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        CRC32 crc32 = new CRC32();
+                        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                        long current = position;
+                        while (current < end) {
+                            buffer.clear();
+                            buffer.limit((int) Math.min(BUFFER_SIZE, end - current));
+                            int count = channel.read(buffer, current);
+                            if (count < 0) {
+                                throw new IOException("unexpected end of file");
+                            }
+                            crc32.update(buffer.array(), 0, count);
+                            current += count;
+                        }
+                        return crc32.getValue();
+                    }
+                }));
+            }
+            long crc = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                long value = futures.get(i).get();
+                crc = i == 0 ? value : crc32Combine(crc, value, lengths.get(i));
+            }
+            return crc;
+        } finally {
+            executor.shutdownNow();
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * 合并两段数据的 CRC32 (zlib crc32_combine)
+     * @param crc1 第一段 CRC32
+     * @param crc2 第二段 CRC32
+     * @param len2 第二段长度
+     * @return 合并后的 CRC32
+     */
+    static long crc32Combine(long crc1, final long crc2, long len2) {
+        if (len2 <= 0) {
+            return crc1;
+        }
+        long[] even = new long[32];
+        long[] odd = new long[32];
+        // 一个 0 bit 的运算矩阵
+        odd[0] = 0xEDB88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        // 2 个、4 个 0 bit 的运算矩阵
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+        // 每次平方得到 2^n 个 0 字节的运算矩阵, 按 len2 的二进制位应用
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((len2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(even, crc1);
+            }
+            len2 >>= 1;
+            if (len2 == 0) {
+                break;
+            }
+            gf2MatrixSquare(odd, even);
+            if ((len2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(odd, crc1);
+            }
+            len2 >>= 1;
+        } while (len2 != 0);
+        return crc1 ^ crc2;
+    }
+
+    private static long gf2MatrixTimes(final long[] mat, long vec) {
+        long sum = 0;
+        int i = 0;
+        while (vec != 0) {
+            if ((vec & 1) != 0) {
+                sum ^= mat[i];
+            }
+            vec >>>= 1;
+            i++;
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(final long[] square, final long[] mat) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(mat, mat[n]);
+        }
+    }
+
+    /**
+     * 读取数据直到填满缓冲区或者读取完
+     * @param is     输入流
+     * @param buffer 缓冲区
+     * @return 读取的长度
+     * @throws IOException
+     */
+    private static int readFully(final InputStream is, final byte[] buffer) throws IOException {
+        int total = 0;
+        int len;
+        while (total < buffer.length && (len = is.read(buffer, total, buffer.length - total)) != -1) {
+            total += len;
+        }
+        return total;
+    }
+
+    /**
+     * 等待全部任务完成
+     * @param futures 任务
+     * @throws Exception
+     */
+    private static void awaitAll(final List<Future<?>> futures) throws Exception {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        } finally {
+            futures.clear();
+        }
+    }
+
+    /**
+     * 转换为小写十六进制
+     * @param data
+     * @return
+     */
+    private static String toHexString(final byte[] data) {
+        char[] chars = new char[data.length * 2];
+        for (int i = 0; i < data.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(data[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX_DIGITS[data[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    // =
+
+    /**
+     * 创建计算对象
+     * @param algorithm 算法
+     * @return {@link Updater}
+     * @throws NoSuchAlgorithmException
+     */
+    private static Updater newUpdater(final String algorithm) throws NoSuchAlgorithmException {
+        if (CRC32.equalsIgnoreCase(algorithm)) {
+            return new ChecksumUpdater(new CRC32());
+        } else if (ADLER32.equalsIgnoreCase(algorithm)) {
+            return new ChecksumUpdater(new Adler32());
+        }
+        return new DigestUpdater(MessageDigest.getInstance(algorithm));
+    }
+
+    /**
+     * detail: 计算对象
+     */
+    private interface Updater {
+
+        void update(byte[] buffer, int offset, int len);
+
+        byte[] result();
+    }
+
+    /**
+     * detail: MessageDigest 计算
+     */
+    private static final class DigestUpdater implements Updater {
+
+        private final MessageDigest digest;
+
+        DigestUpdater(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        public void update(byte[] buffer, int offset, int len) {
+            digest.update(buffer, offset, len);
+        }
+
+        @Override
+        public byte[] result() {
+            return digest.digest();
+        }
+    }
+
+    /**
+     * detail: Checksum 计算 (结果为 4 字节, 高位在前)
+     */
+    private static final class ChecksumUpdater implements Updater {
+
+        private final Checksum checksum;
+
+        ChecksumUpdater(Checksum checksum) {
+            this.checksum = checksum;
+        }
+
+        @Override
+        public void update(byte[] buffer, int offset, int len) {
+            checksum.update(buffer, offset, len);
+        }
+
+        @Override
+        public byte[] result() {
+            long value = checksum.getValue();
+            return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+        }
+    }
+}
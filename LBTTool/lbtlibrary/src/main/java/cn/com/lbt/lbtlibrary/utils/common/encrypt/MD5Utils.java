@@ -1,7 +1,6 @@
 package cn.com.lbt.lbtlibrary.utils.common.encrypt;
 
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.io.File;
 import java.security.MessageDigest;
 
 import cn.com.lbt.lbtlibrary.utils.JCLogUtils;
@@ -124,20 +123,11 @@ public final class MD5Utils {
 	 * @return
 	 */
 	public static String getFileMD5(String fPath) {
-		try {
-			InputStream fis = new FileInputStream(fPath);
-			byte[] buffer = new byte[1024];
-			MessageDigest md5 = MessageDigest.getInstance("MD5");
-			int numRead = 0;
-			while ((numRead = fis.read(buffer)) > 0) {
-				md5.update(buffer, 0, numRead);
-			}
-			fis.close();
-			return toHexString(md5.digest(), HEX_DIGITS);
-		} catch (Exception e) {
-			JCLogUtils.eTag(TAG, e, "getFileMD5");
+		if (fPath == null) {
+			return null;
 		}
-		return null;
+		byte[] md5 = FileDigester.getFileDigest(new File(fPath), FileDigester.MD5);
+		return md5 != null ? toHexString(md5, HEX_DIGITS) : null;
 	}
 
 //	/**
@@ -1,7 +1,6 @@
 package cn.com.lbt.lbtlibrary.utils.common.encrypt;
 
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.io.File;
 import java.security.MessageDigest;
 
 import cn.com.lbt.lbtlibrary.utils.JCLogUtils;
@@ -96,20 +95,11 @@ public final class SHAUtils {
      * @return
      */
     private static final String getFileSHA(String fPath, String sha) {
-        try {
-            InputStream fis = new FileInputStream(fPath);
-            byte[] buffer = new byte[1024];
-            MessageDigest md5 = MessageDigest.getInstance(sha);
-            int numRead = 0;
-            while ((numRead = fis.read(buffer)) > 0) {
-                md5.update(buffer, 0, numRead);
-            }
-            fis.close();
-            return toHexString(md5.digest(), HEX_DIGITS);
-        } catch (Exception e) {
-            JCLogUtils.eTag(TAG, e, "getFileSHA");
+        if (fPath == null) {
+            return null;
         }
-        return null;
+        byte[] digest = FileDigester.getFileDigest(new File(fPath), sha);
+        return digest != null ? toHexString(digest, HEX_DIGITS) : null;
     }
 
     // =======